@@ -0,0 +1,101 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.ObjectStorageProvider;
+import io.github.sullis.s3.playground.testkit.S3TestKit;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ *  Shared state for the per-operation client benchmarks.
+ *
+ *  Throughput and SampleTime (p50/p99) are reported for every operation;
+ *  {@link S3BenchmarkRunner} adds the gc profiler for allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public abstract class AbstractS3Benchmark {
+  /** S3 minimum part size */
+  protected static final int PART_SIZE = 5 * 1024 * 1024;
+  protected static final int LIST_KEY_COUNT = 100;
+  protected static final String LIST_PREFIX = "list/";
+
+  @Param({ BenchmarkStorage.IN_PROCESS })
+  public String provider;
+
+  /** 1 KiB, 1 MiB, 16 MiB, 256 MiB */
+  @Param({ "1024", "1048576", "16777216", "268435456" })
+  public int objectSize;
+
+  protected byte[] payload;
+  protected String bucket;
+  protected String existingKey;
+  protected final String putKey = "put-key-" + UUID.randomUUID();
+  protected final String multipartKey = "multipart-key-" + UUID.randomUUID();
+
+  private BenchmarkStorage storage;
+  private S3TestKit testKit;
+
+  /**
+   *  Builds the client under test and returns a test kit wrapping it.
+   */
+  protected abstract S3TestKit openClient(ObjectStorageProvider objectStorageProvider) throws Exception;
+
+  protected abstract void closeClient() throws Exception;
+
+  protected abstract void put(String key, byte[] content) throws Exception;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    storage = BenchmarkStorage.start(provider);
+    payload = new byte[objectSize];
+    new Random(objectSize).nextBytes(payload);
+    testKit = openClient(storage.objectStorageProvider());
+    bucket = testKit.createNewBucket();
+    existingKey = "existing-key-" + UUID.randomUUID();
+    put(existingKey, payload);
+    byte[] empty = new byte[0];
+    for (int i = 0; i < LIST_KEY_COUNT; i++) {
+      put(LIST_PREFIX + i, empty);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    try {
+      testKit.cleanup();
+    } finally {
+      closeClient();
+      storage.close();
+    }
+  }
+
+  protected int partCount() {
+    return Math.max(1, (objectSize + PART_SIZE - 1) / PART_SIZE);
+  }
+
+  protected int partOffset(final int partNumber) {
+    return (partNumber - 1) * PART_SIZE;
+  }
+
+  protected int partLength(final int partNumber) {
+    return Math.min(PART_SIZE, objectSize - partOffset(partNumber));
+  }
+}
@@ -0,0 +1,130 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.ObjectStorageProvider;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.server.FaultProfile;
+import io.github.sullis.s3.playground.testkit.S3AsyncTestKit;
+import io.github.sullis.s3.playground.testkit.S3SyncTestKit;
+import io.github.sullis.s3.playground.testkit.S3TestKit;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import software.amazon.awssdk.core.SdkClient;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+
+/**
+ *  What a benchmark's trial setup starts: a {@link BenchmarkStorage}, a client on it and a new bucket.
+ *
+ *  {@link #close} is the matching teardown: it removes injected faults, deletes the bucket and whatever the
+ *  benchmark left in it, then closes the client and the storage.
+ */
+public final class BenchmarkFixture<C extends SdkClient> implements AutoCloseable {
+  private final BenchmarkStorage storage;
+  private final C client;
+  private final S3TestKit testKit;
+  private final String bucket;
+
+  private BenchmarkFixture(final BenchmarkStorage storage,
+      final C client,
+      final S3TestKit testKit,
+      final String bucket) {
+    this.storage = storage;
+    this.client = client;
+    this.testKit = testKit;
+    this.bucket = bucket;
+  }
+
+  /**
+   *  With the {@link S3ClientFactory} client for {@code httpClient}, default settings.
+   */
+  public static BenchmarkFixture<S3AsyncClient> async(final String provider, final String httpClient)
+      throws Exception {
+    return async(provider,
+        objectStorageProvider -> S3ClientFactory.s3AsyncClient(objectStorageProvider, httpClient, null).client());
+  }
+
+  public static BenchmarkFixture<S3AsyncClient> async(final String provider,
+      final Function<ObjectStorageProvider, S3AsyncClient> clientFactory) throws Exception {
+    return start(provider, clientFactory, client -> new S3AsyncTestKit(client, -1, false));
+  }
+
+  /**
+   *  With the {@link S3ClientFactory} client for {@code httpClient}, default settings.
+   */
+  public static BenchmarkFixture<S3Client> sync(final String provider, final String httpClient) throws Exception {
+    return sync(provider,
+        objectStorageProvider -> S3ClientFactory.s3Client(objectStorageProvider, httpClient, null).client());
+  }
+
+  public static BenchmarkFixture<S3Client> sync(final String provider,
+      final Function<ObjectStorageProvider, S3Client> clientFactory) throws Exception {
+    return start(provider, clientFactory, client -> new S3SyncTestKit(client, -1, false));
+  }
+
+  private static <C extends SdkClient> BenchmarkFixture<C> start(final String provider,
+      final Function<ObjectStorageProvider, C> clientFactory,
+      final Function<C, S3TestKit> testKitFactory) throws Exception {
+    final BenchmarkStorage storage = BenchmarkStorage.start(provider);
+    try {
+      final C client = clientFactory.apply(storage.objectStorageProvider());
+      try {
+        final S3TestKit testKit = testKitFactory.apply(client);
+        return new BenchmarkFixture<>(storage, client, testKit, testKit.createNewBucket());
+      } catch (Exception | Error ex) {
+        client.close();
+        throw ex;
+      }
+    } catch (Exception | Error ex) {
+      storage.close();
+      throw ex;
+    }
+  }
+
+  /**
+   *  Writes an empty object under each of {@code keys(0)} to {@code keys(keyCount - 1)}, {@code putsInFlight} at
+   *  a time; needs an async client.
+   */
+  public void putEmptyObjects(final int keyCount, final IntFunction<String> keys, final int putsInFlight)
+      throws Exception {
+    if (!(client instanceof S3AsyncClient s3Client)) {
+      throw new IllegalStateException("putEmptyObjects needs an async client: " + client);
+    }
+    final Deque<CompletableFuture<?>> puts = new ArrayDeque<>();
+    for (int i = 0; i < keyCount; i++) {
+      final String key = keys.apply(i);
+      if (puts.size() == putsInFlight) {
+        puts.removeFirst().get();
+      }
+      puts.addLast(s3Client.putObject(put -> put.bucket(bucket).key(key), AsyncRequestBody.empty()));
+    }
+    CompletableFuture.allOf(puts.toArray(new CompletableFuture<?>[0])).get();
+  }
+
+  public BenchmarkStorage storage() {
+    return storage;
+  }
+
+  public C client() {
+    return client;
+  }
+
+  public String bucket() {
+    return bucket;
+  }
+
+  @Override
+  public void close() throws Exception {
+    try {
+      storage.injectFaults(FaultProfile.NONE);
+      testKit.cleanup();
+    } finally {
+      client.close();
+      storage.close();
+    }
+  }
+}
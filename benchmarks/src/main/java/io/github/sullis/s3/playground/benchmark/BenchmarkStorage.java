@@ -0,0 +1,145 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import com.adobe.testing.s3mock.testcontainers.S3MockContainer;
+import io.github.sullis.s3.playground.ObjectStorageProvider;
+import io.github.sullis.s3.playground.server.FaultProfile;
+import io.github.sullis.s3.playground.server.InProcessS3Server;
+import io.github.sullis.s3.playground.server.LatencyDistribution;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import org.jspecify.annotations.Nullable;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.lifecycle.Startable;
+import org.testcontainers.utility.DockerImageName;
+
+
+/**
+ *  Object storage selected by the {@code provider} benchmark parameter.
+ *
+ *  {@value #IN_PROCESS} needs neither Docker nor network access, so its numbers
+ *  can be reproduced on a laptop. {@value #IN_PROCESS_MAPPED} is the same server with object content
+ *  in memory-mapped files, for objects too large for the benchmark heap.
+ */
+public final class BenchmarkStorage implements AutoCloseable {
+  public static final String IN_PROCESS = "inprocess";
+  public static final String IN_PROCESS_MAPPED = "inprocess-mmap";
+  public static final String MINIO = "minio";
+  public static final String LOCALSTACK = "localstack";
+  public static final String S3MOCK = "s3mock";
+  public static final String AWS = "aws";
+
+  private final ObjectStorageProvider objectStorageProvider;
+  private final @Nullable AutoCloseable resource;
+
+  private BenchmarkStorage(final ObjectStorageProvider objectStorageProvider, @Nullable final AutoCloseable resource) {
+    this.objectStorageProvider = objectStorageProvider;
+    this.resource = resource;
+  }
+
+  /**
+   *  Only the in-process providers can inject faults; {@link FaultProfile#NONE} is accepted everywhere.
+   */
+  public void injectFaults(final FaultProfile faultProfile) {
+    if (resource instanceof InProcessS3Server server) {
+      server.injectFaults(faultProfile);
+    } else if (!FaultProfile.NONE.equals(faultProfile)) {
+      throw new IllegalStateException("fault injection needs an in-process provider: " + objectStorageProvider);
+    }
+  }
+
+  /**
+   *  Gives {@code operations} a log-normal latency with a median of {@code medianMillis} and a p99 three times
+   *  that, the long tail of a remote endpoint, so that round trips and not the in-process server dominate.
+   *  Does nothing when {@code medianMillis} is 0 or the provider is not in-process: a real endpoint has latency
+   *  of its own. Replaces any faults injected before.
+   */
+  public void injectLatency(final int medianMillis, final String... operations) {
+    if (medianMillis <= 0 || !(resource instanceof InProcessS3Server server)) {
+      return;
+    }
+    final Duration median = Duration.ofMillis(medianMillis);
+    final LatencyDistribution latency = LatencyDistribution.logNormal(median, median.multipliedBy(3));
+    FaultProfile faultProfile = FaultProfile.NONE;
+    for (String operation : operations) {
+      faultProfile = faultProfile.withLatency(operation, latency);
+    }
+    server.injectFaults(faultProfile);
+  }
+
+  /**
+   *  Request body bytes the in-process server has read; see {@link InProcessS3Server#bytesReceived()}.
+   */
+  public long bytesReceived() {
+    return inProcessServer().bytesReceived();
+  }
+
+  /**
+   *  Response body bytes the in-process server has written; see {@link InProcessS3Server#bytesSent()}.
+   */
+  public long bytesSent() {
+    return inProcessServer().bytesSent();
+  }
+
+  private InProcessS3Server inProcessServer() {
+    if (resource instanceof InProcessS3Server server) {
+      return server;
+    }
+    throw new IllegalStateException("byte counts need an in-process provider: " + objectStorageProvider);
+  }
+
+  public static BenchmarkStorage start(final String provider) throws IOException {
+    switch (provider) {
+      case IN_PROCESS -> {
+        InProcessS3Server server = InProcessS3Server.start();
+        return new BenchmarkStorage(new ObjectStorageProvider.InProcess(server), server);
+      }
+      case IN_PROCESS_MAPPED -> {
+        InProcessS3Server server = InProcessS3Server.start(InProcessS3Server.Storage.MAPPED);
+        return new BenchmarkStorage(new ObjectStorageProvider.InProcess(server), server);
+      }
+      case MINIO -> {
+        MinIOContainer container = started(new MinIOContainer(DockerImageName.parse("minio/minio:latest")));
+        return new BenchmarkStorage(new ObjectStorageProvider.Minio(container), container);
+      }
+      case LOCALSTACK -> {
+        LocalStackContainer container = started(
+            new LocalStackContainer(DockerImageName.parse("localstack/localstack:4.1.0"))
+                .withServices(LocalStackContainer.Service.S3));
+        return new BenchmarkStorage(new ObjectStorageProvider.Localstack(container), container);
+      }
+      case S3MOCK -> {
+        S3MockContainer container = started(new S3MockContainer(DockerImageName.parse("adobe/s3mock:latest")));
+        return new BenchmarkStorage(new ObjectStorageProvider.S3Mock(container), container);
+      }
+      case AWS -> {
+        return new BenchmarkStorage(new ObjectStorageProvider.Aws(), null);
+      }
+      default -> throw new IllegalArgumentException("unknown provider: " + provider);
+    }
+  }
+
+  private static <T extends Startable> T started(final T container) {
+    container.start();
+    return container;
+  }
+
+  public ObjectStorageProvider objectStorageProvider() {
+    return objectStorageProvider;
+  }
+
+  /**
+   *  Endpoint of an in-process provider, for a forked JVM to connect to; null for other providers.
+   */
+  public @Nullable URI inProcessEndpoint() {
+    return (resource instanceof InProcessS3Server server) ? server.endpoint() : null;
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (resource != null) {
+      resource.close();
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.testkit.PartPayload;
+import io.github.sullis.s3.playground.testkit.StreamingChecksum;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ *  Verification throughput of {@link StreamingChecksum} on its own, without any network I/O,
+ *  so it can be set against transfer throughput from the client benchmarks.
+ *
+ *  Each operation checksums {@code size} bytes fed in {@code chunkSize} buffers, the way a
+ *  response body arrives. The {@code mebibytes} counter reports MiB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx1g" })
+public class ChecksumBenchmark {
+
+  /** 64 MiB */
+  @Param({ "67108864" })
+  public int size;
+
+  /** Netty and CRT hand over body buffers of roughly this size */
+  @Param({ "8192", "65536" })
+  public int chunkSize;
+
+  @Param({ "CRC32C", "SHA256", "ALL" })
+  public String algorithm;
+
+  @Param({ "direct", "heap" })
+  public String buffer;
+
+  private ByteBuffer content;
+  private StreamingChecksum.Algorithm[] algorithms;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Verified {
+    public long mebibytes;
+  }
+
+  @Setup
+  public void setup() {
+    ByteBuffer generated = PartPayload.allocate(size).slice();
+    content = "direct".equals(buffer) ? generated : ByteBuffer.allocate(size).put(generated).flip();
+    algorithms = "ALL".equals(algorithm)
+        ? new StreamingChecksum.Algorithm[0]
+        : new StreamingChecksum.Algorithm[] { StreamingChecksum.Algorithm.valueOf(algorithm) };
+  }
+
+  @Benchmark
+  public StreamingChecksum.ContentChecksum checksum(final Verified verified) {
+    StreamingChecksum checksum = StreamingChecksum.create(algorithms);
+    for (int offset = 0; offset < size; offset += chunkSize) {
+      checksum.update(content.slice(offset, Math.min(chunkSize, size - offset)));
+    }
+    verified.mebibytes += size / (1024 * 1024);
+    return checksum.finish();
+  }
+}
@@ -0,0 +1,143 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.ObjectStorageProvider;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+
+/**
+ *  Child process of {@link ColdStartRunner}: one client, one JVM, measured from JVM start.
+ *
+ *  Builds the client directly rather than through {@link S3ClientFactory}, whose static builder lists
+ *  would load every HTTP client into every child. Prints one line starting with {@value #RESULT_PREFIX}
+ *  followed by {@code name=millis} pairs, then exits.
+ *
+ *  <pre>
+ *  ColdStartProbe endpoint|aws httpClient bucket
+ *  </pre>
+ */
+public final class ColdStartProbe {
+  static final String RESULT_PREFIX = "COLD_START ";
+  private static final byte[] CONTENT = new byte[1024];
+
+  private ColdStartProbe() { }
+
+  public static void main(String[] args) throws Exception {
+    final long mainEntered = System.currentTimeMillis();
+    final ObjectStorageProvider provider = BenchmarkStorage.AWS.equals(args[0])
+        ? new ObjectStorageProvider.Aws()
+        : new ObjectStorageProvider.InProcess(URI.create(args[0]));
+    final String httpClient = args[1];
+    final String bucket = args[2];
+    final String key = "cold-start-" + UUID.randomUUID();
+    final Map<String, Double> result = new LinkedHashMap<>();
+
+    long start = System.nanoTime();
+    final AutoCloseable client = build(provider, httpClient);
+    result.put("build", millisSince(start));
+
+    start = System.nanoTime();
+    put(client, bucket, key);
+    result.put("firstPut", millisSince(start));
+    final long firstSuccess = System.currentTimeMillis();
+
+    start = System.nanoTime();
+    get(client, bucket, key);
+    result.put("firstGet", millisSince(start));
+
+    start = System.nanoTime();
+    get(client, bucket, key);
+    result.put("warmGet", millisSince(start));
+
+    final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+    result.put("jvmToMain", (double) (mainEntered - jvmStart));
+    result.put("jvmToFirstSuccess", (double) (firstSuccess - jvmStart));
+    client.close();
+    result.put("connect", connectionSetup(provider, httpClient, bucket, key));
+
+    StringBuilder line = new StringBuilder(RESULT_PREFIX);
+    result.forEach((name, millis) -> line.append(name).append('=').append(millis).append(' '));
+    System.out.println(line.toString().trim());
+    System.out.flush();
+    // CRT and Netty leave non-daemon threads behind
+    System.exit(0);
+  }
+
+  /**
+   *  A second client, built once the classes are loaded, sends the same GetObject twice: the first opens
+   *  the connection (TCP, plus TLS for https endpoints) and the second reuses it, so the difference is
+   *  connection setup alone. Pool metrics cannot give this for every client: Apache opens the socket after
+   *  the pool lease that {@code ConcurrencyAcquireDuration} times, and crtBuilder publishes no metrics.
+   */
+  private static double connectionSetup(final ObjectStorageProvider provider,
+      final String httpClient,
+      final String bucket,
+      final String key) throws Exception {
+    try (AutoCloseable client = build(provider, httpClient)) {
+      long start = System.nanoTime();
+      get(client, bucket, key);
+      final double cold = millisSince(start);
+      start = System.nanoTime();
+      get(client, bucket, key);
+      return Math.max(0, cold - millisSince(start));
+    }
+  }
+
+  private static AutoCloseable build(final ObjectStorageProvider provider, final String httpClient) {
+    if (S3ClientFactory.CRT_BUILDER.equals(httpClient)) {
+      return provider.configure(S3AsyncClient.crtBuilder()).build();
+    }
+    final SdkHttpClient.Builder<?> syncBuilder = switch (httpClient) {
+      case "ApacheHttpClient" -> ApacheHttpClient.builder();
+      case "AwsCrtHttpClient" -> AwsCrtHttpClient.builder();
+      default -> null;
+    };
+    if (syncBuilder != null) {
+      return (S3Client) provider.configure(S3Client.builder().httpClientBuilder(syncBuilder)).build();
+    }
+    final SdkAsyncHttpClient.Builder<?> asyncBuilder = switch (httpClient) {
+      case "NettyNioAsyncHttpClient" -> NettyNioAsyncHttpClient.builder();
+      case "AwsCrtAsyncHttpClient" -> AwsCrtAsyncHttpClient.builder();
+      default -> throw new IllegalArgumentException("unknown http client: " + httpClient);
+    };
+    return (S3AsyncClient) provider.configure(S3AsyncClient.builder().httpClientBuilder(asyncBuilder)).build();
+  }
+
+  private static void put(final AutoCloseable client, final String bucket, final String key) {
+    if (client instanceof S3Client s3Client) {
+      s3Client.putObject(request -> request.bucket(bucket).key(key), RequestBody.fromBytes(CONTENT));
+    } else {
+      ((S3AsyncClient) client).putObject(request -> request.bucket(bucket).key(key),
+          AsyncRequestBody.fromBytes(CONTENT)).join();
+    }
+  }
+
+  private static void get(final AutoCloseable client, final String bucket, final String key) {
+    if (client instanceof S3Client s3Client) {
+      s3Client.getObject(request -> request.bucket(bucket).key(key), ResponseTransformer.toBytes());
+    } else {
+      ((S3AsyncClient) client).getObject(request -> request.bucket(bucket).key(key),
+          AsyncResponseTransformer.toBytes()).join();
+    }
+  }
+
+  private static double millisSince(final long startNanos) {
+    return (System.nanoTime() - startNanos) / 1e6;
+  }
+}
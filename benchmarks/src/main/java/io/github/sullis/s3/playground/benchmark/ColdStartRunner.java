@@ -0,0 +1,175 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.S3ClientFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+
+
+/**
+ *  Time from JVM start to the first successful S3 call for each HTTP client, every run in a fresh JVM
+ *  ({@link ColdStartProbe}), to pick the fastest-starting client for short-lived workers.
+ *
+ *  For each client and CDS mode the probe runs {@code runs} times and the median of every figure is
+ *  logged, in milliseconds: {@code jvmToMain}, client {@code build}, {@code connect} (connection setup:
+ *  a fresh client's first GetObject minus its second), {@code firstPut}, {@code jvmToFirstSuccess},
+ *  {@code firstGet}, {@code warmGet}, and {@code process}, the wall time from fork until the probe
+ *  printed its result.
+ *
+ *  CDS modes: {@code off} ({@code -Xshare:off}), {@code default} (the JDK's built-in class data archive)
+ *  and {@code appcds} (a dynamic archive per client, recorded by one extra training run with
+ *  {@code -XX:ArchiveClassesAtExit}).
+ *
+ *  <pre>
+ *  java -cp target/benchmarks.jar io.github.sullis.s3.playground.benchmark.ColdStartRunner \
+ *      [provider] [cdsModes,...] [runs] [httpClients,...]
+ *  </pre>
+ *
+ *  {@code provider} is {@code inprocess}, {@code inprocess-mmap} or {@code aws}; probes reach an
+ *  in-process server in this JVM over loopback.
+ */
+public final class ColdStartRunner {
+  private static final Logger logger = LoggerFactory.getLogger(ColdStartRunner.class);
+  private static final List<String> COLUMNS = List.of(
+      "jvmToMain", "build", "connect", "firstPut", "jvmToFirstSuccess", "firstGet", "warmGet", "process");
+
+  private ColdStartRunner() { }
+
+  public static void main(String[] args) throws Exception {
+    final String provider = arg(args, 0, BenchmarkStorage.IN_PROCESS);
+    final String[] cdsModes = arg(args, 1, "off,default,appcds").split(",");
+    final int runs = Integer.parseInt(arg(args, 2, "5"));
+    final List<String> httpClients = new ArrayList<>();
+    if (args.length > 3) {
+      httpClients.addAll(List.of(args[3].split(",")));
+    } else {
+      S3ClientFactory.SYNC_HTTP_CLIENT_BUILDER_LIST.forEach(
+          builder -> httpClients.add(S3ClientFactory.httpClientName(builder)));
+      S3ClientFactory.ASYNC_HTTP_CLIENT_BUILDER_LIST.forEach(
+          builder -> httpClients.add(S3ClientFactory.httpClientName(builder)));
+      httpClients.add(S3ClientFactory.CRT_BUILDER);
+    }
+
+    final Path archiveDirectory = Files.createTempDirectory("cold-start-cds-");
+    try (BenchmarkFixture<S3Client> fixture = BenchmarkFixture.sync(provider, "ApacheHttpClient")) {
+      final URI endpoint = fixture.storage().inProcessEndpoint();
+      final String target;
+      if (endpoint != null) {
+        target = endpoint.toString();
+      } else if (BenchmarkStorage.AWS.equals(provider)) {
+        target = BenchmarkStorage.AWS;
+      } else {
+        throw new IllegalArgumentException("forked probes cannot reach provider: " + provider);
+      }
+      final String bucket = fixture.bucket();
+      final List<String> rows = new ArrayList<>();
+      for (String httpClient : httpClients) {
+        for (String cdsMode : cdsModes) {
+          List<String> jvmOptions = cdsOptions(cdsMode.trim(), archiveDirectory.resolve(httpClient + ".jsa"),
+              target, httpClient, bucket);
+          List<Map<String, Double>> results = new ArrayList<>();
+          for (int i = 0; i < runs; i++) {
+            results.add(runProbe(jvmOptions, target, httpClient, bucket));
+          }
+          rows.add(row(httpClient, cdsMode.trim(), results));
+        }
+      }
+      StringBuilder header = new StringBuilder(String.format("%-24s %-8s", "httpClient", "cds"));
+      COLUMNS.forEach(column -> header.append(String.format(" %18s", column)));
+      logger.info("provider={} runs={} (median ms)", provider, runs);
+      logger.info("{}", header);
+      rows.forEach(row -> logger.info("{}", row));
+    } finally {
+      try (var archives = Files.list(archiveDirectory)) {
+        for (Path archive : archives.toList()) {
+          Files.deleteIfExists(archive);
+        }
+      }
+      Files.deleteIfExists(archiveDirectory);
+    }
+  }
+
+  private static List<String> cdsOptions(final String cdsMode,
+      final Path archive,
+      final String target,
+      final String httpClient,
+      final String bucket) throws IOException, InterruptedException {
+    return switch (cdsMode) {
+      case "off" -> List.of("-Xshare:off");
+      case "default" -> List.of();
+      case "appcds" -> {
+        if (!Files.exists(archive)) {
+          runProbe(List.of("-XX:ArchiveClassesAtExit=" + archive), target, httpClient, bucket);
+        }
+        yield List.of("-XX:SharedArchiveFile=" + archive);
+      }
+      default -> throw new IllegalArgumentException("unknown CDS mode: " + cdsMode);
+    };
+  }
+
+  private static Map<String, Double> runProbe(final List<String> jvmOptions,
+      final String target,
+      final String httpClient,
+      final String bucket) throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmOptions);
+    command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+        ColdStartProbe.class.getName(), target, httpClient, bucket));
+
+    final long start = System.nanoTime();
+    Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    Map<String, Double> result = null;
+    try (BufferedReader reader = process.inputReader()) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith(ColdStartProbe.RESULT_PREFIX)) {
+          result = parse(line.substring(ColdStartProbe.RESULT_PREFIX.length()));
+          result.put("process", (System.nanoTime() - start) / 1e6);
+        }
+      }
+    }
+    int exitCode = process.waitFor();
+    if (exitCode != 0 || result == null) {
+      throw new IllegalStateException("probe for " + httpClient + " failed, exit code " + exitCode);
+    }
+    return result;
+  }
+
+  private static Map<String, Double> parse(final String pairs) {
+    Map<String, Double> result = new HashMap<>();
+    for (String pair : pairs.trim().split(" ")) {
+      int equals = pair.indexOf('=');
+      result.put(pair.substring(0, equals), Double.parseDouble(pair.substring(equals + 1)));
+    }
+    return result;
+  }
+
+  private static String row(final String httpClient, final String cdsMode, final List<Map<String, Double>> results) {
+    StringBuilder row = new StringBuilder(String.format("%-24s %-8s", httpClient, cdsMode));
+    for (String column : COLUMNS) {
+      double[] values = results.stream()
+          .filter(result -> result.containsKey(column))
+          .mapToDouble(result -> result.get(column))
+          .sorted()
+          .toArray();
+      row.append((values.length == 0)
+          ? String.format(" %18s", "-")
+          : String.format(" %18.1f", values[values.length / 2]));
+    }
+    return row.toString();
+  }
+
+  private static String arg(final String[] args, final int index, final String defaultValue) {
+    return (args.length > index) ? args[index] : defaultValue;
+  }
+}
@@ -0,0 +1,320 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.HttpClientSettings;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.server.FaultProfile;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+
+/**
+ *  Races {@code writers} virtual threads on one key with S3 conditional writes and logs, per writer count,
+ *  successful commits per second, the share of attempts rejected with 412 Precondition Failed, and commit
+ *  and request latency, to find the throughput ceiling of a single key used as a lock or a counter.
+ *
+ *  <ul>
+ *    <li>{@code CAS}: GetObject for the counter and its ETag, then PutObject {@code If-Match} that ETag with the
+ *        counter plus one; a 412 sends the writer back to the read. After the run the counter must equal the
+ *        number of commits, otherwise updates were lost.</li>
+ *    <li>{@code LOCK}: PutObject {@code If-None-Match: *} acquires the key as a lock, DeleteObject releases it.
+ *        A 412 means someone else holds it. A commit is one acquire, a GetObject that checks the lock still
+ *        names its holder, and a release; overlapping or stolen locks are counted as exclusion violations.</li>
+ *  </ul>
+ *
+ *  A commit's latency runs from its first attempt to its successful write, retries included. After a
+ *  rejection a writer sleeps a random time below {@code backoffMillis}; 0 retries at once, which measures
+ *  the raw ceiling. 409 ConditionalRequestConflict, which S3 returns when conditional writes to a key
+ *  overlap, is retried the same way and counted apart. With an in-process provider, GetObject, PutObject
+ *  and DeleteObject get a log-normal latency with a median of {@code latencyMillis}, which widens the race
+ *  window to what a remote endpoint would have.
+ *
+ *  Providers whose {@code supportsConditionalWrites()} is false are skipped.
+ *
+ *  This is not a JMH benchmark: the writer count is the variable being swept.
+ *
+ *  <pre>
+ *  java -cp target/benchmarks.jar io.github.sullis.s3.playground.benchmark.ConditionalWriteContentionRunner \
+ *      [provider] [httpClient] [modes,...] [writers,...] [durationSeconds] [latencyMillis] [backoffMillis]
+ *  </pre>
+ */
+public final class ConditionalWriteContentionRunner {
+  private static final Logger logger = LoggerFactory.getLogger(ConditionalWriteContentionRunner.class);
+
+  private ConditionalWriteContentionRunner() { }
+
+  enum Mode { CAS, LOCK }
+
+  public static void main(String[] args) throws Exception {
+    final String provider = arg(args, 0, BenchmarkStorage.IN_PROCESS);
+    final String httpClient = arg(args, 1, "ApacheHttpClient");
+    final List<Mode> modes = new ArrayList<>();
+    for (String mode : arg(args, 2, "CAS,LOCK").split(",")) {
+      modes.add(Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)));
+    }
+    final List<Integer> writerCounts = new ArrayList<>();
+    for (String count : arg(args, 3, "1,2,4,8,16,32,64").split(",")) {
+      writerCounts.add(Integer.parseInt(count.trim()));
+    }
+    final Duration duration = Duration.ofSeconds(Long.parseLong(arg(args, 4, "10")));
+    final int latencyMillis = Integer.parseInt(arg(args, 5, "10"));
+    final int backoffMillis = Integer.parseInt(arg(args, 6, "0"));
+    final int maxWriters = writerCounts.stream().mapToInt(Integer::intValue).max().orElse(1);
+
+    try (BenchmarkFixture<S3Client> fixture = BenchmarkFixture.sync(provider, objectStorageProvider ->
+        S3ClientFactory.s3Client(objectStorageProvider,
+            HttpClientSettings.withMaxConnections(maxWriters).syncBuilder(httpClient), null).client())) {
+      final BenchmarkStorage storage = fixture.storage();
+      if (!storage.objectStorageProvider().supportsConditionalWrites()) {
+        logger.warn("{} does not support conditional writes, nothing to measure", provider);
+        return;
+      }
+      storage.injectLatency(latencyMillis, "GetObject", "PutObject", "DeleteObject");
+      final List<Result> results = new ArrayList<>();
+      for (Mode mode : modes) {
+        for (int writers : writerCounts) {
+          logger.info("running mode={} writers={}", mode, writers);
+          results.add(run(fixture.client(), fixture.bucket(), mode, writers, duration, backoffMillis));
+        }
+      }
+      storage.injectFaults(FaultProfile.NONE);
+      logger.info("provider={} httpClient={} duration={} latencyMillis={} backoffMillis={} (latency in ms)",
+          provider, httpClient, duration, latencyMillis, backoffMillis);
+      logger.info("{}", Result.HEADER);
+      results.forEach(result -> logger.info("{}", result.row()));
+    }
+  }
+
+  private static Result run(final S3Client s3Client,
+      final String bucket,
+      final Mode mode,
+      final int writers,
+      final Duration duration,
+      final int backoffMillis) throws InterruptedException {
+    final String key = "contention-" + mode.name().toLowerCase(Locale.ROOT) + "-" + UUID.randomUUID();
+    if (mode == Mode.CAS) {
+      s3Client.putObject(put -> put.bucket(bucket).key(key), RequestBody.fromString("0"));
+    }
+    final AtomicInteger holders = new AtomicInteger();
+    final List<Writer> all = new ArrayList<>();
+    final List<Thread> threads = new ArrayList<>();
+    final long start = System.nanoTime();
+    final long deadline = start + duration.toNanos();
+    for (int i = 0; i < writers; i++) {
+      final Writer writer = new Writer(s3Client, bucket, key, mode, holders, deadline, backoffMillis);
+      all.add(writer);
+      threads.add(Thread.ofVirtual().name("writer-" + i).start(writer));
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    final long elapsed = System.nanoTime() - start;
+
+    final Result result = new Result(mode, writers, elapsed);
+    all.forEach(result::add);
+    if (mode == Mode.CAS) {
+      final long counter = Long.parseLong(
+          s3Client.getObjectAsBytes(get -> get.bucket(bucket).key(key)).asUtf8String());
+      result.violations = Math.max(0, result.commits - counter);
+    }
+    return result;
+  }
+
+  /**
+   *  One racing writer; only its own thread touches its counters and histograms until it is joined.
+   */
+  private static final class Writer implements Runnable {
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String key;
+    private final Mode mode;
+    private final AtomicInteger holders;
+    private final long deadline;
+    private final int backoffMillis;
+    private final String owner = UUID.randomUUID().toString();
+    final Histogram commitLatency = new Histogram(3);
+    final Histogram requestLatency = new Histogram(3);
+    long commits;
+    long attempts;
+    long preconditionFailed;
+    long conflicts;
+    long errors;
+    long violations;
+
+    Writer(final S3Client s3Client,
+        final String bucket,
+        final String key,
+        final Mode mode,
+        final AtomicInteger holders,
+        final long deadline,
+        final int backoffMillis) {
+      this.s3Client = s3Client;
+      this.bucket = bucket;
+      this.key = key;
+      this.mode = mode;
+      this.holders = holders;
+      this.deadline = deadline;
+      this.backoffMillis = backoffMillis;
+    }
+
+    @Override
+    public void run() {
+      while (System.nanoTime() < deadline) {
+        final long commitStart = System.nanoTime();
+        boolean committed = false;
+        while (!committed && System.nanoTime() < deadline) {
+          attempts++;
+          try {
+            committed = (mode == Mode.CAS) ? compareAndSet() : lockAndRelease();
+          } catch (S3Exception ex) {
+            if (ex.statusCode() == 412) {
+              preconditionFailed++;
+            } else if (ex.statusCode() == 409) {
+              conflicts++;
+            } else {
+              errors++;
+            }
+          } catch (RuntimeException ex) {
+            errors++;
+          }
+          if (!committed) {
+            backOff();
+          }
+        }
+        if (committed) {
+          commits++;
+          commitLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - commitStart));
+        }
+      }
+    }
+
+    private boolean compareAndSet() {
+      final ResponseBytes<GetObjectResponse> current = timed(() ->
+          s3Client.getObjectAsBytes(get -> get.bucket(bucket).key(key)));
+      final long next = Long.parseLong(current.asUtf8String()) + 1;
+      timed(() -> s3Client.putObject(put -> put.bucket(bucket).key(key).ifMatch(current.response().eTag()),
+          RequestBody.fromString(Long.toString(next))));
+      return true;
+    }
+
+    /**
+     *  While holding the lock, reads it back to check that it still names this writer.
+     */
+    private boolean lockAndRelease() {
+      timed(() -> s3Client.putObject(put -> put.bucket(bucket).key(key).ifNoneMatch("*"),
+          RequestBody.fromString(owner)));
+      try {
+        final boolean alone = holders.incrementAndGet() == 1;
+        final String lockOwner = timed(() -> s3Client.getObjectAsBytes(get -> get.bucket(bucket).key(key)))
+            .asUtf8String();
+        if (!alone || !owner.equals(lockOwner)) {
+          violations++;
+        }
+      } finally {
+        holders.decrementAndGet();
+        release();
+      }
+      return true;
+    }
+
+    /**
+     *  A lock left behind would stall every writer, so the release is retried until it succeeds.
+     */
+    private void release() {
+      while (true) {
+        try {
+          timed(() -> s3Client.deleteObject(delete -> delete.bucket(bucket).key(key)));
+          return;
+        } catch (RuntimeException ex) {
+          errors++;
+          backOff();
+        }
+      }
+    }
+
+    private <T> T timed(final Supplier<T> request) {
+      final long start = System.nanoTime();
+      try {
+        return request.get();
+      } finally {
+        requestLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+      }
+    }
+
+    private void backOff() {
+      if (backoffMillis > 0) {
+        try {
+          Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMillis));
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  private static final class Result {
+    static final String HEADER = String.format(Locale.ROOT, "%-5s %7s %10s %10s %8s %8s %6s %9s %9s %9s %9s %10s",
+        "mode", "writers", "commits/s", "attempts/s", "412rate", "409s", "errors",
+        "commitP50", "commitP99", "reqP50", "reqP99", "violations");
+
+    final Mode mode;
+    final int writers;
+    final long elapsedNanos;
+    final Histogram commitLatency = new Histogram(3);
+    final Histogram requestLatency = new Histogram(3);
+    long commits;
+    long attempts;
+    long preconditionFailed;
+    long conflicts;
+    long errors;
+    long violations;
+
+    Result(final Mode mode, final int writers, final long elapsedNanos) {
+      this.mode = mode;
+      this.writers = writers;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    void add(final Writer writer) {
+      commitLatency.add(writer.commitLatency);
+      requestLatency.add(writer.requestLatency);
+      commits += writer.commits;
+      attempts += writer.attempts;
+      preconditionFailed += writer.preconditionFailed;
+      conflicts += writer.conflicts;
+      errors += writer.errors;
+      violations += writer.violations;
+    }
+
+    String row() {
+      final double seconds = elapsedNanos / 1e9;
+      return String.format(Locale.ROOT, "%-5s %7d %10.1f %10.1f %8.3f %8d %6d %9.1f %9.1f %9.1f %9.1f %10d",
+          mode, writers, commits / seconds, attempts / seconds,
+          (attempts == 0) ? 0 : (double) preconditionFailed / attempts, conflicts, errors,
+          millis(commitLatency, 50), millis(commitLatency, 99),
+          millis(requestLatency, 50), millis(requestLatency, 99), violations);
+    }
+
+    private static double millis(final Histogram histogram, final double percentile) {
+      return histogram.getValueAtPercentile(percentile) / 1000d;
+    }
+  }
+
+  private static String arg(final String[] args, final int index, final String defaultValue) {
+    return (args.length > index) ? args[index] : defaultValue;
+  }
+}
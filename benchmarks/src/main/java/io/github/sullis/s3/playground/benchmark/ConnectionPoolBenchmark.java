@@ -0,0 +1,138 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.HttpClientSettings;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.testkit.PartPayload;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.Nullable;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+
+/**
+ *  Sweeps connection pool settings ({@link HttpClientSettings}) for every sync and async HTTP client.
+ *
+ *  {@code @Threads} callers share one client and each does a 4 KiB GetObject per operation,
+ *  so any pool smaller than the thread count makes callers wait for a connection.
+ *  Throughput and SampleTime give the throughput and latency curve per setting.
+ *  Requests that still fail after SDK retries (typically connection acquisition timeouts)
+ *  are reported in the {@code failures} counter instead of aborting the run.
+ *
+ *  Idle reaping and keep-alive only matter when connections sit idle. They are most visible in
+ *  the SampleTime maximum just after the pause between iterations.
+ *
+ *  The full matrix is large; narrow it with {@code -p}, e.g.
+ *  {@code -p httpClient=ApacheHttpClient -p maxConnections=8,16,32,64}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(32)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g" })
+public class ConnectionPoolBenchmark {
+  private static final int OBJECT_SIZE = 4096;
+
+  @Param({ BenchmarkStorage.IN_PROCESS })
+  public String provider;
+
+  @Param({ "ApacheHttpClient", "AwsCrtHttpClient", "NettyNioAsyncHttpClient", "AwsCrtAsyncHttpClient" })
+  public String httpClient;
+
+  @Param({ "8", "32", "128" })
+  public int maxConnections;
+
+  @Param({ "100", "10000" })
+  public long acquisitionTimeoutMillis;
+
+  @Param({ "false", "true" })
+  public boolean tcpKeepAlive;
+
+  /** 0 turns the idle connection reaper off */
+  @Param({ "0", "1000", "60000" })
+  public long connectionMaxIdleMillis;
+
+  /** Default client settings: creates, seeds and deletes the bucket, so setup never trips a tight timeout. */
+  private BenchmarkFixture<S3Client> fixture;
+  private @Nullable S3Client s3Client;
+  private @Nullable S3AsyncClient s3AsyncClient;
+  private String bucket;
+  private final String key = "pool-key-" + UUID.randomUUID();
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Failures {
+    public long failures;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    fixture = BenchmarkFixture.sync(provider, "ApacheHttpClient");
+    bucket = fixture.bucket();
+    fixture.client().putObject(request -> request.bucket(bucket).key(key),
+        PartPayload.allocate(OBJECT_SIZE).requestBody());
+
+    HttpClientSettings settings = new HttpClientSettings(maxConnections,
+        Duration.ofMillis(acquisitionTimeoutMillis), tcpKeepAlive, Duration.ofMillis(connectionMaxIdleMillis));
+    if (HttpClientSettings.isAsync(httpClient)) {
+      s3AsyncClient = S3ClientFactory.s3AsyncClient(fixture.storage().objectStorageProvider(),
+          settings.asyncBuilder(httpClient), null).client();
+    } else {
+      s3Client = S3ClientFactory.s3Client(fixture.storage().objectStorageProvider(),
+          settings.syncBuilder(httpClient), null).client();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    try {
+      if (s3Client != null) {
+        s3Client.close();
+      }
+      if (s3AsyncClient != null) {
+        s3AsyncClient.close();
+      }
+    } finally {
+      fixture.close();
+    }
+  }
+
+  @Benchmark
+  public long getObject(final Failures failures) throws Exception {
+    try {
+      if (s3AsyncClient != null) {
+        return s3AsyncClient.getObject(request -> request.bucket(bucket).key(key),
+            AsyncResponseTransformer.toBytes()).join().asByteArrayUnsafe().length;
+      }
+      try (InputStream in = s3Client.getObject(request -> request.bucket(bucket).key(key))) {
+        return in.transferTo(OutputStream.nullOutputStream());
+      }
+    } catch (SdkException | CompletionException ex) {
+      failures.failures++;
+      return -1;
+    }
+  }
+}
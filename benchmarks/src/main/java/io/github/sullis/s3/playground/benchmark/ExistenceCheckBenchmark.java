@@ -0,0 +1,170 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.HttpClientSettings;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.testkit.ExistenceChecker;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+
+/**
+ *  Checks {@code checkCount} keys for existence, half of them missing, with one HeadObject per key
+ *  ({@code HEAD}, {@code maxInFlight} at a time) or with {@link ExistenceChecker} ({@code BATCHED}).
+ *
+ *  The bucket holds {@code keyCount} keys in {@value #DIRECTORIES} directories, in listing order; the
+ *  checked keys are every {@code stride}-th of them, so one 1000-key LIST page covers {@code 1000 / stride}
+ *  of them. Once that drops below one the checker falls back to HEADs. In-process HEAD and LIST requests
+ *  both get a log-normal latency with a median of {@code latencyMillis}, so round trips dominate, as they
+ *  would against a real endpoint. The {@code keys} and {@code requests} counters are per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(1)
+public class ExistenceCheckBenchmark {
+  private static final int DIRECTORIES = 16;
+  private static final int PUTS_IN_FLIGHT = 64;
+
+  public enum Strategy { HEAD, BATCHED }
+
+  @Param({ BenchmarkStorage.IN_PROCESS })
+  public String provider;
+
+  @Param({ "100000" })
+  public int keyCount;
+
+  @Param({ "2000" })
+  public int checkCount;
+
+  /** checkCount * stride must not exceed keyCount */
+  @Param({ "1", "50" })
+  public int stride;
+
+  @Param({ "HEAD", "BATCHED" })
+  public Strategy strategy;
+
+  @Param({ "16" })
+  public int maxInFlight;
+
+  /** see {@link BenchmarkStorage#injectLatency} */
+  @Param({ "10" })
+  public int latencyMillis;
+
+  private BenchmarkFixture<S3AsyncClient> fixture;
+  private S3AsyncClient s3Client;
+  private String bucket;
+  private List<String> keys;
+  private ExistenceChecker checker;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Checked {
+    public long keys;
+    public long requests;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    if ((long) checkCount * stride > keyCount) {
+      throw new IllegalArgumentException("checkCount * stride exceeds keyCount");
+    }
+    fixture = BenchmarkFixture.async(provider, objectStorageProvider -> S3ClientFactory.s3AsyncClient(
+        objectStorageProvider,
+        HttpClientSettings.withMaxConnections(Math.max(PUTS_IN_FLIGHT, maxInFlight))
+            .asyncBuilder("NettyNioAsyncHttpClient"),
+        null).client());
+    s3Client = fixture.client();
+    bucket = fixture.bucket();
+    fixture.putEmptyObjects(keyCount, this::key, PUTS_IN_FLIGHT);
+
+    // every other checked key is missing
+    keys = new ArrayList<>(checkCount);
+    for (int i = 0; i < checkCount; i++) {
+      final String key = key(i * stride);
+      keys.add((i % 2 == 0) ? key : key + "-missing");
+    }
+    checker = new ExistenceChecker(s3Client, maxInFlight);
+    fixture.storage().injectLatency(latencyMillis, "HeadObject", "ListObjectsV2");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fixture.close();
+  }
+
+  @Benchmark
+  public BitSet check(final Checked checked) throws Exception {
+    final BitSet present;
+    final int requests;
+    if (strategy == Strategy.HEAD) {
+      present = headEach();
+      requests = keys.size();
+    } else {
+      final ExistenceChecker.Result result = checker.exists(bucket, keys).get();
+      present = result.present();
+      requests = result.listRequests() + result.headRequests();
+    }
+    if (present.cardinality() != (checkCount + 1) / 2) {
+      throw new IllegalStateException("found " + present.cardinality() + " of " + (checkCount + 1) / 2 + " keys");
+    }
+    checked.keys += keys.size();
+    checked.requests += requests;
+    return present;
+  }
+
+  private BitSet headEach() throws Exception {
+    final BitSet present = new BitSet(keys.size());
+    final AtomicInteger next = new AtomicInteger();
+    final CompletableFuture<?>[] slots = new CompletableFuture<?>[maxInFlight];
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = headRemaining(next, present);
+    }
+    CompletableFuture.allOf(slots).get();
+    return present;
+  }
+
+  private CompletableFuture<Void> headRemaining(final AtomicInteger next, final BitSet present) {
+    final int index = next.getAndIncrement();
+    if (index >= keys.size()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return s3Client.headObject(head -> head.bucket(bucket).key(keys.get(index)))
+        .handle((response, failure) -> {
+          if (failure == null) {
+            synchronized (present) {
+              present.set(index);
+            }
+          } else if (!(failure.getCause() instanceof S3Exception s3Exception && s3Exception.statusCode() == 404)) {
+            throw new IllegalStateException(failure);
+          }
+          return null;
+        })
+        .thenCompose(ignored -> headRemaining(next, present));
+  }
+
+  private String key(final int i) {
+    return String.format("d%02d/key-%07d", (int) ((long) i * DIRECTORIES / keyCount), i);
+  }
+}
@@ -0,0 +1,186 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.HttpClientSettings;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.kv.S3KeyValueStore;
+import io.github.sullis.s3.playground.kv.S3Log;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.Nullable;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+
+/**
+ *  {@link S3KeyValueStore} and {@link S3Log} under contention: each JMH thread is a separate writer with its
+ *  own store and cache, as separate processes would be.
+ *
+ *  {@code update} increments one of {@code keys} counters with a read-modify-write loop, {@code get} reads
+ *  one through the revalidating cache, and {@code append} adds a one-record segment to a shared log, which
+ *  contends on the manifest whatever {@code keys} is. Every iteration appends to a new log, so the manifest
+ *  each append rewrites, and with it the throughput, does not depend on how long the run is. In-process
+ *  GetObject and PutObject requests get a log-normal latency with a median of {@code latencyMillis}, which
+ *  widens the window between a read and its conditional write to what a remote endpoint would have.
+ *
+ *  The counters are per second: {@code ops.commits} are operations that took effect, and
+ *  {@code ops.conflicts / (ops.commits + ops.conflicts)} is the fraction of conditional writes that lost;
+ *  of the reads, {@code ops.revalidated} were answered with a 304 and {@code ops.fetched} transferred the
+ *  value (a lost write drops the cached value, so the retry's read always transfers it).
+ *  Setup fails for providers whose {@code supportsConditionalWrites()} is false.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Threads(8)
+@Fork(1)
+public class KeyValueStoreBenchmark {
+  private static final String PREFIX = "kv/";
+  private static final String LOG = "log-";
+
+  @Param({ BenchmarkStorage.IN_PROCESS })
+  public String provider;
+
+  @Param({ "1", "16", "1024" })
+  public int keys;
+
+  /** see {@link BenchmarkStorage#injectLatency} */
+  @Param({ "10" })
+  public int latencyMillis;
+
+  private BenchmarkFixture<S3AsyncClient> fixture;
+  private S3AsyncClient s3Client;
+  private String bucket;
+  private volatile String logName;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Ops {
+    public long commits;
+    public long conflicts;
+    public long revalidated;
+    public long fetched;
+
+    private S3KeyValueStore store;
+    private S3Log log;
+    private long conflictsBefore;
+    private long revalidatedBefore;
+    private long fetchedBefore;
+
+    @Setup(Level.Trial)
+    public void setup(final KeyValueStoreBenchmark benchmark) {
+      // room for the log manifest next to the segments each append caches
+      store = new S3KeyValueStore(benchmark.s3Client, benchmark.bucket, PREFIX, Math.max(benchmark.keys, 16));
+    }
+
+    /** runs after {@link KeyValueStoreBenchmark#rotateLog}, which it depends on */
+    @Setup(Level.Iteration)
+    public void reset(final KeyValueStoreBenchmark benchmark) {
+      log = new S3Log(store, benchmark.logName);
+      commits = 0;
+      conflicts = 0;
+      revalidated = 0;
+      fetched = 0;
+    }
+
+    private void begin() {
+      conflictsBefore = store.conflicts();
+      revalidatedBefore = store.revalidated();
+      fetchedBefore = store.fetched();
+    }
+
+    private void commit() {
+      commits++;
+      conflicts += store.conflicts() - conflictsBefore;
+      revalidated += store.revalidated() - revalidatedBefore;
+      fetched += store.fetched() - fetchedBefore;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    fixture = BenchmarkFixture.async(provider, objectStorageProvider -> S3ClientFactory.s3AsyncClient(
+        objectStorageProvider,
+        HttpClientSettings.withMaxConnections(32).asyncBuilder("NettyNioAsyncHttpClient"),
+        null).client());
+    if (!fixture.storage().objectStorageProvider().supportsConditionalWrites()) {
+      fixture.close();
+      throw new IllegalStateException(provider + " does not support conditional writes");
+    }
+    s3Client = fixture.client();
+    bucket = fixture.bucket();
+    final S3KeyValueStore seed = new S3KeyValueStore(s3Client, bucket, PREFIX, 0);
+    final CompletableFuture<?>[] puts = new CompletableFuture<?>[keys];
+    for (int i = 0; i < keys; i++) {
+      puts[i] = seed.putIfAbsent(key(i), increment(null));
+    }
+    CompletableFuture.allOf(puts).get();
+    fixture.storage().injectLatency(latencyMillis, "GetObject", "PutObject");
+  }
+
+  @Setup(Level.Iteration)
+  public void rotateLog() {
+    logName = LOG + UUID.randomUUID();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fixture.close();
+  }
+
+  @Benchmark
+  public S3KeyValueStore.Versioned update(final Ops ops) throws Exception {
+    ops.begin();
+    final S3KeyValueStore.Versioned written = ops.store.update(randomKey(), KeyValueStoreBenchmark::increment).get();
+    ops.commit();
+    return written;
+  }
+
+  @Benchmark
+  public S3KeyValueStore.Versioned get(final Ops ops) throws Exception {
+    ops.begin();
+    final S3KeyValueStore.Versioned value = ops.store.get(randomKey()).get().orElseThrow();
+    ops.commit();
+    return value;
+  }
+
+  @Benchmark
+  public int append(final Ops ops) throws Exception {
+    ops.begin();
+    final int segment = ops.log.append(List.of(increment(null))).get();
+    ops.commit();
+    return segment;
+  }
+
+  private String randomKey() {
+    return key(ThreadLocalRandom.current().nextInt(keys));
+  }
+
+  private static String key(final int i) {
+    return String.format("counter-%04d", i);
+  }
+
+  private static byte[] increment(final byte @Nullable [] value) {
+    final long current = (value == null) ? 0 : Long.parseLong(new String(value, StandardCharsets.UTF_8));
+    return String.valueOf(current + 1).getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,320 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.HttpClientSettings;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.testkit.ParallelMultipartUploader;
+import io.github.sullis.s3.playground.testkit.ParallelRangedDownloader;
+import io.github.sullis.s3.playground.testkit.PartPayload;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+
+/**
+ *  Uploads and downloads one large object per configuration, sweeping object size, part size, parallelism
+ *  and, for {@code crtBuilder}, the target throughput, then logs a table of MiB/s and peak memory, to pick
+ *  part sizes for multi-GiB objects.
+ *
+ *  Async HTTP clients upload with {@link ParallelMultipartUploader} ({@code parallelism} parts in flight,
+ *  as many connections) and download with {@link ParallelRangedDownloader} ({@code partSize} ranges).
+ *  {@code crtBuilder} gets one {@code putObject} and one {@code getObject} and splits them itself, with
+ *  {@code minimumPartSizeInBytes = partSize}, {@code maxConcurrency = parallelism} and the target throughput.
+ *
+ *  Peak memory is sampled every {@value #SAMPLE_INTERVAL_MILLIS} ms during each transfer: used heap, used
+ *  direct buffers and, on Linux, resident set size. RSS is the only figure that includes CRT's native
+ *  buffers. Direct memory includes the one-part payload every upload is sliced from. With an in-process
+ *  provider the server shares the JVM, so its copies count too: {@value BenchmarkStorage#IN_PROCESS_MAPPED}
+ *  keeps object content off the heap, but the mapped pages it touches still add to RSS.
+ *
+ *  Configurations over 10,000 parts, or whose {@code partSize * parallelism} exceeds the in-flight budget
+ *  (default: half the max heap), are skipped.
+ *
+ *  This is not a JMH benchmark: one transfer of a 50 GiB object is the measurement.
+ *
+ *  <pre>
+ *  java -cp target/benchmarks.jar io.github.sullis.s3.playground.benchmark.LargeObjectScalingRunner \
+ *      [provider] [objectSizes,...] [partSizes,...] [parallelisms,...] [httpClients,...] [targetGbps,...] \
+ *      [inFlightBudget]
+ *  </pre>
+ *
+ *  Sizes take a {@code KiB}, {@code MiB} or {@code GiB} suffix.
+ */
+public final class LargeObjectScalingRunner {
+  private static final Logger logger = LoggerFactory.getLogger(LargeObjectScalingRunner.class);
+  private static final int MAX_PARTS = 10_000;
+  private static final long SAMPLE_INTERVAL_MILLIS = 10;
+  private static final double MIB = 1024 * 1024;
+
+  private LargeObjectScalingRunner() { }
+
+  public static void main(String[] args) throws Exception {
+    final String provider = arg(args, 0, BenchmarkStorage.IN_PROCESS_MAPPED);
+    final List<Long> objectSizes = sizes(arg(args, 1, "100MiB,1GiB,10GiB,50GiB"));
+    final List<Long> partSizes = sizes(arg(args, 2, "5MiB,16MiB,64MiB,128MiB,512MiB"));
+    final List<Integer> parallelisms = new ArrayList<>();
+    for (String parallelism : arg(args, 3, "4,16,64").split(",")) {
+      parallelisms.add(Integer.parseInt(parallelism.trim()));
+    }
+    final String[] httpClients = arg(args, 4, "NettyNioAsyncHttpClient," + S3ClientFactory.CRT_BUILDER).split(",");
+    final List<Double> targetGbps = new ArrayList<>();
+    for (String target : arg(args, 5, "5,10,25").split(",")) {
+      targetGbps.add(Double.parseDouble(target.trim()));
+    }
+    final long inFlightBudget = (args.length > 6) ? size(args[6]) : Runtime.getRuntime().maxMemory() / 2;
+
+    try (BenchmarkFixture<S3AsyncClient> fixture = BenchmarkFixture.async(provider, "NettyNioAsyncHttpClient")) {
+      final List<String> rows = new ArrayList<>();
+      for (long partSize : partSizes) {
+        final PartPayload payload = PartPayload.allocate(Math.toIntExact(partSize));
+        for (long objectSize : objectSizes) {
+          for (String httpClient : httpClients) {
+            final boolean crt = S3ClientFactory.CRT_BUILDER.equals(httpClient.trim());
+            for (int parallelism : parallelisms) {
+              for (double target : crt ? targetGbps : List.of(Double.NaN)) {
+                Configuration configuration = new Configuration(httpClient.trim(), objectSize, partSize,
+                    parallelism, target);
+                String skipped = configuration.skipReason(inFlightBudget);
+                if (skipped != null) {
+                  logger.info("skipping {}: {}", configuration, skipped);
+                  continue;
+                }
+                logger.info("running {}", configuration);
+                rows.add(configuration.row(
+                    run(fixture.storage(), fixture.client(), fixture.bucket(), payload, configuration)));
+              }
+            }
+          }
+        }
+      }
+      logger.info("provider={} inFlightBudget={} MiB (peak memory in MiB)", provider, inFlightBudget / (1024 * 1024));
+      logger.info("{}", Configuration.HEADER);
+      rows.forEach(row -> logger.info("{}", row));
+    }
+  }
+
+  private static Result run(final BenchmarkStorage storage,
+      final S3AsyncClient setupClient,
+      final String bucket,
+      final PartPayload payload,
+      final Configuration configuration) throws Exception {
+    final String key = "scaling-" + UUID.randomUUID();
+    try (S3AsyncClient s3Client = configuration.crt()
+        ? storage.objectStorageProvider().configure(S3AsyncClient.crtBuilder()
+            .minimumPartSizeInBytes(configuration.partSize())
+            .maxConcurrency(configuration.parallelism())
+            .targetThroughputInGbps(configuration.targetGbps())).build()
+        : S3ClientFactory.s3AsyncClient(storage.objectStorageProvider(),
+            HttpClientSettings.withMaxConnections(configuration.parallelism())
+                .asyncBuilder(configuration.httpClient()), null).client()) {
+      final GetObjectRequest getObjectRequest = GetObjectRequest.builder().bucket(bucket).key(key).build();
+      final Measurement upload = measure(() -> {
+        if (configuration.crt()) {
+          s3Client.putObject(request -> request.bucket(bucket).key(key),
+              payload.repeatedAsyncRequestBody(configuration.objectSize())).get();
+        } else {
+          final long objectSize = configuration.objectSize();
+          final long partSize = configuration.partSize();
+          new ParallelMultipartUploader(s3Client, configuration.parallelism()).upload(
+              CreateMultipartUploadRequest.builder().bucket(bucket).key(key).build(),
+              configuration.partCount(),
+              part -> payload.asyncRequestBody((int) Math.min(partSize, objectSize - (part - 1) * partSize))).get();
+        }
+        return configuration.objectSize();
+      });
+      final Measurement download = measure(() -> {
+        try (InputStream in = configuration.crt()
+            ? s3Client.getObject(getObjectRequest, AsyncResponseTransformer.toBlockingInputStream()).get()
+            : new ParallelRangedDownloader(s3Client, configuration.partSize(), configuration.parallelism())
+                .openInputStream(getObjectRequest)) {
+          return in.transferTo(OutputStream.nullOutputStream());
+        }
+      });
+      if (download.bytes() != configuration.objectSize()) {
+        throw new IllegalStateException("downloaded " + download.bytes() + " of " + configuration.objectSize()
+            + " bytes: " + configuration);
+      }
+      return new Result(upload, download);
+    } finally {
+      setupClient.deleteObject(request -> request.bucket(bucket).key(key)).get();
+    }
+  }
+
+  private static Measurement measure(final Transfer transfer) throws Exception {
+    System.gc();
+    try (PeakMemorySampler sampler = new PeakMemorySampler()) {
+      final long start = System.nanoTime();
+      final long bytes = transfer.run();
+      final long elapsed = System.nanoTime() - start;
+      return new Measurement(bytes, bytes / MIB / (elapsed / 1e9), sampler.peakHeap(), sampler.peakDirect(),
+          sampler.peakResident());
+    }
+  }
+
+  private static List<Long> sizes(final String sizes) {
+    List<Long> result = new ArrayList<>();
+    for (String size : sizes.split(",")) {
+      result.add(size(size));
+    }
+    return result;
+  }
+
+  /**
+   *  "64MiB" becomes 67108864; plain numbers are bytes.
+   */
+  static long size(final String size) {
+    final String value = size.trim();
+    final String[] units = { "KiB", "MiB", "GiB" };
+    for (int i = 0; i < units.length; i++) {
+      if (value.endsWith(units[i])) {
+        return Long.parseLong(value.substring(0, value.length() - units[i].length()).trim()) << (10 * (i + 1));
+      }
+    }
+    return Long.parseLong(value);
+  }
+
+  private static String arg(final String[] args, final int index, final String defaultValue) {
+    return (args.length > index) ? args[index] : defaultValue;
+  }
+
+  @FunctionalInterface
+  private interface Transfer {
+    /**
+     *  @return bytes transferred
+     */
+    long run() throws Exception;
+  }
+
+  private record Configuration(String httpClient, long objectSize, long partSize, int parallelism, double targetGbps) {
+    static final String HEADER = String.format(Locale.ROOT, "%-24s %10s %9s %5s %6s %10s %9s %9s %9s %10s %9s %9s %9s",
+        "httpClient", "objectMiB", "partMiB", "par", "gbps",
+        "upMiB/s", "upHeap", "upDirect", "upRss", "downMiB/s", "downHeap", "downDir", "downRss");
+
+    boolean crt() {
+      return S3ClientFactory.CRT_BUILDER.equals(httpClient);
+    }
+
+    int partCount() {
+      return (int) Math.min(Integer.MAX_VALUE, (objectSize + partSize - 1) / partSize);
+    }
+
+    /**
+     *  @return null when the configuration should run
+     */
+    @Nullable String skipReason(final long inFlightBudget) {
+      if (partSize > objectSize) {
+        return "part size larger than the object";
+      }
+      if ((objectSize + partSize - 1) / partSize > MAX_PARTS) {
+        return "more than " + MAX_PARTS + " parts";
+      }
+      if (partSize * parallelism > inFlightBudget) {
+        return "partSize * parallelism over the in-flight budget of " + inFlightBudget + " bytes";
+      }
+      return null;
+    }
+
+    String row(final Result result) {
+      return String.format(Locale.ROOT, "%-24s %10d %9d %5d %6s %10.1f %9d %9d %9s %10.1f %9d %9d %9s",
+          httpClient, objectSize >> 20, partSize >> 20, parallelism,
+          Double.isNaN(targetGbps) ? "-" : String.valueOf(targetGbps),
+          result.upload().mebibytesPerSecond(), result.upload().peakHeap() >> 20, result.upload().peakDirect() >> 20,
+          resident(result.upload().peakResident()),
+          result.download().mebibytesPerSecond(), result.download().peakHeap() >> 20,
+          result.download().peakDirect() >> 20, resident(result.download().peakResident()));
+    }
+
+    private static String resident(final long bytes) {
+      return (bytes < 0) ? "-" : String.valueOf(bytes >> 20);
+    }
+  }
+
+  private record Measurement(long bytes, double mebibytesPerSecond, long peakHeap, long peakDirect,
+                             long peakResident) { }
+
+  private record Result(Measurement upload, Measurement download) { }
+
+  /**
+   *  Polls memory use on a daemon thread until closed and keeps the maxima.
+   */
+  private static final class PeakMemorySampler implements AutoCloseable {
+    private static final Path STATM = Path.of("/proc/self/statm");
+    /** statm counts pages; 4 KiB on every platform this runs on in practice */
+    private static final long PAGE_SIZE = 4096;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+        .filter(pool -> "direct".equals(pool.getName()))
+        .findFirst()
+        .orElseThrow();
+    private final boolean residentAvailable = Files.isReadable(STATM);
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile long peakHeap;
+    private volatile long peakDirect;
+    private volatile long peakResident = -1;
+
+    PeakMemorySampler() {
+      sample();
+      this.thread = Thread.ofPlatform()
+          .name("peak-memory-sampler")
+          .daemon(true)
+          .start(() -> {
+            while (!closed) {
+              sample();
+              LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(SAMPLE_INTERVAL_MILLIS));
+            }
+          });
+    }
+
+    private void sample() {
+      peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+      peakDirect = Math.max(peakDirect, direct.getMemoryUsed());
+      if (residentAvailable) {
+        try {
+          String[] fields = Files.readString(STATM).trim().split(" ");
+          peakResident = Math.max(peakResident, Long.parseLong(fields[1]) * PAGE_SIZE);
+        } catch (IOException | RuntimeException ex) {
+          // best effort
+        }
+      }
+    }
+
+    long peakHeap() {
+      return peakHeap;
+    }
+
+    long peakDirect() {
+      return peakDirect;
+    }
+
+    long peakResident() {
+      return peakResident;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+      closed = true;
+      LockSupport.unpark(thread);
+      thread.join();
+      sample();
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.HttpClientSettings;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.testkit.ParallelLister;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+
+/**
+ *  Lists every key in a bucket of {@code keyCount} keys spread over {@value #DIRECTORIES} directories:
+ *  with the SDK's ListObjectsV2 paginator ({@code shards=0}), with {@link ParallelLister} prefetching one
+ *  chain of pages ({@code shards=1}), and with {@link ParallelLister} sharded at the directory prefixes,
+ *  which it discovers on every operation.
+ *
+ *  In-process ListObjectsV2 calls get a log-normal latency with a median of {@code listLatencyMillis}, as a
+ *  stand-in for the tens of milliseconds a real LIST page takes; without it, pages are almost free and
+ *  serial pagination is hard to beat. One operation lists the whole bucket; the {@code keys} counter reports
+ *  keys/s.
+ *
+ *  Setup writes the keys with concurrent PUTs, which takes minutes for the default million keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class ListingBenchmark {
+  private static final int DIRECTORIES = 1024;
+  private static final int PUTS_IN_FLIGHT = 256;
+
+  @Param({ BenchmarkStorage.IN_PROCESS })
+  public String provider;
+
+  @Param({ "1048576" })
+  public int keyCount;
+
+  /** 0 is the SDK paginator */
+  @Param({ "0", "1", "16", "64" })
+  public int shards;
+
+  @Param({ "2" })
+  public int prefetchPages;
+
+  /** see {@link BenchmarkStorage#injectLatency} */
+  @Param({ "20" })
+  public int listLatencyMillis;
+
+  private BenchmarkFixture<S3AsyncClient> fixture;
+  private S3AsyncClient s3Client;
+  private ParallelLister lister;
+  private ListObjectsV2Request request;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Listed {
+    public long keys;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    fixture = BenchmarkFixture.async(provider, objectStorageProvider -> S3ClientFactory.s3AsyncClient(
+        objectStorageProvider,
+        HttpClientSettings.withMaxConnections(Math.max(PUTS_IN_FLIGHT, shards)).asyncBuilder("NettyNioAsyncHttpClient"),
+        null).client());
+    s3Client = fixture.client();
+    fixture.putEmptyObjects(keyCount, i -> String.format("d%04d/key-%07d", i % DIRECTORIES, i), PUTS_IN_FLIGHT);
+
+    request = ListObjectsV2Request.builder().bucket(fixture.bucket()).build();
+    lister = new ParallelLister(s3Client, Math.max(1, shards), prefetchPages);
+    fixture.storage().injectLatency(listLatencyMillis, "ListObjectsV2");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fixture.close();
+  }
+
+  @Benchmark
+  public long list(final Listed listed) throws Exception {
+    final long count;
+    if (shards == 0) {
+      final LongAdder keys = new LongAdder();
+      s3Client.listObjectsV2Paginator(request).contents().subscribe(object -> keys.increment()).get();
+      count = keys.sum();
+    } else {
+      final List<String> boundaries = (shards > 1) ? lister.boundaries(request, "/", shards) : List.of();
+      try (Stream<S3Object> listing = lister.list(request, boundaries)) {
+        count = listing.count();
+      }
+    }
+    if (count != keyCount) {
+      throw new IllegalStateException("listed " + count + " of " + keyCount + " keys");
+    }
+    listed.keys += count;
+    return count;
+  }
+}
@@ -0,0 +1,90 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.testkit.ParallelMultipartUploader;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+
+
+/**
+ *  Sequential ({@code maxInFlight=1}) versus parallel part upload with {@link ParallelMultipartUploader}.
+ *
+ *  Each operation is one complete multipart upload of {@code partCount} 5 MiB parts.
+ *  The {@code mebibytes} counter reports upload throughput in MiB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class MultipartUploadBenchmark {
+  private static final int PART_SIZE = 5 * 1024 * 1024;
+
+  @Param({ BenchmarkStorage.IN_PROCESS })
+  public String provider;
+
+  @Param({ "NettyNioAsyncHttpClient", "AwsCrtAsyncHttpClient", S3ClientFactory.CRT_BUILDER })
+  public String httpClient;
+
+  @Param({ "100" })
+  public int partCount;
+
+  @Param({ "1", "4", "16", "64" })
+  public int maxInFlight;
+
+  private BenchmarkFixture<S3AsyncClient> fixture;
+  private ParallelMultipartUploader uploader;
+  private CreateMultipartUploadRequest createMultipartUploadRequest;
+  private byte[] partContent;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Transferred {
+    public long mebibytes;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    fixture = BenchmarkFixture.async(provider, httpClient);
+    createMultipartUploadRequest = CreateMultipartUploadRequest.builder()
+        .bucket(fixture.bucket())
+        .key("multipart-key-" + UUID.randomUUID())
+        .build();
+    uploader = new ParallelMultipartUploader(fixture.client(), maxInFlight);
+    partContent = new byte[PART_SIZE];
+    new Random(PART_SIZE).nextBytes(partContent);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fixture.close();
+  }
+
+  @Benchmark
+  public CompleteMultipartUploadResponse upload(final Transferred transferred) throws Exception {
+    CompleteMultipartUploadResponse response = uploader.upload(createMultipartUploadRequest, partCount,
+        part -> AsyncRequestBody.fromBytesUnsafe(partContent)).get();
+    transferred.mebibytes += (long) partCount * PART_SIZE / (1024 * 1024);
+    return response;
+  }
+}
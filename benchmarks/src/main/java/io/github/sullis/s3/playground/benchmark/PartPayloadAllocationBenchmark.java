@@ -0,0 +1,110 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.testkit.PartPayload;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.sync.RequestBody;
+
+
+/**
+ *  Heap cost of building and draining one part's request body, without any network I/O.
+ *
+ *  The {@code fromString} benchmarks are what the test kits used to do for every part.
+ *  The {@code partPayload} benchmarks use {@link PartPayload}.
+ *  Compare the {@code gc.alloc.rate.norm} column (bytes allocated per part).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx1g" })
+public class PartPayloadAllocationBenchmark {
+
+  /** 5 MiB, the S3 minimum part size */
+  @Param({ "5242880" })
+  public int partSize;
+
+  private String partText;
+  private PartPayload directPayload;
+
+  @Setup
+  public void setup() {
+    partText = "a".repeat(partSize);
+    directPayload = PartPayload.allocate(partSize);
+  }
+
+  @Benchmark
+  public long asyncFromString() throws Exception {
+    return drain(AsyncRequestBody.fromString(partText));
+  }
+
+  @Benchmark
+  public long asyncPartPayload() throws Exception {
+    return drain(directPayload.asyncRequestBody());
+  }
+
+  @Benchmark
+  public long syncFromString() throws Exception {
+    return drain(RequestBody.fromString(partText));
+  }
+
+  @Benchmark
+  public long syncPartPayload() throws Exception {
+    return drain(directPayload.requestBody());
+  }
+
+  private static long drain(final RequestBody requestBody) throws Exception {
+    try (InputStream in = requestBody.contentStreamProvider().newStream()) {
+      return in.transferTo(OutputStream.nullOutputStream());
+    }
+  }
+
+  /**
+   *  Subscribes the way an HTTP client would and counts the bytes published.
+   */
+  private static long drain(final AsyncRequestBody requestBody) throws Exception {
+    CompletableFuture<Long> done = new CompletableFuture<>();
+    requestBody.subscribe(new Subscriber<ByteBuffer>() {
+      private long bytes;
+
+      @Override
+      public void onSubscribe(final Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(final ByteBuffer byteBuffer) {
+        bytes += byteBuffer.remaining();
+      }
+
+      @Override
+      public void onError(final Throwable throwable) {
+        done.completeExceptionally(throwable);
+      }
+
+      @Override
+      public void onComplete() {
+        done.complete(bytes);
+      }
+    });
+    return done.get();
+  }
+}
@@ -0,0 +1,127 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.testkit.ParallelMultipartUploader;
+import io.github.sullis.s3.playground.testkit.ParallelRangedDownloader;
+import io.github.sullis.s3.playground.testkit.PartPayload;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.Nullable;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.core.FileTransformerConfiguration;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+
+/**
+ *  {@link ParallelRangedDownloader} versus a single GetObject, including the {@code crtBuilder} client,
+ *  which already splits large downloads into parallel ranged GETs internally.
+ *
+ *  {@code maxInFlight=0} means a plain {@code getObject} (to a file, or as one stream), so the
+ *  {@code crtBuilder} rows with {@code maxInFlight=0} are the built-in parallelism baseline.
+ *  The {@code mebibytes} counter reports download throughput in MiB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class RangedDownloadBenchmark {
+  private static final int PART_SIZE = 8 * 1024 * 1024;
+
+  @Param({ BenchmarkStorage.IN_PROCESS })
+  public String provider;
+
+  @Param({ "NettyNioAsyncHttpClient", "AwsCrtAsyncHttpClient", S3ClientFactory.CRT_BUILDER })
+  public String httpClient;
+
+  /** 256 MiB */
+  @Param({ "268435456" })
+  public long objectSize;
+
+  @Param({ "8388608" })
+  public long rangeSize;
+
+  @Param({ "0", "4", "16" })
+  public int maxInFlight;
+
+  private BenchmarkFixture<S3AsyncClient> fixture;
+  private S3AsyncClient s3Client;
+  private GetObjectRequest getObjectRequest;
+  private @Nullable ParallelRangedDownloader downloader;
+  private Path destination;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Transferred {
+    public long mebibytes;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    fixture = BenchmarkFixture.async(provider, httpClient);
+    s3Client = fixture.client();
+    final String bucket = fixture.bucket();
+    final String key = "download-key-" + UUID.randomUUID();
+    final int partCount = (int) ((objectSize + PART_SIZE - 1) / PART_SIZE);
+    final PartPayload payload = PartPayload.allocate(PART_SIZE);
+    new ParallelMultipartUploader(s3Client, 4).upload(
+        CreateMultipartUploadRequest.builder().bucket(bucket).key(key).build(),
+        partCount,
+        part -> payload.asyncRequestBody((int) Math.min(PART_SIZE, objectSize - (long) (part - 1) * PART_SIZE))).get();
+    getObjectRequest = GetObjectRequest.builder().bucket(bucket).key(key).build();
+    downloader = (maxInFlight > 0) ? new ParallelRangedDownloader(s3Client, rangeSize, maxInFlight) : null;
+    destination = Files.createTempFile("ranged-download-", ".bin");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    try {
+      Files.deleteIfExists(destination);
+    } finally {
+      fixture.close();
+    }
+  }
+
+  @Benchmark
+  public GetObjectResponse downloadToFile(final Transferred transferred) throws Exception {
+    GetObjectResponse response = (downloader != null)
+        ? downloader.downloadToFile(getObjectRequest, destination).get()
+        : s3Client.getObject(getObjectRequest, AsyncResponseTransformer.toFile(destination,
+            FileTransformerConfiguration.defaultCreateOrReplaceExisting())).get();
+    transferred.mebibytes += objectSize / (1024 * 1024);
+    return response;
+  }
+
+  @Benchmark
+  public long stream(final Transferred transferred) throws Exception {
+    try (InputStream in = (downloader != null)
+        ? downloader.openInputStream(getObjectRequest)
+        : s3Client.getObject(getObjectRequest, AsyncResponseTransformer.toBlockingInputStream()).get()) {
+      final long bytes = in.transferTo(OutputStream.nullOutputStream());
+      transferred.mebibytes += bytes / (1024 * 1024);
+      return bytes;
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.testkit.PartPayload;
+import io.github.sullis.s3.playground.testkit.ResumableTransfers;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+import software.amazon.awssdk.transfer.s3.model.DownloadFileRequest;
+import software.amazon.awssdk.transfer.s3.model.UploadFileRequest;
+
+
+/**
+ *  Transfers interrupted part way by {@link ResumableTransfers}: resumed from a checkpoint file by a new
+ *  client and transfer manager ({@code RESUME}), against starting over from zero ({@code RESTART}).
+ *
+ *  SampleTime gives the wall time per transfer, interruption included. The {@code mebibytes} and
+ *  {@code retransferredMebibytes} counters, divided by the operation count, are the MiB moved per transfer
+ *  and the MiB moved more than once. They are counted by the in-process server, because the SDK's progress
+ *  reports parts a resumed transfer skips as transferred; so only the in-process providers work here.
+ *  Non-CRT clients are built with {@code multipartEnabled(true)}, so both directions can resume at part
+ *  granularity; the download object is uploaded in 8 MiB parts.
+ *
+ *  Try {@code -p checkpointIntervalBytes=67108864} to see what periodic checkpoints (pause, persist,
+ *  resume) cost on a transfer that is never interrupted before its last one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class ResumableTransferBenchmark {
+  private static final int PART_SIZE = 8 * 1024 * 1024;
+
+  @Param({ BenchmarkStorage.IN_PROCESS })
+  public String provider;
+
+  @Param({ "NettyNioAsyncHttpClient", S3ClientFactory.CRT_BUILDER })
+  public String httpClient;
+
+  @Param({ "RESUME", "RESTART" })
+  public ResumableTransfers.Recovery recovery;
+
+  /** 256 MiB */
+  @Param({ "268435456" })
+  public long objectSize;
+
+  /** fraction of the object transferred before the interruption */
+  @Param({ "0.5" })
+  public double interruptAt;
+
+  /** 0 checkpoints only at the interruption; ignored for RESTART */
+  @Param({ "0" })
+  public long checkpointIntervalBytes;
+
+  private BenchmarkFixture<S3AsyncClient> fixture;
+  private final List<S3AsyncClient> transferClients = new ArrayList<>();
+  private ResumableTransfers transfers;
+  private Path source;
+  private Path destination;
+  private DownloadFileRequest downloadFileRequest;
+  private UploadFileRequest uploadFileRequest;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Transferred {
+    public double mebibytes;
+    public double retransferredMebibytes;
+
+    void add(final long bytes, final long objectSize) {
+      mebibytes += bytes / (1024.0 * 1024);
+      retransferredMebibytes += (bytes - objectSize) / (1024.0 * 1024);
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    fixture = BenchmarkFixture.async(provider, "NettyNioAsyncHttpClient");
+    final String bucket = fixture.bucket();
+
+    source = Files.createTempFile("resumable-source-", ".bin");
+    destination = Files.createTempFile("resumable-destination-", ".bin");
+    final PartPayload payload = PartPayload.allocate(PART_SIZE);
+    try (FileChannel channel = FileChannel.open(source, StandardOpenOption.WRITE)) {
+      for (long written = 0; written < objectSize; ) {
+        ByteBuffer chunk = payload.slice((int) Math.min(PART_SIZE, objectSize - written));
+        while (chunk.hasRemaining()) {
+          written += channel.write(chunk);
+        }
+      }
+    }
+
+    final String downloadKey = "resumable-download-" + UUID.randomUUID();
+    uploadFileRequest = UploadFileRequest.builder()
+        .source(source)
+        .putObjectRequest(request -> request.bucket(bucket).key("resumable-upload-" + UUID.randomUUID()))
+        .build();
+    downloadFileRequest = DownloadFileRequest.builder()
+        .destination(destination)
+        .getObjectRequest(request -> request.bucket(bucket).key(downloadKey))
+        .build();
+    // in PART_SIZE parts, so multipart downloads can resume part by part
+    try (S3TransferManager transferManager = S3TransferManager.builder().s3Client(newTransferClient()).build()) {
+      transferManager.uploadFile(request -> request
+          .source(source)
+          .putObjectRequest(put -> put.bucket(bucket).key(downloadKey))).completionFuture().get();
+    } finally {
+      closeTransferClients();
+    }
+
+    transfers = new ResumableTransfers(this::newTransferClient,
+        destination.resolveSibling(destination.getFileName() + ".checkpoint"), checkpointIntervalBytes);
+  }
+
+  @TearDown(Level.Invocation)
+  public void closeTransferClients() {
+    transferClients.forEach(S3AsyncClient::close);
+    transferClients.clear();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    try {
+      Files.deleteIfExists(source);
+      Files.deleteIfExists(destination);
+    } finally {
+      fixture.close();
+    }
+  }
+
+  @Benchmark
+  public ResumableTransfers.Result download(final Transferred transferred) throws Exception {
+    final long sent = fixture.storage().bytesSent();
+    ResumableTransfers.Result result = transfers.download(downloadFileRequest, interruptAfterBytes(), recovery);
+    transferred.add(fixture.storage().bytesSent() - sent, objectSize);
+    return result;
+  }
+
+  @Benchmark
+  public ResumableTransfers.Result upload(final Transferred transferred) throws Exception {
+    final long received = fixture.storage().bytesReceived();
+    ResumableTransfers.Result result = transfers.upload(uploadFileRequest, interruptAfterBytes(), recovery);
+    transferred.add(fixture.storage().bytesReceived() - received, objectSize);
+    return result;
+  }
+
+  private long interruptAfterBytes() {
+    return (long) (objectSize * interruptAt);
+  }
+
+  private S3AsyncClient newTransferClient() {
+    S3AsyncClient client = S3ClientFactory.CRT_BUILDER.equals(httpClient)
+        ? fixture.storage().objectStorageProvider().configure(S3AsyncClient.crtBuilder()
+            .minimumPartSizeInBytes((long) PART_SIZE)).build()
+        : S3ClientFactory.s3MultipartAsyncClient(fixture.storage().objectStorageProvider(), httpClient, PART_SIZE);
+    transferClients.add(client);
+    return client;
+  }
+}
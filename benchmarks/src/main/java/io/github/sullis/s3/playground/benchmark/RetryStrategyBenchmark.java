@@ -0,0 +1,138 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.HttpClientSettings;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.server.FaultProfile;
+import io.github.sullis.s3.playground.server.LatencyDistribution;
+import io.github.sullis.s3.playground.testkit.PartPayload;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.services.s3.S3Client;
+
+
+/**
+ *  The same GetObject workload under the legacy, standard and adaptive retry strategies while the
+ *  in-process server throttles a {@code slowDownRate} fraction of requests with 503 SlowDown.
+ *
+ *  The {@code calls} counters are rates, so they can be divided directly:
+ *  {@code calls.successes} is goodput (successful calls per ms), {@code calls.attempts / calls.successes}
+ *  is HTTP attempts per successful call (counted from the {@code ApiCallAttempt} metric collections),
+ *  and {@code calls.failures} are calls that failed after the strategy gave up.
+ *  The SampleTime p99 covers successful and failed calls alike.
+ *
+ *  Against a provider that throttles on its own (e.g. {@code aws} at peak), run with {@code -p slowDownRate=0}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Threads(16)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g" })
+public class RetryStrategyBenchmark {
+  private static final int OBJECT_SIZE = 4096;
+  private static final LatencyDistribution LATENCY =
+      LatencyDistribution.logNormal(Duration.ofMillis(2), Duration.ofMillis(20));
+
+  @Param({ BenchmarkStorage.IN_PROCESS })
+  public String provider;
+
+  @Param({ "ApacheHttpClient" })
+  public String httpClient;
+
+  @Param({ "LEGACY", "STANDARD", "ADAPTIVE_V2" })
+  public String retryMode;
+
+  @Param({ "0.05", "0.2", "0.5" })
+  public double slowDownRate;
+
+  private BenchmarkFixture<S3Client> fixture;
+  private S3Client s3Client;
+  private String bucket;
+  private final String key = "retry-key-" + UUID.randomUUID();
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Calls {
+    public long successes;
+    public long attempts;
+    public long failures;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      successes = 0;
+      attempts = 0;
+      failures = 0;
+    }
+
+    /** request-level publisher: the SDK calls it on the calling thread once the call is over */
+    private final MetricPublisher attemptCounter = new MetricPublisher() {
+      @Override
+      public void publish(final MetricCollection metricCollection) {
+        for (MetricCollection child : metricCollection.children()) {
+          if ("ApiCallAttempt".equals(child.name())) {
+            attempts++;
+          }
+        }
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    // the pool is larger than @Threads, so connection waits do not mix into the retry numbers
+    fixture = BenchmarkFixture.sync(provider, objectStorageProvider -> S3ClientFactory.s3Client(
+        objectStorageProvider,
+        HttpClientSettings.withMaxConnections(32).syncBuilder(httpClient),
+        null,
+        RetryMode.valueOf(retryMode)).client());
+    s3Client = fixture.client();
+    bucket = fixture.bucket();
+    s3Client.putObject(request -> request.bucket(bucket).key(key), PartPayload.allocate(OBJECT_SIZE).requestBody());
+    fixture.storage().injectFaults(FaultProfile.NONE.withDefaultLatency(LATENCY).withSlowDownRate(slowDownRate));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    fixture.close();
+  }
+
+  @Benchmark
+  public long getObject(final Calls calls) throws Exception {
+    try (InputStream in = s3Client.getObject(request -> request.bucket(bucket).key(key)
+        .overrideConfiguration(override -> override.addMetricPublisher(calls.attemptCounter)))) {
+      long bytes = in.transferTo(OutputStream.nullOutputStream());
+      calls.successes++;
+      return bytes;
+    } catch (SdkException ex) {
+      calls.failures++;
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.ObjectStorageProvider;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.testkit.S3AsyncTestKit;
+import io.github.sullis.s3.playground.testkit.S3TestKit;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+
+public class S3AsyncClientBenchmark extends AbstractS3Benchmark {
+
+  @Param({ "NettyNioAsyncHttpClient", "AwsCrtAsyncHttpClient", S3ClientFactory.CRT_BUILDER })
+  public String httpClient;
+
+  private S3AsyncClient s3Client;
+
+  @Override
+  protected S3TestKit openClient(final ObjectStorageProvider objectStorageProvider) {
+    s3Client = S3ClientFactory.s3AsyncClient(objectStorageProvider, httpClient, null).client();
+    return new S3AsyncTestKit(s3Client, -1, false);
+  }
+
+  @Override
+  protected void closeClient() {
+    s3Client.close();
+  }
+
+  @Override
+  protected void put(final String key, final byte[] content) throws Exception {
+    s3Client.putObject(request -> request.bucket(bucket).key(key), AsyncRequestBody.fromBytesUnsafe(content)).get();
+  }
+
+  @Benchmark
+  public PutObjectResponse putObject() throws Exception {
+    return s3Client.putObject(request -> request.bucket(bucket).key(putKey),
+        AsyncRequestBody.fromBytesUnsafe(payload)).get();
+  }
+
+  @Benchmark
+  public long getObject() throws Exception {
+    try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(
+        request -> request.bucket(bucket).key(existingKey),
+        AsyncResponseTransformer.toBlockingInputStream()).get()) {
+      return in.transferTo(OutputStream.nullOutputStream());
+    }
+  }
+
+  @Benchmark
+  public HeadObjectResponse headObject() throws Exception {
+    return s3Client.headObject(request -> request.bucket(bucket).key(existingKey)).get();
+  }
+
+  @Benchmark
+  public ListObjectsV2Response listObjectsV2() throws Exception {
+    return s3Client.listObjectsV2(request -> request.bucket(bucket).prefix(LIST_PREFIX)).get();
+  }
+
+  @Benchmark
+  public CompleteMultipartUploadResponse multipartUpload() throws Exception {
+    final String uploadId = s3Client.createMultipartUpload(request -> request.bucket(bucket).key(multipartKey))
+        .get()
+        .uploadId();
+    final int partCount = partCount();
+    List<CompletedPart> completedParts = new ArrayList<>(partCount);
+    for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+      final int part = partNumber;
+      ByteBuffer partContent = ByteBuffer.wrap(payload, partOffset(part), partLength(part));
+      UploadPartResponse response = s3Client.uploadPart(
+          request -> request.bucket(bucket).key(multipartKey).uploadId(uploadId).partNumber(part),
+          AsyncRequestBody.fromRemainingByteBufferUnsafe(partContent)).get();
+      completedParts.add(CompletedPart.builder().partNumber(part).eTag(response.eTag()).build());
+    }
+    return s3Client.completeMultipartUpload(request -> request.bucket(bucket).key(multipartKey)
+        .uploadId(uploadId)
+        .multipartUpload(upload -> upload.parts(completedParts))).get();
+  }
+}
@@ -0,0 +1,101 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.ObjectStorageProvider;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.testkit.S3SyncTestKit;
+import io.github.sullis.s3.playground.testkit.S3TestKit;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.ContentStreamProvider;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+
+public class S3SyncClientBenchmark extends AbstractS3Benchmark {
+  private static final String CONTENT_TYPE = "application/octet-stream";
+
+  @Param({ "ApacheHttpClient", "AwsCrtHttpClient" })
+  public String httpClient;
+
+  private S3Client s3Client;
+
+  @Override
+  protected S3TestKit openClient(final ObjectStorageProvider objectStorageProvider) {
+    s3Client = S3ClientFactory.s3Client(objectStorageProvider, httpClient, null).client();
+    return new S3SyncTestKit(s3Client, -1, false);
+  }
+
+  @Override
+  protected void closeClient() {
+    s3Client.close();
+  }
+
+  @Override
+  protected void put(final String key, final byte[] content) {
+    s3Client.putObject(request -> request.bucket(bucket).key(key), requestBody(content, 0, content.length));
+  }
+
+  @Benchmark
+  public PutObjectResponse putObject() {
+    return s3Client.putObject(request -> request.bucket(bucket).key(putKey),
+        requestBody(payload, 0, payload.length));
+  }
+
+  @Benchmark
+  public long getObject() throws Exception {
+    try (ResponseInputStream<GetObjectResponse> in =
+             s3Client.getObject(request -> request.bucket(bucket).key(existingKey))) {
+      return in.transferTo(OutputStream.nullOutputStream());
+    }
+  }
+
+  @Benchmark
+  public HeadObjectResponse headObject() {
+    return s3Client.headObject(request -> request.bucket(bucket).key(existingKey));
+  }
+
+  @Benchmark
+  public ListObjectsV2Response listObjectsV2() {
+    return s3Client.listObjectsV2(request -> request.bucket(bucket).prefix(LIST_PREFIX));
+  }
+
+  @Benchmark
+  public CompleteMultipartUploadResponse multipartUpload() {
+    final String uploadId = s3Client.createMultipartUpload(request -> request.bucket(bucket).key(multipartKey))
+        .uploadId();
+    final int partCount = partCount();
+    List<CompletedPart> completedParts = new ArrayList<>(partCount);
+    for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+      final int part = partNumber;
+      UploadPartResponse response = s3Client.uploadPart(
+          request -> request.bucket(bucket).key(multipartKey).uploadId(uploadId).partNumber(part),
+          requestBody(payload, partOffset(part), partLength(part)));
+      completedParts.add(CompletedPart.builder().partNumber(part).eTag(response.eTag()).build());
+    }
+    return s3Client.completeMultipartUpload(request -> request.bucket(bucket).key(multipartKey)
+        .uploadId(uploadId)
+        .multipartUpload(upload -> upload.parts(completedParts)));
+  }
+
+  /**
+   *  Streams straight from the payload array; RequestBody.fromBytes would copy it on every call.
+   */
+  private static RequestBody requestBody(final byte[] content, final int offset, final int length) {
+    return RequestBody.fromContentProvider(
+        ContentStreamProvider.fromInputStreamSupplier(() -> new ByteArrayInputStream(content, offset, length)),
+        length,
+        CONTENT_TYPE);
+  }
+}
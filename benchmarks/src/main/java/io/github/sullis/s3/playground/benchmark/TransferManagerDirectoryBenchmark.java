@@ -0,0 +1,197 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.HttpClientSettings;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.testkit.PartPayload;
+import io.github.sullis.s3.playground.testkit.S3AsyncTestKit;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+import software.amazon.awssdk.transfer.s3.model.CompletedDirectoryDownload;
+import software.amazon.awssdk.transfer.s3.model.CompletedDirectoryUpload;
+
+
+/**
+ *  {@link S3TransferManager#uploadDirectory} and {@link S3TransferManager#downloadDirectory} on a local
+ *  tree of many small files or a few huge ones: the small-object fan-out that the single-file transfer in
+ *  {@link S3AsyncTestKit#exerciseTransferManager} never reaches.
+ *
+ *  {@code tree} is {@code <fileCount>x<fileSize>}; files are spread over subdirectories of
+ *  {@value #FILES_PER_DIRECTORY}. {@code concurrency} caps both the transfer manager's in-flight files
+ *  ({@code transferDirectoryMaxConcurrency}) and the client's connections ({@code maxConcurrency}).
+ *  One operation transfers the whole tree; the {@code files} and {@code mebibytes} counters report
+ *  files/s and MiB/s.
+ *
+ *  Larger trees, e.g. {@code -p tree=1000000x1024}, need {@code -p provider=inprocess-mmap} or more heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class TransferManagerDirectoryBenchmark {
+  private static final int FILES_PER_DIRECTORY = 1000;
+  private static final int WRITE_CHUNK_SIZE = 8 * 1024 * 1024;
+
+  @Param({ BenchmarkStorage.IN_PROCESS })
+  public String provider;
+
+  @Param({ "NettyNioAsyncHttpClient", "AwsCrtAsyncHttpClient", S3ClientFactory.CRT_BUILDER })
+  public String httpClient;
+
+  /** 10,000 files of 4 KiB; 4 files of 256 MiB */
+  @Param({ "10000x4096", "4x268435456" })
+  public String tree;
+
+  @Param({ "16", "64" })
+  public int concurrency;
+
+  private BenchmarkFixture<S3AsyncClient> fixture;
+  private S3AsyncClient s3Client;
+  private S3TransferManager transferManager;
+  private String bucket;
+  private int fileCount;
+  private long fileSize;
+  private Path source;
+  private Path destination;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Transferred {
+    public long files;
+    public double mebibytes;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    final int separator = tree.indexOf('x');
+    fileCount = Integer.parseInt(tree.substring(0, separator));
+    fileSize = Long.parseLong(tree.substring(separator + 1));
+
+    fixture = BenchmarkFixture.async(provider, objectStorageProvider -> S3ClientFactory.CRT_BUILDER.equals(httpClient)
+        ? objectStorageProvider.configure(S3AsyncClient.crtBuilder().maxConcurrency(concurrency)).build()
+        : S3ClientFactory.s3AsyncClient(objectStorageProvider,
+            HttpClientSettings.withMaxConnections(concurrency).asyncBuilder(httpClient), null).client());
+    s3Client = fixture.client();
+    bucket = fixture.bucket();
+    transferManager = S3TransferManager.builder()
+        .s3Client(s3Client)
+        .transferDirectoryMaxConcurrency(concurrency)
+        .build();
+
+    source = Files.createTempDirectory("directory-upload-");
+    destination = Files.createTempDirectory("directory-download-");
+    writeTree(source, fileCount, fileSize);
+    check(transferManager.uploadDirectory(request -> request
+        .source(source)
+        .bucket(bucket)
+        .s3Prefix("seed")).completionFuture().get());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    try {
+      deleteRecursively(source);
+      deleteRecursively(destination);
+      transferManager.close();
+    } finally {
+      fixture.close();
+    }
+  }
+
+  @Benchmark
+  public CompletedDirectoryUpload uploadDirectory(final Transferred transferred) throws Exception {
+    CompletedDirectoryUpload upload = check(transferManager.uploadDirectory(request -> request
+        .source(source)
+        .bucket(bucket)
+        .s3Prefix("upload")).completionFuture().get());
+    count(transferred);
+    return upload;
+  }
+
+  @Benchmark
+  public CompletedDirectoryDownload downloadDirectory(final Transferred transferred) throws Exception {
+    CompletedDirectoryDownload download = transferManager.downloadDirectory(request -> request
+        .destination(destination)
+        .bucket(bucket)
+        .listObjectsV2RequestTransformer(list -> list.prefix("seed"))).completionFuture().get();
+    if (!download.failedTransfers().isEmpty()) {
+      throw new IllegalStateException(download.failedTransfers().size() + " of " + fileCount
+          + " downloads failed", download.failedTransfers().get(0).exception());
+    }
+    count(transferred);
+    return download;
+  }
+
+  private void count(final Transferred transferred) {
+    transferred.files += fileCount;
+    transferred.mebibytes += fileCount * (double) fileSize / (1024 * 1024);
+  }
+
+  private CompletedDirectoryUpload check(final CompletedDirectoryUpload upload) {
+    if (!upload.failedTransfers().isEmpty()) {
+      throw new IllegalStateException(upload.failedTransfers().size() + " of " + fileCount
+          + " uploads failed", upload.failedTransfers().get(0).exception());
+    }
+    return upload;
+  }
+
+  private static void writeTree(final Path root, final int fileCount, final long fileSize) throws IOException {
+    final PartPayload payload = PartPayload.allocate((int) Math.min(fileSize, WRITE_CHUNK_SIZE));
+    for (int i = 0; i < fileCount; i++) {
+      Path directory = root.resolve(String.format("d%05d", i / FILES_PER_DIRECTORY));
+      if (i % FILES_PER_DIRECTORY == 0) {
+        Files.createDirectories(directory);
+      }
+      try (FileChannel channel = FileChannel.open(directory.resolve(String.format("f%07d.bin", i)),
+          StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+        for (long written = 0; written < fileSize; ) {
+          ByteBuffer chunk = payload.slice((int) Math.min(payload.partSize(), fileSize - written));
+          while (chunk.hasRemaining()) {
+            written += channel.write(chunk);
+          }
+        }
+      }
+    }
+  }
+
+  private static void deleteRecursively(final Path root) throws IOException {
+    Files.walkFileTree(root, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+        Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+        Files.delete(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+}
@@ -0,0 +1,69 @@
+package io.github.sullis.s3.playground.benchmark;
+
+import io.github.sullis.s3.playground.HttpClientSettings;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.testkit.S3LoadGenerator;
+import io.github.sullis.s3.playground.testkit.S3SyncTestKit;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+
+
+/**
+ *  Sweeps the number of virtual threads sharing one {@link S3Client} with a fixed connection pool,
+ *  using {@link S3LoadGenerator}. The point where p99 climbs while throughput stays flat is where the
+ *  pool, not the thread count, is the limit.
+ *
+ *  This is not a JMH benchmark: the load is open-loop, so it runs on its own clock.
+ *
+ *  <pre>
+ *  java -cp target/benchmarks.jar io.github.sullis.s3.playground.benchmark.VirtualThreadLoadRunner \
+ *      [provider] [httpClient] [maxConnections] [targetRatePerSecond] [virtualThreads,...] [maxConcurrentRequests]
+ *  </pre>
+ *
+ *  {@code maxConcurrentRequests} defaults to {@code maxConnections}; pass 0 to let every thread wait inside the pool.
+ */
+public final class VirtualThreadLoadRunner {
+  private static final Logger logger = LoggerFactory.getLogger(VirtualThreadLoadRunner.class);
+
+  private VirtualThreadLoadRunner() { }
+
+  public static void main(String[] args) throws Exception {
+    final String provider = arg(args, 0, BenchmarkStorage.IN_PROCESS);
+    final String httpClient = arg(args, 1, "ApacheHttpClient");
+    final int maxConnections = Integer.parseInt(arg(args, 2, "50"));
+    final double targetRate = Double.parseDouble(arg(args, 3, "0"));
+    final int maxConcurrentRequests = Integer.parseInt(arg(args, 5, String.valueOf(maxConnections)));
+    final List<Integer> threadCounts = new ArrayList<>();
+    for (String count : arg(args, 4, "16,64,256,1024,4096").split(",")) {
+      threadCounts.add(Integer.parseInt(count.trim()));
+    }
+
+    try (BenchmarkStorage storage = BenchmarkStorage.start(provider);
+         S3Client s3Client = S3ClientFactory.s3Client(storage.objectStorageProvider(),
+             HttpClientSettings.withMaxConnections(maxConnections).syncBuilder(httpClient), null).client()) {
+      S3SyncTestKit testKit = new S3SyncTestKit(s3Client, -1, false);
+      try {
+        List<S3LoadGenerator.Report> reports = new ArrayList<>();
+        for (int virtualThreads : threadCounts) {
+          reports.add(testKit.generateLoad(S3LoadGenerator.Profile.readMostly(
+              virtualThreads, targetRate, maxConcurrentRequests, Duration.ofSeconds(5), Duration.ofSeconds(20))));
+        }
+        logger.info("httpClient={} maxConnections={} maxConcurrentRequests={} targetRate={}/s",
+            httpClient, maxConnections, maxConcurrentRequests, targetRate);
+        for (S3LoadGenerator.Report report : reports) {
+          report.log();
+        }
+      } finally {
+        testKit.cleanup();
+      }
+    }
+  }
+
+  private static String arg(final String[] args, final int index, final String defaultValue) {
+    return (args.length > index) ? args[index] : defaultValue;
+  }
+}
@@ -3,39 +3,41 @@ package io.github.sullis.s3.playground;
 import io.github.sullis.s3.playground.metrics.Slf4jPublisher;
 import io.github.sullis.s3.playground.testkit.S3AsyncTestKit;
 import io.github.sullis.s3.playground.testkit.S3SyncTestKit;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.http.SdkHttpClient;
-import software.amazon.awssdk.http.apache.ApacheHttpClient;
-import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
-import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
-import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
-import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.metrics.MetricPublisher;
-import software.amazon.awssdk.services.s3.S3AsyncClient;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.S3CrtAsyncClientBuilder;
 import software.amazon.awssdk.services.s3.model.StorageClass;
 
 
+/**
+ *  Validates every client x storage class combination against one provider.
+ *
+ *  Each combination uses its own client, test kit and buckets, so with
+ *  {@code -Djunit.parallel=true} they all run concurrently.
+ *  Clients come from one {@link S3ClientRegistry} per test class and are closed after the last test,
+ *  together with the metric publisher; their construction and cold/warm request times are logged then.
+ */
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Execution(ExecutionMode.CONCURRENT)
 abstract class AbstractS3Test {
-  private static final List<SdkAsyncHttpClient.Builder<?>> ASYNC_HTTP_CLIENT_BUILDER_LIST =
-      List.of(NettyNioAsyncHttpClient.builder(), AwsCrtAsyncHttpClient.builder());
-
-  private static final List<SdkHttpClient.Builder<?>> SYNC_HTTP_CLIENT_BUILDER_LIST =
-      List.of(ApacheHttpClient.builder(), AwsCrtHttpClient.builder());
-
   private final Logger logger = LoggerFactory.getLogger(getClass());
   private final MetricPublisher metricPublisher = createMetricPublisher();
+  private @Nullable S3ClientRegistry clientRegistry;
+  @TempDir
+  Path scratchDirectory;
 
   protected abstract ObjectStorageProvider objectStorageProvider();
 
@@ -57,44 +59,34 @@ abstract class AbstractS3Test {
     };
   }
 
-  public List<S3AsyncClientInfo> s3AsyncClients() {
-    List<S3AsyncClientInfo> result = new ArrayList<>();
-    for (ObjectStorageProvider objectStorage : List.of(objectStorageProvider())) {
-      ASYNC_HTTP_CLIENT_BUILDER_LIST.forEach(httpClientBuilder -> {
-        var httpClient = httpClientBuilder.build();
-        S3AsyncClient s3Client =
-            (S3AsyncClient) objectStorage.configure(S3AsyncClient.builder()
-                    .overrideConfiguration(c -> c.addMetricPublisher(metricPublisher))
-                    .httpClient(httpClient))
-                    .build();
-        result.add(new S3AsyncClientInfo(httpClient.clientName(), objectStorage, s3Client));
-      });
-
-      // S3 crtBuilder
-      S3CrtAsyncClientBuilder crtBuilder = S3AsyncClient.crtBuilder()
-              .targetThroughputInGbps(5.0)
-              .minimumPartSizeInBytes(1_000_000L);
-      result.add(new S3AsyncClientInfo("crtBuilder", objectStorage, objectStorage.configure(crtBuilder).build()));
+  /**
+   *  Created on first use: a container-backed provider can only be configured once its container is running.
+   */
+  protected synchronized S3ClientRegistry clientRegistry() {
+    if (clientRegistry == null) {
+      clientRegistry = new S3ClientRegistry(objectStorageProvider(), metricPublisher);
     }
+    return clientRegistry;
+  }
 
-    return result;
+  public List<S3AsyncClientInfo> s3AsyncClients() {
+    return clientRegistry().s3AsyncClients();
   }
 
   public List<S3ClientInfo> s3Clients() {
-    List<S3ClientInfo> result = new ArrayList<>();
-    for (ObjectStorageProvider objectStorageProvider : List.of(objectStorageProvider())) {
-      SYNC_HTTP_CLIENT_BUILDER_LIST.forEach(httpClientBuilder -> {
-        var httpClient = httpClientBuilder.build();
-        S3Client s3Client =
-            (S3Client) objectStorageProvider.configure(S3Client.builder()
-                .overrideConfiguration(c -> c.addMetricPublisher(metricPublisher))
-                .httpClient(httpClient))
-                .build();
-        result.add(new S3ClientInfo(httpClient.clientName(), objectStorageProvider, s3Client));
-      });
-    }
+    return clientRegistry().s3Clients();
+  }
 
-    return result;
+  @AfterAll
+  synchronized void closeClients() {
+    try {
+      if (clientRegistry != null) {
+        clientRegistry.timings().forEach(timings -> logger.info("{}", timings));
+        clientRegistry.close();
+      }
+    } finally {
+      metricPublisher.close();
+    }
   }
 
   private Stream<Arguments> s3AsyncClientArguments() {
@@ -122,9 +114,14 @@ abstract class AbstractS3Test {
   void validateS3AsyncClient(S3AsyncClientInfo s3ClientInfo, @Nullable StorageClass storageClass)
       throws Exception {
     S3AsyncTestKit testkit = new S3AsyncTestKit(
-        s3ClientInfo.client,
+        s3ClientInfo.client(),
         getBucketExpirationDays(),
-        this.objectStorageProvider().supportsConditionalWrites());
+        this.objectStorageProvider().supportsConditionalWrites(),
+        S3ClientFactory.CRT_BUILDER.equals(s3ClientInfo.httpClientDescription())
+            ? null
+            : partSize -> S3ClientFactory.s3MultipartAsyncClient(
+                s3ClientInfo.objectStorageProvider(), s3ClientInfo.httpClientDescription(), partSize),
+        scratchDirectory);
     try {
       testkit.validate(storageClass);
     } finally {
@@ -137,7 +134,7 @@ abstract class AbstractS3Test {
   void validateS3Client(S3ClientInfo s3ClientInfo, StorageClass storageClass)
       throws Exception {
     S3SyncTestKit testkit = new S3SyncTestKit(
-        s3ClientInfo.client,
+        s3ClientInfo.client(),
         getBucketExpirationDays(),
         this.objectStorageProvider().supportsConditionalWrites());
     try {
@@ -146,24 +143,4 @@ abstract class AbstractS3Test {
       testkit.cleanup();
     }
   }
-
-  public record S3AsyncClientInfo(String httpClientDescription,
-                                  ObjectStorageProvider objectStorageProvider,
-                                  S3AsyncClient client) {
-    @Override
-    public String toString() {
-      return objectStorageProvider.getClass().getSimpleName() + ":" + httpClientDescription + ":"
-          + this.client.getClass().getSimpleName();
-    }
-  }
-
-  public record S3ClientInfo(String httpClientDescription,
-                             ObjectStorageProvider objectStorageProvider,
-                             S3Client client) {
-    @Override
-    public String toString() {
-      return objectStorageProvider.getClass().getSimpleName() + ":" + httpClientDescription + ":"
-          + this.client.getClass().getSimpleName();
-    }
-  }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package io.github.sullis.s3.playground;
+
+import java.time.Duration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.http.crt.TcpKeepAliveConfiguration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+
+
+/**
+ *  Connection pool settings applied to a fresh HTTP client builder.
+ *
+ *  The builders in {@link S3ClientFactory} are shared and keep SDK defaults; these methods
+ *  always create a new builder, so a sweep never leaks settings into other clients.
+ *
+ *  @param maxConnections Apache {@code maxConnections}; {@code maxConcurrency} for Netty and CRT
+ *  @param connectionMaxIdleTime {@link Duration#ZERO} turns the idle connection reaper off (Apache and Netty);
+ *                               CRT always closes idle connections and keeps its default
+ */
+public record HttpClientSettings(int maxConnections,
+    Duration connectionAcquisitionTimeout,
+    boolean tcpKeepAlive,
+    Duration connectionMaxIdleTime) {
+
+  private static final TcpKeepAliveConfiguration CRT_TCP_KEEP_ALIVE = TcpKeepAliveConfiguration.builder()
+      .keepAliveInterval(Duration.ofSeconds(60))
+      .keepAliveTimeout(Duration.ofSeconds(10))
+      .build();
+
+  public HttpClientSettings {
+    if (maxConnections < 1) {
+      throw new IllegalArgumentException("maxConnections must be positive: " + maxConnections);
+    }
+  }
+
+  /**
+   *  SDK defaults apart from the pool size: 10 s acquisition timeout, no TCP keep-alive, 60 s idle reaping.
+   */
+  public static HttpClientSettings withMaxConnections(final int maxConnections) {
+    return new HttpClientSettings(maxConnections, Duration.ofSeconds(10), false, Duration.ofSeconds(60));
+  }
+
+  private boolean idleConnectionReaper() {
+    return !connectionMaxIdleTime.isZero();
+  }
+
+  /**
+   *  @param httpClientName simple name of the HTTP client class (e.g. ApacheHttpClient)
+   */
+  public SdkHttpClient.Builder<?> syncBuilder(final String httpClientName) {
+    return switch (httpClientName) {
+      case "ApacheHttpClient" -> {
+        ApacheHttpClient.Builder builder = ApacheHttpClient.builder()
+            .maxConnections(maxConnections)
+            .connectionAcquisitionTimeout(connectionAcquisitionTimeout)
+            .tcpKeepAlive(tcpKeepAlive)
+            .useIdleConnectionReaper(idleConnectionReaper());
+        yield idleConnectionReaper() ? builder.connectionMaxIdleTime(connectionMaxIdleTime) : builder;
+      }
+      case "AwsCrtHttpClient" -> {
+        AwsCrtHttpClient.Builder builder = AwsCrtHttpClient.builder()
+            .maxConcurrency(maxConnections)
+            .connectionAcquisitionTimeout(connectionAcquisitionTimeout);
+        if (tcpKeepAlive) {
+          builder.tcpKeepAliveConfiguration(CRT_TCP_KEEP_ALIVE);
+        }
+        yield idleConnectionReaper() ? builder.connectionMaxIdleTime(connectionMaxIdleTime) : builder;
+      }
+      default -> throw new IllegalArgumentException("unknown http client: " + httpClientName);
+    };
+  }
+
+  /**
+   *  @param httpClientName simple name of the HTTP client class (e.g. NettyNioAsyncHttpClient)
+   */
+  public SdkAsyncHttpClient.Builder<?> asyncBuilder(final String httpClientName) {
+    return switch (httpClientName) {
+      case "NettyNioAsyncHttpClient" -> {
+        NettyNioAsyncHttpClient.Builder builder = NettyNioAsyncHttpClient.builder()
+            .maxConcurrency(maxConnections)
+            .connectionAcquisitionTimeout(connectionAcquisitionTimeout)
+            .tcpKeepAlive(tcpKeepAlive)
+            .useIdleConnectionReaper(idleConnectionReaper());
+        yield idleConnectionReaper() ? builder.connectionMaxIdleTime(connectionMaxIdleTime) : builder;
+      }
+      case "AwsCrtAsyncHttpClient" -> {
+        AwsCrtAsyncHttpClient.Builder builder = AwsCrtAsyncHttpClient.builder()
+            .maxConcurrency(maxConnections)
+            .connectionAcquisitionTimeout(connectionAcquisitionTimeout);
+        if (tcpKeepAlive) {
+          builder.tcpKeepAliveConfiguration(CRT_TCP_KEEP_ALIVE);
+        }
+        yield idleConnectionReaper() ? builder.connectionMaxIdleTime(connectionMaxIdleTime) : builder;
+      }
+      default -> throw new IllegalArgumentException("unknown async http client: " + httpClientName);
+    };
+  }
+
+  public static boolean isAsync(final String httpClientName) {
+    return switch (httpClientName) {
+      case "NettyNioAsyncHttpClient", "AwsCrtAsyncHttpClient" -> true;
+      case "ApacheHttpClient", "AwsCrtHttpClient" -> false;
+      default -> throw new IllegalArgumentException("unknown http client: " + httpClientName);
+    };
+  }
+}
@@ -0,0 +1,119 @@
+package io.github.sullis.s3.playground;
+
+import io.github.sullis.s3.playground.server.InProcessS3Server;
+import java.util.List;
+import java.util.function.Function;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+
+/**
+ *  Runs one {@link InProcessS3Server} per test class: it starts before the first test and stops after the last,
+ *  together with the clients handed out for it.
+ *
+ *  Test and lifecycle methods take the server, its {@link ObjectStorageProvider}, an {@link S3Client} or an
+ *  {@link S3AsyncClient} as parameters. Each client is built on first use and shared by the class; by default
+ *  with {@link S3ClientFactory} on Apache and Netty. To configure them, register with {@code @RegisterExtension}
+ *  and {@link #withSyncClient} or {@link #withAsyncClient}.
+ */
+public final class InProcessS3Extension implements BeforeAllCallback, ParameterResolver {
+  private static final ExtensionContext.Namespace NAMESPACE =
+      ExtensionContext.Namespace.create(InProcessS3Extension.class);
+  private static final List<Class<?>> PARAMETER_TYPES =
+      List.of(InProcessS3Server.class, ObjectStorageProvider.class, S3Client.class, S3AsyncClient.class);
+
+  private final Function<ObjectStorageProvider, S3Client> syncClientFactory;
+  private final Function<ObjectStorageProvider, S3AsyncClient> asyncClientFactory;
+
+  public InProcessS3Extension() {
+    this(objectStorage -> S3ClientFactory.s3Client(objectStorage, "ApacheHttpClient", null).client(),
+        objectStorage -> S3ClientFactory.s3AsyncClient(objectStorage, "NettyNioAsyncHttpClient", null).client());
+  }
+
+  private InProcessS3Extension(final Function<ObjectStorageProvider, S3Client> syncClientFactory,
+      final Function<ObjectStorageProvider, S3AsyncClient> asyncClientFactory) {
+    this.syncClientFactory = syncClientFactory;
+    this.asyncClientFactory = asyncClientFactory;
+  }
+
+  public InProcessS3Extension withSyncClient(final Function<ObjectStorageProvider, S3Client> clientFactory) {
+    return new InProcessS3Extension(clientFactory, asyncClientFactory);
+  }
+
+  public InProcessS3Extension withAsyncClient(final Function<ObjectStorageProvider, S3AsyncClient> clientFactory) {
+    return new InProcessS3Extension(syncClientFactory, clientFactory);
+  }
+
+  @Override
+  public void beforeAll(final ExtensionContext context) throws Exception {
+    // closed with the class context
+    context.getStore(NAMESPACE).put(Resources.class, new Resources(InProcessS3Server.start()));
+  }
+
+  @Override
+  public boolean supportsParameter(final ParameterContext parameterContext,
+      final ExtensionContext extensionContext) {
+    return PARAMETER_TYPES.contains(parameterContext.getParameter().getType());
+  }
+
+  @Override
+  public Object resolveParameter(final ParameterContext parameterContext,
+      final ExtensionContext extensionContext) {
+    Resources resources = extensionContext.getStore(NAMESPACE).get(Resources.class, Resources.class);
+    Class<?> type = parameterContext.getParameter().getType();
+    if (type == InProcessS3Server.class) {
+      return resources.server;
+    } else if (type == ObjectStorageProvider.class) {
+      return resources.objectStorage;
+    } else if (type == S3Client.class) {
+      return resources.syncClient();
+    } else {
+      return resources.asyncClient();
+    }
+  }
+
+  private final class Resources implements AutoCloseable {
+    private final InProcessS3Server server;
+    private final ObjectStorageProvider objectStorage;
+    private @Nullable S3Client syncClient;
+    private @Nullable S3AsyncClient asyncClient;
+
+    Resources(final InProcessS3Server server) {
+      this.server = server;
+      this.objectStorage = new ObjectStorageProvider.InProcess(server);
+    }
+
+    synchronized S3Client syncClient() {
+      if (syncClient == null) {
+        syncClient = syncClientFactory.apply(objectStorage);
+      }
+      return syncClient;
+    }
+
+    synchronized S3AsyncClient asyncClient() {
+      if (asyncClient == null) {
+        asyncClient = asyncClientFactory.apply(objectStorage);
+      }
+      return asyncClient;
+    }
+
+    @Override
+    public synchronized void close() {
+      try {
+        if (syncClient != null) {
+          syncClient.close();
+        }
+        if (asyncClient != null) {
+          asyncClient.close();
+        }
+      } finally {
+        server.close();
+      }
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package io.github.sullis.s3.playground;
 
 import com.adobe.testing.s3mock.testcontainers.S3MockContainer;
+import io.github.sullis.s3.playground.server.InProcessS3Server;
 import java.net.URI;
 import org.testcontainers.containers.CephContainer;
 import org.testcontainers.containers.MinIOContainer;
@@ -184,6 +185,50 @@ public interface ObjectStorageProvider {
     }
   }
 
+  /**   {@link InProcessS3Server} running inside this JVM   */
+  class InProcess implements ObjectStorageProvider {
+    private final AwsCredentialsProvider awsCredentialsProvider;
+    private final Region awsRegion;
+    private final URI endpoint;
+
+    public InProcess(InProcessS3Server server) {
+      this(server.endpoint());
+    }
+
+    /**   a server running in another JVM, e.g. the parent of a forked benchmark process   */
+    public InProcess(URI endpoint) {
+      this.awsCredentialsProvider = StaticCredentialsProvider.create(
+          AwsBasicCredentials.create("dummy", "dummy")
+      );
+      this.awsRegion = Region.US_EAST_1;
+      this.endpoint = endpoint;
+    }
+
+    @Override
+    public S3CrtAsyncClientBuilder configure(S3CrtAsyncClientBuilder builder) {
+      return builder.endpointOverride(endpoint)
+          .credentialsProvider(awsCredentialsProvider)
+          .region(awsRegion);
+    }
+
+    @Override
+    public AwsClientBuilder<?, ?> configure(AwsClientBuilder<?, ?> builder) {
+      return builder.endpointOverride(endpoint)
+          .credentialsProvider(awsCredentialsProvider)
+          .region(awsRegion);
+    }
+
+    @Override
+    public boolean isLocal() {
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return this.getClass().getSimpleName();
+    }
+  }
+
   class Aws implements ObjectStorageProvider {
 
     public Aws() { }
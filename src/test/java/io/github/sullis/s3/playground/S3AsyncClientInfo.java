@@ -0,0 +1,14 @@
+package io.github.sullis.s3.playground;
+
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+
+public record S3AsyncClientInfo(String httpClientDescription,
+                                ObjectStorageProvider objectStorageProvider,
+                                S3AsyncClient client) {
+  @Override
+  public String toString() {
+    return objectStorageProvider.getClass().getSimpleName() + ":" + httpClientDescription + ":"
+        + this.client.getClass().getSimpleName();
+  }
+}
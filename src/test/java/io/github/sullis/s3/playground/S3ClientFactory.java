@@ -0,0 +1,201 @@
+package io.github.sullis.s3.playground;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jspecify.annotations.Nullable;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3CrtAsyncClientBuilder;
+
+
+/**
+ *  Builds the S3 client matrix (one client per HTTP client builder, plus the S3 crtBuilder client)
+ *  shared by the provider tests and the benchmarks module.
+ *
+ *  Every call builds a new client, which owns its HTTP client: closing the S3 client releases the
+ *  connection pool, event loops and native resources. {@link S3ClientRegistry} builds each client once.
+ */
+public final class S3ClientFactory {
+  public static final String CRT_BUILDER = "crtBuilder";
+
+  public static final List<SdkAsyncHttpClient.Builder<?>> ASYNC_HTTP_CLIENT_BUILDER_LIST =
+      List.of(NettyNioAsyncHttpClient.builder(), AwsCrtAsyncHttpClient.builder());
+
+  public static final List<SdkHttpClient.Builder<?>> SYNC_HTTP_CLIENT_BUILDER_LIST =
+      List.of(ApacheHttpClient.builder(), AwsCrtHttpClient.builder());
+
+  private S3ClientFactory() { }
+
+  public static List<S3AsyncClientInfo> s3AsyncClients(final ObjectStorageProvider objectStorage,
+      @Nullable final MetricPublisher metricPublisher) {
+    List<S3AsyncClientInfo> result = new ArrayList<>();
+    ASYNC_HTTP_CLIENT_BUILDER_LIST.forEach(httpClientBuilder ->
+        result.add(s3AsyncClient(objectStorage, httpClientBuilder, metricPublisher)));
+    result.add(s3CrtAsyncClient(objectStorage));
+    return result;
+  }
+
+  public static List<S3ClientInfo> s3Clients(final ObjectStorageProvider objectStorage,
+      @Nullable final MetricPublisher metricPublisher) {
+    List<S3ClientInfo> result = new ArrayList<>();
+    SYNC_HTTP_CLIENT_BUILDER_LIST.forEach(httpClientBuilder ->
+        result.add(s3Client(objectStorage, httpClientBuilder, metricPublisher)));
+    return result;
+  }
+
+  /**
+   *  @param httpClientName simple name of the HTTP client class (e.g. NettyNioAsyncHttpClient),
+   *                        or {@link #CRT_BUILDER}
+   */
+  public static S3AsyncClientInfo s3AsyncClient(final ObjectStorageProvider objectStorage,
+      final String httpClientName,
+      @Nullable final MetricPublisher metricPublisher) {
+    return s3AsyncClient(objectStorage, httpClientName, metricPublisher, null);
+  }
+
+  /**
+   *  @param retryMode null keeps the SDK default retry strategy; ignored for {@link #CRT_BUILDER}
+   */
+  public static S3AsyncClientInfo s3AsyncClient(final ObjectStorageProvider objectStorage,
+      final String httpClientName,
+      @Nullable final MetricPublisher metricPublisher,
+      @Nullable final RetryMode retryMode) {
+    if (CRT_BUILDER.equals(httpClientName)) {
+      return s3CrtAsyncClient(objectStorage);
+    }
+    for (SdkAsyncHttpClient.Builder<?> httpClientBuilder : ASYNC_HTTP_CLIENT_BUILDER_LIST) {
+      if (httpClientName(httpClientBuilder).equals(httpClientName)) {
+        return s3AsyncClient(objectStorage, httpClientBuilder, metricPublisher, retryMode);
+      }
+    }
+    throw new IllegalArgumentException("unknown async http client: " + httpClientName);
+  }
+
+  /**
+   *  @param httpClientName simple name of the HTTP client class (e.g. ApacheHttpClient)
+   */
+  public static S3ClientInfo s3Client(final ObjectStorageProvider objectStorage,
+      final String httpClientName,
+      @Nullable final MetricPublisher metricPublisher) {
+    return s3Client(objectStorage, httpClientName, metricPublisher, null);
+  }
+
+  /**
+   *  @param retryMode null keeps the SDK default retry strategy
+   */
+  public static S3ClientInfo s3Client(final ObjectStorageProvider objectStorage,
+      final String httpClientName,
+      @Nullable final MetricPublisher metricPublisher,
+      @Nullable final RetryMode retryMode) {
+    for (SdkHttpClient.Builder<?> httpClientBuilder : SYNC_HTTP_CLIENT_BUILDER_LIST) {
+      if (httpClientName(httpClientBuilder).equals(httpClientName)) {
+        return s3Client(objectStorage, httpClientBuilder, metricPublisher, retryMode);
+      }
+    }
+    throw new IllegalArgumentException("unknown http client: " + httpClientName);
+  }
+
+  public static S3AsyncClientInfo s3AsyncClient(final ObjectStorageProvider objectStorage,
+      final SdkAsyncHttpClient.Builder<?> httpClientBuilder,
+      @Nullable final MetricPublisher metricPublisher) {
+    return s3AsyncClient(objectStorage, httpClientBuilder, metricPublisher, null);
+  }
+
+  /**
+   *  @param retryMode null keeps the SDK default retry strategy
+   */
+  public static S3AsyncClientInfo s3AsyncClient(final ObjectStorageProvider objectStorage,
+      final SdkAsyncHttpClient.Builder<?> httpClientBuilder,
+      @Nullable final MetricPublisher metricPublisher,
+      @Nullable final RetryMode retryMode) {
+    S3AsyncClient s3Client =
+        (S3AsyncClient) objectStorage.configure(S3AsyncClient.builder()
+                .overrideConfiguration(c -> {
+                  if (metricPublisher != null) {
+                    c.addMetricPublisher(metricPublisher);
+                  }
+                  if (retryMode != null) {
+                    c.retryStrategy(retryMode);
+                  }
+                })
+                .httpClientBuilder(httpClientBuilder))
+            .build();
+    return new S3AsyncClientInfo(httpClientName(httpClientBuilder), objectStorage, s3Client);
+  }
+
+  /**
+   *  A client on the named HTTP client with the SDK's Java multipart support enabled, which the transfer
+   *  manager needs to pause and resume uploads. The caller closes it.
+   *
+   *  @param httpClientName simple name of the HTTP client class (e.g. NettyNioAsyncHttpClient)
+   */
+  public static S3AsyncClient s3MultipartAsyncClient(final ObjectStorageProvider objectStorage,
+      final String httpClientName,
+      final long partSizeInBytes) {
+    for (SdkAsyncHttpClient.Builder<?> httpClientBuilder : ASYNC_HTTP_CLIENT_BUILDER_LIST) {
+      if (httpClientName(httpClientBuilder).equals(httpClientName)) {
+        return (S3AsyncClient) objectStorage.configure(S3AsyncClient.builder()
+                .httpClientBuilder(httpClientBuilder)
+                .multipartEnabled(true)
+                .multipartConfiguration(multipart -> multipart
+                    .minimumPartSizeInBytes(partSizeInBytes)
+                    .thresholdInBytes(partSizeInBytes)))
+            .build();
+      }
+    }
+    throw new IllegalArgumentException("unknown async http client: " + httpClientName);
+  }
+
+  public static S3ClientInfo s3Client(final ObjectStorageProvider objectStorage,
+      final SdkHttpClient.Builder<?> httpClientBuilder,
+      @Nullable final MetricPublisher metricPublisher) {
+    return s3Client(objectStorage, httpClientBuilder, metricPublisher, null);
+  }
+
+  /**
+   *  @param retryMode null keeps the SDK default retry strategy
+   */
+  public static S3ClientInfo s3Client(final ObjectStorageProvider objectStorage,
+      final SdkHttpClient.Builder<?> httpClientBuilder,
+      @Nullable final MetricPublisher metricPublisher,
+      @Nullable final RetryMode retryMode) {
+    S3Client s3Client =
+        (S3Client) objectStorage.configure(S3Client.builder()
+                .overrideConfiguration(c -> {
+                  if (metricPublisher != null) {
+                    c.addMetricPublisher(metricPublisher);
+                  }
+                  if (retryMode != null) {
+                    c.retryStrategy(retryMode);
+                  }
+                })
+                .httpClientBuilder(httpClientBuilder))
+            .build();
+    return new S3ClientInfo(httpClientName(httpClientBuilder), objectStorage, s3Client);
+  }
+
+  public static S3AsyncClientInfo s3CrtAsyncClient(final ObjectStorageProvider objectStorage) {
+    S3CrtAsyncClientBuilder crtBuilder = S3AsyncClient.crtBuilder()
+        .targetThroughputInGbps(5.0)
+        .minimumPartSizeInBytes(1_000_000L);
+    return new S3AsyncClientInfo(CRT_BUILDER, objectStorage, objectStorage.configure(crtBuilder).build());
+  }
+
+  /**
+   *  Builders are nested in their HTTP client class, so the enclosing class name
+   *  identifies the client without having to build it.
+   */
+  public static String httpClientName(final Object httpClientBuilder) {
+    Class<?> builderClass = httpClientBuilder.getClass();
+    Class<?> enclosingClass = builderClass.getEnclosingClass();
+    return (enclosingClass != null) ? enclosingClass.getSimpleName() : builderClass.getSimpleName();
+  }
+}
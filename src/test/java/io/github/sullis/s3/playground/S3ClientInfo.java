@@ -0,0 +1,14 @@
+package io.github.sullis.s3.playground;
+
+import software.amazon.awssdk.services.s3.S3Client;
+
+
+public record S3ClientInfo(String httpClientDescription,
+                           ObjectStorageProvider objectStorageProvider,
+                           S3Client client) {
+  @Override
+  public String toString() {
+    return objectStorageProvider.getClass().getSimpleName() + ":" + httpClientDescription + ":"
+        + this.client.getClass().getSimpleName();
+  }
+}
@@ -0,0 +1,177 @@
+package io.github.sullis.s3.playground;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import org.jspecify.annotations.Nullable;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+
+/**
+ *  Builds each S3 client for one provider at most once per (HTTP client, retry mode) and hands the same
+ *  instance to every caller, then closes all of them in {@link #close()}, newest first.
+ *
+ *  Right after a client is built, the registry times one HeadBucket for a bucket that does not exist
+ *  (cold: connection setup, TLS, lazy class loading and SDK initialization), followed by
+ *  {@value #WARM_REQUESTS} more on the now warm client. Any S3 error response counts as a completed request.
+ *  {@link #timings()} returns these together with the construction time.
+ */
+public final class S3ClientRegistry implements AutoCloseable {
+  private static final int WARM_REQUESTS = 5;
+
+  /**
+   *  @param warmRequest median of the requests after the first
+   */
+  public record ClientTimings(String client, Duration construction, Duration firstRequest, Duration warmRequest) { }
+
+  private record Key(boolean async, String httpClientName, @Nullable RetryMode retryMode) { }
+
+  private record Built(Object clientInfo, SdkAutoCloseable client) { }
+
+  private record Entry(Object clientInfo, SdkAutoCloseable client, ClientTimings timings) { }
+
+  private final ObjectStorageProvider objectStorage;
+  private final @Nullable MetricPublisher metricPublisher;
+  private final String probeBucket = "client-registry-probe-" + UUID.randomUUID();
+  private final Map<Key, Entry> clients = new LinkedHashMap<>();
+  private boolean closed;
+
+  public S3ClientRegistry(final ObjectStorageProvider objectStorage, @Nullable final MetricPublisher metricPublisher) {
+    this.objectStorage = objectStorage;
+    this.metricPublisher = metricPublisher;
+  }
+
+  public S3ClientInfo s3Client(final String httpClientName) {
+    return s3Client(httpClientName, null);
+  }
+
+  /**
+   *  @param httpClientName simple name of the HTTP client class (e.g. ApacheHttpClient)
+   */
+  public synchronized S3ClientInfo s3Client(final String httpClientName, @Nullable final RetryMode retryMode) {
+    return (S3ClientInfo) entry(new Key(false, httpClientName, retryMode), () -> {
+      S3ClientInfo info = S3ClientFactory.s3Client(objectStorage, httpClientName, metricPublisher, retryMode);
+      return new Built(info, info.client());
+    }).clientInfo();
+  }
+
+  public S3AsyncClientInfo s3AsyncClient(final String httpClientName) {
+    return s3AsyncClient(httpClientName, null);
+  }
+
+  /**
+   *  @param httpClientName simple name of the HTTP client class (e.g. NettyNioAsyncHttpClient),
+   *                        or {@link S3ClientFactory#CRT_BUILDER}
+   */
+  public synchronized S3AsyncClientInfo s3AsyncClient(final String httpClientName,
+      @Nullable final RetryMode retryMode) {
+    return (S3AsyncClientInfo) entry(new Key(true, httpClientName, retryMode), () -> {
+      S3AsyncClientInfo info = S3ClientFactory.s3AsyncClient(objectStorage, httpClientName, metricPublisher, retryMode);
+      return new Built(info, info.client());
+    }).clientInfo();
+  }
+
+  /**
+   *  One client per sync HTTP client in {@link S3ClientFactory#SYNC_HTTP_CLIENT_BUILDER_LIST}.
+   */
+  public List<S3ClientInfo> s3Clients() {
+    return S3ClientFactory.SYNC_HTTP_CLIENT_BUILDER_LIST.stream()
+        .map(builder -> s3Client(S3ClientFactory.httpClientName(builder)))
+        .toList();
+  }
+
+  /**
+   *  One client per async HTTP client in {@link S3ClientFactory#ASYNC_HTTP_CLIENT_BUILDER_LIST},
+   *  plus the crtBuilder client.
+   */
+  public List<S3AsyncClientInfo> s3AsyncClients() {
+    List<S3AsyncClientInfo> result = new ArrayList<>();
+    S3ClientFactory.ASYNC_HTTP_CLIENT_BUILDER_LIST.forEach(builder ->
+        result.add(s3AsyncClient(S3ClientFactory.httpClientName(builder))));
+    result.add(s3AsyncClient(S3ClientFactory.CRT_BUILDER));
+    return result;
+  }
+
+  /**
+   *  In the order the clients were built.
+   */
+  public synchronized List<ClientTimings> timings() {
+    return clients.values().stream().map(Entry::timings).toList();
+  }
+
+  /**
+   *  Closes every client, continuing past failures; the first failure is rethrown with the rest suppressed.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    List<Entry> entries = new ArrayList<>(clients.values());
+    clients.clear();
+    RuntimeException failure = null;
+    for (int i = entries.size() - 1; i >= 0; i--) {
+      try {
+        entries.get(i).client().close();
+      } catch (RuntimeException ex) {
+        if (failure == null) {
+          failure = ex;
+        } else {
+          failure.addSuppressed(ex);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private Entry entry(final Key key, final Supplier<Built> factory) {
+    if (closed) {
+      throw new IllegalStateException("S3ClientRegistry is closed");
+    }
+    Entry entry = clients.get(key);
+    if (entry == null) {
+      final long start = System.nanoTime();
+      Built built = factory.get();
+      final Duration construction = Duration.ofNanos(System.nanoTime() - start);
+      Duration[] requests = new Duration[WARM_REQUESTS + 1];
+      for (int i = 0; i < requests.length; i++) {
+        requests[i] = timeProbe(built.client());
+      }
+      Duration[] warm = Arrays.copyOfRange(requests, 1, requests.length);
+      Arrays.sort(warm);
+      entry = new Entry(built.clientInfo(), built.client(),
+          new ClientTimings(built.clientInfo().toString(), construction, requests[0], warm[warm.length / 2]));
+      clients.put(key, entry);
+    }
+    return entry;
+  }
+
+  private Duration timeProbe(final SdkAutoCloseable client) {
+    final long start = System.nanoTime();
+    try {
+      if (client instanceof S3Client s3Client) {
+        s3Client.headBucket(request -> request.bucket(probeBucket));
+      } else {
+        ((S3AsyncClient) client).headBucket(request -> request.bucket(probeBucket)).join();
+      }
+    } catch (S3Exception expected) {
+      // 404 or 403: the round trip completed
+    } catch (CompletionException ex) {
+      if (!(ex.getCause() instanceof S3Exception)) {
+        throw ex;
+      }
+    }
+    return Duration.ofNanos(System.nanoTime() - start);
+  }
+}
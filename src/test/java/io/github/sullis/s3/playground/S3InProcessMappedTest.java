@@ -0,0 +1,31 @@
+package io.github.sullis.s3.playground;
+
+import io.github.sullis.s3.playground.server.InProcessS3Server;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import org.junit.jupiter.api.AfterAll;
+
+
+/**   {@link InProcessS3Server} with {@link InProcessS3Server.Storage#MAPPED}: bodies in memory-mapped files   */
+public class S3InProcessMappedTest extends AbstractS3Test {
+  private static final InProcessS3Server SERVER = startServer();
+
+  private static InProcessS3Server startServer() {
+    try {
+      return InProcessS3Server.start(InProcessS3Server.Storage.MAPPED);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  @AfterAll
+  static void stopServer() {
+    SERVER.close();
+  }
+
+  @Override
+  public ObjectStorageProvider objectStorageProvider() {
+    return new ObjectStorageProvider.InProcess(SERVER);
+  }
+
+}
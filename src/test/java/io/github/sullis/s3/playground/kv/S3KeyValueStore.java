@@ -0,0 +1,284 @@
+package io.github.sullis.s3.playground.kv;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+import org.jspecify.annotations.Nullable;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+
+/**
+ *  A key-value store on one bucket prefix that relies on S3 conditional writes instead of a lock service.
+ *
+ *  Every value carries the ETag S3 gave it. {@link #putIfAbsent} writes with {@code If-None-Match: *} and
+ *  {@link #compareAndSet} with {@code If-Match}; both return empty when another writer got there first
+ *  (412, 409 for overlapping conditional writes, or 404 when the key was deleted), and {@link #update} retries
+ *  a read-modify-write after a random delay below an exponentially growing ceiling, up to a maximum number of
+ *  attempts. Reads go through a small LRU cache that is always revalidated with an {@code If-None-Match} GET:
+ *  a 304 costs a round trip but no body, and a read never returns a stale value.
+ *
+ *  Requires a provider with conditional write support; S3 compares ETags, which are content hashes for
+ *  single-part objects, so rewriting a value with identical bytes does not change its version.
+ */
+public class S3KeyValueStore {
+  public static final int DEFAULT_MAX_UPDATE_ATTEMPTS = 100;
+  public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(1);
+  /** ceiling of the delay before the first retry; it doubles with every further one */
+  private static final long BASE_BACKOFF_MILLIS = 10;
+
+  private final S3AsyncClient s3Client;
+  private final String bucket;
+  private final String prefix;
+  private final int maxUpdateAttempts;
+  private final long maxBackoffMillis;
+  private final Map<String, Versioned> cache;
+  private final LongAdder conflicts = new LongAdder();
+  private final LongAdder revalidated = new LongAdder();
+  private final LongAdder fetched = new LongAdder();
+
+  /**
+   *  @param maxCachedEntries 0 disables the cache
+   */
+  public S3KeyValueStore(final S3AsyncClient s3Client,
+      final String bucket,
+      final String prefix,
+      final int maxCachedEntries) {
+    this(s3Client, bucket, prefix, maxCachedEntries, DEFAULT_MAX_UPDATE_ATTEMPTS, DEFAULT_MAX_BACKOFF);
+  }
+
+  /**
+   *  @param maxCachedEntries 0 disables the cache
+   *  @param maxUpdateAttempts conditional writes {@link #update} tries before it fails
+   *  @param maxBackoff cap on the delay between those attempts; zero retries at once
+   */
+  public S3KeyValueStore(final S3AsyncClient s3Client,
+      final String bucket,
+      final String prefix,
+      final int maxCachedEntries,
+      final int maxUpdateAttempts,
+      final Duration maxBackoff) {
+    if (maxUpdateAttempts < 1) {
+      throw new IllegalArgumentException("maxUpdateAttempts must be positive: " + maxUpdateAttempts);
+    }
+    this.s3Client = s3Client;
+    this.bucket = bucket;
+    this.prefix = prefix;
+    this.maxUpdateAttempts = maxUpdateAttempts;
+    this.maxBackoffMillis = maxBackoff.toMillis();
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, Versioned> eldest) {
+        return size() > maxCachedEntries;
+      }
+    };
+  }
+
+  /**
+   *  Keeps its own copy of {@code value} and hands out copies, so a caller cannot change what the cache
+   *  serves after a 304; equal when the bytes and the ETag are.
+   *
+   *  @param eTag quoted, as S3 returns it
+   */
+  public record Versioned(byte[] value, String eTag) {
+    public Versioned {
+      value = value.clone();
+    }
+
+    @Override
+    public byte[] value() {
+      return value.clone();
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      return other instanceof Versioned versioned
+          && Arrays.equals(value, versioned.value)
+          && eTag.equals(versioned.eTag);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Arrays.hashCode(value) + eTag.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "Versioned[value=" + value.length + " bytes, eTag=" + eTag + "]";
+    }
+  }
+
+  public CompletableFuture<Optional<Versioned>> get(final String key) {
+    final Versioned cached = cached(key);
+    return s3Client.getObject(request -> {
+          request.bucket(bucket).key(prefix + key);
+          if (cached != null) {
+            request.ifNoneMatch(cached.eTag());
+          }
+        }, AsyncResponseTransformer.toBytes())
+        .handle((response, failure) -> {
+          if (failure == null) {
+            fetched.increment();
+            return Optional.of(cache(key, new Versioned(response.asByteArray(), response.response().eTag())));
+          }
+          final int status = statusCode(failure);
+          if (status == 304 && cached != null) {
+            revalidated.increment();
+            return Optional.of(cached);
+          }
+          if (status == 404) {
+            invalidate(key);
+            return Optional.empty();
+          }
+          throw new CompletionException(unwrap(failure));
+        });
+  }
+
+  /**
+   *  @return empty if the key already exists
+   */
+  public CompletableFuture<Optional<Versioned>> putIfAbsent(final String key, final byte[] value) {
+    return put(key, value, PutObjectRequest.builder().ifNoneMatch("*"));
+  }
+
+  /**
+   *  @return empty if {@code expectedETag} is no longer the key's version, or the key is gone
+   */
+  public CompletableFuture<Optional<Versioned>> compareAndSet(final String key,
+      final String expectedETag,
+      final byte[] value) {
+    return put(key, value, PutObjectRequest.builder().ifMatch(expectedETag));
+  }
+
+  /**
+   *  Reads the key, applies {@code function} ({@code null} when absent) and writes the result conditionally
+   *  on what was read, backing off and starting over whenever another writer wins. Fails with
+   *  {@link IllegalStateException} once {@code maxUpdateAttempts} writes have lost.
+   */
+  public CompletableFuture<Versioned> update(final String key, final UnaryOperator<byte @Nullable []> function) {
+    return update(key, function, 1);
+  }
+
+  /**
+   *  Unconditional; S3 general purpose buckets do not support conditional deletes.
+   */
+  public CompletableFuture<Void> delete(final String key) {
+    return s3Client.deleteObject(request -> request.bucket(bucket).key(prefix + key))
+        .thenRun(() -> invalidate(key));
+  }
+
+  /**
+   *  Conditional writes that lost to another writer.
+   */
+  public long conflicts() {
+    return conflicts.sum();
+  }
+
+  /**
+   *  Cached reads confirmed current with a 304.
+   */
+  public long revalidated() {
+    return revalidated.sum();
+  }
+
+  /**
+   *  Reads that transferred the value.
+   */
+  public long fetched() {
+    return fetched.sum();
+  }
+
+  private CompletableFuture<Versioned> update(final String key,
+      final UnaryOperator<byte @Nullable []> function,
+      final int attempt) {
+    return get(key).thenCompose(current -> {
+      final byte[] value = function.apply(current.map(Versioned::value).orElse(null));
+      return current.isPresent()
+          ? compareAndSet(key, current.get().eTag(), value)
+          : putIfAbsent(key, value);
+    }).thenCompose(written -> {
+      if (written.isPresent()) {
+        return CompletableFuture.completedFuture(written.get());
+      }
+      if (attempt >= maxUpdateAttempts) {
+        return CompletableFuture.failedFuture(
+            new IllegalStateException("update of " + key + " lost " + attempt + " conditional writes"));
+      }
+      final long delayMillis = backoffMillis(attempt);
+      if (delayMillis == 0) {
+        return update(key, function, attempt + 1);
+      }
+      final Executor delayed = CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS);
+      return CompletableFuture.runAsync(() -> { }, delayed)
+          .thenCompose(ignored -> update(key, function, attempt + 1));
+    });
+  }
+
+  /**
+   *  Full jitter: uniform below a ceiling that doubles per attempt up to {@code maxBackoffMillis}, so writers
+   *  that lost together do not retry together.
+   */
+  private long backoffMillis(final int attempt) {
+    final long ceiling = Math.min(maxBackoffMillis, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 20));
+    return (ceiling > 0) ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+  }
+
+  private CompletableFuture<Optional<Versioned>> put(final String key,
+      final byte[] value,
+      final PutObjectRequest.Builder condition) {
+    return s3Client.putObject(condition.bucket(bucket).key(prefix + key).build(), AsyncRequestBody.fromBytes(value))
+        .handle((response, failure) -> {
+          if (failure == null) {
+            return Optional.of(cache(key, new Versioned(value, response.eTag())));
+          }
+          final int status = statusCode(failure);
+          if (status == 412 || status == 409 || status == 404) {
+            conflicts.increment();
+            invalidate(key);
+            return Optional.empty();
+          }
+          throw new CompletionException(unwrap(failure));
+        });
+  }
+
+  private @Nullable Versioned cached(final String key) {
+    synchronized (cache) {
+      return cache.get(key);
+    }
+  }
+
+  private Versioned cache(final String key, final Versioned versioned) {
+    synchronized (cache) {
+      cache.put(key, versioned);
+    }
+    return versioned;
+  }
+
+  private void invalidate(final String key) {
+    synchronized (cache) {
+      cache.remove(key);
+    }
+  }
+
+  private static int statusCode(final Throwable failure) {
+    return (unwrap(failure) instanceof S3Exception s3Exception) ? s3Exception.statusCode() : -1;
+  }
+
+  private static Throwable unwrap(final Throwable throwable) {
+    return (throwable instanceof CompletionException && throwable.getCause() != null)
+        ? throwable.getCause()
+        : throwable;
+  }
+}
@@ -0,0 +1,150 @@
+package io.github.sullis.s3.playground.kv;
+
+import io.github.sullis.s3.playground.InProcessS3Extension;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(InProcessS3Extension.class)
+public class S3KeyValueStoreTest {
+  private static final String BUCKET = "kv-store";
+  private static final int WRITERS = 8;
+  private static final int UPDATES_PER_WRITER = 10;
+
+  @BeforeAll
+  void createBucket(final S3AsyncClient s3Client) {
+    s3Client.createBucket(request -> request.bucket(BUCKET)).join();
+  }
+
+  @Test
+  void conditionalWritesAndRevalidatedReads(final S3AsyncClient s3Client) {
+    S3KeyValueStore store = new S3KeyValueStore(s3Client, BUCKET, "conditional/", 16);
+    S3KeyValueStore.Versioned first = store.putIfAbsent("key", bytes("one")).join().orElseThrow();
+    assertThat(store.putIfAbsent("key", bytes("two")).join()).isEmpty();
+
+    S3KeyValueStore.Versioned second = store.compareAndSet("key", first.eTag(), bytes("two")).join().orElseThrow();
+    assertThat(second.eTag()).isNotEqualTo(first.eTag());
+    assertThat(store.compareAndSet("key", first.eTag(), bytes("three")).join()).isEmpty();
+    assertThat(store.conflicts()).isEqualTo(2);
+
+    // the lost write dropped the cached value, so the first read transfers it and the second revalidates
+    assertThat(string(store.get("key").join())).contains("two");
+    assertThat(string(store.get("key").join())).contains("two");
+    assertThat(store.fetched()).isEqualTo(1);
+    assertThat(store.revalidated()).isEqualTo(1);
+
+    // a caller that changes the bytes it read does not change what the next 304 serves
+    store.get("key").join().orElseThrow().value()[0] = 'X';
+    assertThat(store.get("key").join()).contains(new S3KeyValueStore.Versioned(bytes("two"), second.eTag()));
+    assertThat(store.revalidated()).isEqualTo(3);
+
+    // another store writes behind this one's cache
+    S3KeyValueStore other = new S3KeyValueStore(s3Client, BUCKET, "conditional/", 0);
+    other.compareAndSet("key", second.eTag(), bytes("four")).join().orElseThrow();
+    assertThat(string(store.get("key").join())).contains("four");
+    assertThat(store.fetched()).isEqualTo(2);
+
+    // nor does one that changes the bytes it wrote
+    byte[] written = bytes("five");
+    S3KeyValueStore.Versioned fifth = store.compareAndSet("key", store.get("key").join().orElseThrow().eTag(),
+        written).join().orElseThrow();
+    written[0] = 'X';
+    assertThat(string(store.get("key").join())).contains("five");
+    assertThat(store.get("key").join()).contains(fifth);
+
+    other.delete("key").join();
+    assertThat(store.get("key").join()).isEmpty();
+    assertThat(store.compareAndSet("key", second.eTag(), bytes("five")).join()).isEmpty();
+  }
+
+  @Test
+  void concurrentUpdatesLoseNothing(final S3AsyncClient s3Client) {
+    List<CompletableFuture<?>> writers = new ArrayList<>();
+    List<S3KeyValueStore> stores = new ArrayList<>();
+    for (int i = 0; i < WRITERS; i++) {
+      S3KeyValueStore store = new S3KeyValueStore(s3Client, BUCKET, "counters/", 16);
+      stores.add(store);
+      CompletableFuture<?> updates = CompletableFuture.completedFuture(null);
+      for (int u = 0; u < UPDATES_PER_WRITER; u++) {
+        updates = updates.thenCompose(ignored -> store.update("counter", S3KeyValueStoreTest::increment));
+      }
+      writers.add(updates);
+    }
+    CompletableFuture.allOf(writers.toArray(new CompletableFuture<?>[0])).join();
+
+    assertThat(string(stores.get(0).get("counter").join())).contains(String.valueOf(WRITERS * UPDATES_PER_WRITER));
+  }
+
+  @Test
+  void updateGivesUpAfterMaxAttempts(final S3AsyncClient s3Client) {
+    S3KeyValueStore store = new S3KeyValueStore(s3Client, BUCKET, "contended/", 16, 3, Duration.ofMillis(5));
+    store.putIfAbsent("key", bytes("0")).join().orElseThrow();
+
+    // another writer changes the key between every read and the conditional write that follows it
+    AtomicInteger reads = new AtomicInteger();
+    CompletableFuture<S3KeyValueStore.Versioned> update = store.update("key", value -> {
+      s3Client.putObject(put -> put.bucket(BUCKET).key("contended/key"),
+          AsyncRequestBody.fromString("other-" + reads.incrementAndGet())).join();
+      return bytes("mine");
+    });
+    assertThatThrownBy(update::join)
+        .hasCauseInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("lost 3 conditional writes");
+    assertThat(reads).hasValue(3);
+    assertThat(store.conflicts()).isEqualTo(3);
+  }
+
+  @Test
+  void concurrentAppendsShareOneLog(final S3AsyncClient s3Client) {
+    List<CompletableFuture<Integer>> appends = new ArrayList<>();
+    for (int i = 0; i < WRITERS; i++) {
+      S3Log log = new S3Log(new S3KeyValueStore(s3Client, BUCKET, "logs/", 16), "events");
+      for (int a = 0; a < 3; a++) {
+        appends.add(log.append(List.of(bytes("writer-" + i + "-" + a + "-x"), bytes("writer-" + i + "-" + a + "-y"))));
+      }
+    }
+    CompletableFuture.allOf(appends.toArray(new CompletableFuture<?>[0])).join();
+    assertThat(new HashSet<>(appends.stream().map(CompletableFuture::join).toList())).hasSize(appends.size());
+
+    S3Log reader = new S3Log(new S3KeyValueStore(s3Client, BUCKET, "logs/", 16), "events");
+    List<String> records = reader.read(0).join().stream()
+        .map(record -> new String(record, StandardCharsets.UTF_8))
+        .toList();
+    assertThat(records).hasSize(appends.size() * 2).doesNotHaveDuplicates();
+    for (int i = 0; i < records.size(); i += 2) {
+      assertThat(records.get(i)).endsWith("-x");
+      assertThat(records.get(i + 1)).isEqualTo(records.get(i).replaceFirst("-x$", "-y"));
+    }
+    assertThat(reader.read(appends.size() - 1).join()).hasSize(2);
+  }
+
+  private static byte[] increment(final byte @Nullable [] value) {
+    final long current = (value == null) ? 0 : Long.parseLong(new String(value, StandardCharsets.UTF_8));
+    return bytes(String.valueOf(current + 1));
+  }
+
+  private static Optional<String> string(final Optional<S3KeyValueStore.Versioned> versioned) {
+    return versioned.map(value -> new String(value.value(), StandardCharsets.UTF_8));
+  }
+
+  private static byte[] bytes(final String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
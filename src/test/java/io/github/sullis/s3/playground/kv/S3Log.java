@@ -0,0 +1,155 @@
+package io.github.sullis.s3.playground.kv;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ *  An append-only log of records in a {@link S3KeyValueStore}.
+ *
+ *  Each {@link #append} writes its records as a new immutable segment under a fresh name, then adds the
+ *  segment to the log's manifest with {@link S3KeyValueStore#update}, so concurrent appenders only ever
+ *  contend on the small manifest and the manifest order is the log order. A writer that dies between the
+ *  two steps leaves an unreferenced segment behind; it is never read. Segments never change, so the most
+ *  recently used ones are cached without revalidation; the manifest is read through the store's revalidating
+ *  cache.
+ *
+ *  The manifest grows by one line per append; compaction is out of scope.
+ */
+public class S3Log {
+  public static final int DEFAULT_MAX_CACHED_SEGMENTS = 1024;
+
+  private final S3KeyValueStore store;
+  private final String name;
+  private final Map<String, List<byte[]>> segments;
+
+  public S3Log(final S3KeyValueStore store, final String name) {
+    this(store, name, DEFAULT_MAX_CACHED_SEGMENTS);
+  }
+
+  /**
+   *  @param maxCachedSegments 0 disables the segment cache
+   */
+  public S3Log(final S3KeyValueStore store, final String name, final int maxCachedSegments) {
+    this.store = store;
+    this.name = name;
+    this.segments = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, List<byte[]>> eldest) {
+        return size() > maxCachedSegments;
+      }
+    };
+  }
+
+  /**
+   *  @return the index of the new segment in the manifest
+   */
+  public CompletableFuture<Integer> append(final List<byte[]> records) {
+    final String segment = UUID.randomUUID().toString();
+    return store.putIfAbsent(segmentKey(segment), encode(records))
+        .thenCompose(written -> {
+          if (written.isEmpty()) {
+            throw new IllegalStateException("segment already exists: " + segment);
+          }
+          cache(segment, List.copyOf(records));
+          return store.update(manifestKey(), manifest -> {
+            final String current = (manifest == null) ? "" : new String(manifest, StandardCharsets.UTF_8);
+            return (current + segment + "\n").getBytes(StandardCharsets.UTF_8);
+          });
+        })
+        .thenApply(manifest -> segmentNames(manifest.value()).indexOf(segment));
+  }
+
+  public CompletableFuture<List<String>> segments() {
+    return store.get(manifestKey())
+        .thenApply(manifest -> manifest.map(versioned -> segmentNames(versioned.value())).orElse(List.of()));
+  }
+
+  /**
+   *  Records of the segments from {@code fromSegment} on, in log order; a reader that remembers how many
+   *  segments it has seen can tail the log.
+   */
+  public CompletableFuture<List<byte[]>> read(final int fromSegment) {
+    return segments().thenCompose(names -> {
+      final List<String> unread = names.subList(Math.min(fromSegment, names.size()), names.size());
+      final List<CompletableFuture<List<byte[]>>> reads = new ArrayList<>(unread.size());
+      for (String segment : unread) {
+        reads.add(readSegment(segment));
+      }
+      return CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0]))
+          .thenApply(ignored -> {
+            final List<byte[]> records = new ArrayList<>();
+            reads.forEach(read -> records.addAll(read.join()));
+            return records;
+          });
+    });
+  }
+
+  private CompletableFuture<List<byte[]>> readSegment(final String segment) {
+    final List<byte[]> cached = cached(segment);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+    return store.get(segmentKey(segment)).thenApply(value -> {
+      final List<byte[]> records = decode(value
+          .orElseThrow(() -> new IllegalStateException("segment in manifest is missing: " + segment))
+          .value());
+      return cache(segment, records);
+    });
+  }
+
+  private @Nullable List<byte[]> cached(final String segment) {
+    synchronized (segments) {
+      return segments.get(segment);
+    }
+  }
+
+  private List<byte[]> cache(final String segment, final List<byte[]> records) {
+    synchronized (segments) {
+      segments.put(segment, records);
+    }
+    return records;
+  }
+
+  private String manifestKey() {
+    return name + "/manifest";
+  }
+
+  private String segmentKey(final String segment) {
+    return name + "/segments/" + segment;
+  }
+
+  private static List<String> segmentNames(final byte[] manifest) {
+    return new String(manifest, StandardCharsets.UTF_8).lines().toList();
+  }
+
+  /**
+   *  Each record prefixed with its length as a 4-byte big-endian int.
+   */
+  private static byte[] encode(final List<byte[]> records) {
+    final int length = records.stream().mapToInt(record -> Integer.BYTES + record.length).sum();
+    final ByteBuffer buffer = ByteBuffer.allocate(length);
+    for (byte[] record : records) {
+      buffer.putInt(record.length).put(record);
+    }
+    return buffer.array();
+  }
+
+  private static List<byte[]> decode(final byte[] segment) {
+    final ByteBuffer buffer = ByteBuffer.wrap(segment);
+    final List<byte[]> records = new ArrayList<>();
+    while (buffer.hasRemaining()) {
+      final byte[] record = new byte[buffer.getInt()];
+      buffer.get(record);
+      records.add(record);
+    }
+    return List.copyOf(records);
+  }
+}
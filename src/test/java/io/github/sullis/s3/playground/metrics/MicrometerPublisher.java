@@ -1,38 +1,196 @@
 package io.github.sullis.s3.playground.metrics;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.jspecify.annotations.Nullable;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
 import software.amazon.awssdk.metrics.MetricCollection;
 import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.MetricRecord;
 import software.amazon.awssdk.metrics.SdkMetric;
 
+
+/**
+ *  Bridges SDK metrics to Micrometer.
+ *
+ *  Each ApiCall collection is walked once (ApiCall, then ApiCallAttempt, then HttpClient).
+ *  Duration metrics become Timers, numeric metrics become DistributionSummaries,
+ *  and boolean metrics become Counters of true values. RetryCount is a Counter, so
+ *  its total is the number of retries. All meters are tagged with operation, endpoint,
+ *  http.client and status. Attempt and HttpClient metrics use the attempt's own status;
+ *  ApiCall metrics use the status of the last attempt.
+ *
+ *  Meters are registered on first use and cached by (metric, tag set). After that,
+ *  publishing does not build strings or look anything up in the registry.
+ */
 public class MicrometerPublisher
     implements MetricPublisher {
-  private static final Logger logger = LoggerFactory.getLogger(MicrometerPublisher.class);
+  static final String METER_NAME_PREFIX = "aws.sdk.";
+  static final String TAG_OPERATION = "operation";
+  static final String TAG_ENDPOINT = "endpoint";
+  static final String TAG_HTTP_CLIENT = "http.client";
+  static final String TAG_STATUS = "status";
+  static final String UNKNOWN = "unknown";
+
+  private static final int NO_STATUS = -1;
 
   // visible for testing
   public final MeterRegistry registry;
 
+  private final ConcurrentMap<MeterKey, Meter> meters = new ConcurrentHashMap<>();
+
   public MicrometerPublisher(MeterRegistry registry) {
     this.registry = registry;
   }
 
   @Override
-  public void publish(MetricCollection metricCollection) {
-    // TODO : WIP
-    String name = metricCollection.name();
-    logger.info("publish called. name={}", name);
-    metricCollection.stream().map(metricRecord -> {
-      logger.info("metricRecord: {}", metricRecord);
-      SdkMetric sdkMetric = metricRecord.metric();
-      logger.info("name={} sdkMetric={} level={}", name, sdkMetric, sdkMetric.level());
-      return metricRecord;
-    }).toList();
+  public void publish(MetricCollection apiCall) {
+    String operation = UNKNOWN;
+    URI endpoint = null;
+    for (MetricRecord<?> metricRecord : apiCall) {
+      SdkMetric<?> metric = metricRecord.metric();
+      if (metric == CoreMetric.OPERATION_NAME) {
+        operation = (String) metricRecord.value();
+      } else if (metric == CoreMetric.SERVICE_ENDPOINT) {
+        endpoint = (URI) metricRecord.value();
+      }
+    }
+
+    String httpClient = UNKNOWN;
+    int lastStatus = NO_STATUS;
+    for (MetricCollection attempt : apiCall.children()) {
+      lastStatus = statusCode(attempt);
+      for (MetricCollection httpMetrics : attempt.children()) {
+        String name = httpClientName(httpMetrics);
+        if (name != null) {
+          httpClient = name;
+        }
+      }
+    }
+
+    record(apiCall, new TagSet(operation, endpoint, httpClient, lastStatus));
+    for (MetricCollection attempt : apiCall.children()) {
+      TagSet attemptTags = new TagSet(operation, endpoint, httpClient, statusCode(attempt));
+      record(attempt, attemptTags);
+      for (MetricCollection httpMetrics : attempt.children()) {
+        record(httpMetrics, attemptTags);
+      }
+    }
   }
 
   @Override
   public void close() {
+    meters.clear();
     registry.close();
   }
+
+  private void record(final MetricCollection collection, final TagSet tags) {
+    for (MetricRecord<?> metricRecord : collection) {
+      SdkMetric<?> metric = metricRecord.metric();
+      Object value = metricRecord.value();
+      if (value == null || metric == HttpMetric.HTTP_STATUS_CODE) {
+        continue;
+      }
+      if (value instanceof Duration duration) {
+        ((Timer) meter(metric, tags, MeterType.TIMER)).record(duration);
+      } else if (value instanceof Boolean flag) {
+        if (flag) {
+          ((Counter) meter(metric, tags, MeterType.COUNTER)).increment();
+        }
+      } else if (value instanceof Number number) {
+        if (metric == CoreMetric.RETRY_COUNT) {
+          ((Counter) meter(metric, tags, MeterType.COUNTER)).increment(number.doubleValue());
+        } else {
+          ((DistributionSummary) meter(metric, tags, MeterType.SUMMARY)).record(number.doubleValue());
+        }
+      }
+    }
+  }
+
+  private Meter meter(final SdkMetric<?> metric, final TagSet tags, final MeterType type) {
+    MeterKey key = new MeterKey(metric, tags);
+    Meter meter = meters.get(key);
+    if (meter == null) {
+      meter = meters.computeIfAbsent(key, k -> register(k, type));
+    }
+    return meter;
+  }
+
+  private Meter register(final MeterKey key, final MeterType type) {
+    String name = meterName(key.metric());
+    Tags tags = key.tags().toTags();
+    return switch (type) {
+      case TIMER -> Timer.builder(name).tags(tags).publishPercentileHistogram().register(registry);
+      case SUMMARY -> DistributionSummary.builder(name).tags(tags).register(registry);
+      case COUNTER -> Counter.builder(name).tags(tags).register(registry);
+    };
+  }
+
+  private static int statusCode(final MetricCollection attempt) {
+    for (MetricRecord<?> metricRecord : attempt) {
+      if (metricRecord.metric() == HttpMetric.HTTP_STATUS_CODE && metricRecord.value() != null) {
+        return (Integer) metricRecord.value();
+      }
+    }
+    return NO_STATUS;
+  }
+
+  private static @Nullable String httpClientName(final MetricCollection httpMetrics) {
+    for (MetricRecord<?> metricRecord : httpMetrics) {
+      if (metricRecord.metric() == HttpMetric.HTTP_CLIENT_NAME) {
+        return (String) metricRecord.value();
+      }
+    }
+    return null;
+  }
+
+  /**
+   *  "ApiCallDuration" becomes "aws.sdk.api.call.duration".
+   */
+  static String meterName(final SdkMetric<?> metric) {
+    String sdkName = metric.name();
+    StringBuilder sb = new StringBuilder(METER_NAME_PREFIX.length() + sdkName.length() + 4);
+    sb.append(METER_NAME_PREFIX);
+    for (int i = 0; i < sdkName.length(); i++) {
+      char c = sdkName.charAt(i);
+      if (Character.isUpperCase(c)) {
+        boolean wordStart = i > 0
+            && (Character.isLowerCase(sdkName.charAt(i - 1))
+                || (i + 1 < sdkName.length() && Character.isLowerCase(sdkName.charAt(i + 1))));
+        if (wordStart) {
+          sb.append('.');
+        }
+        sb.append(Character.toLowerCase(c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  private enum MeterType { TIMER, SUMMARY, COUNTER }
+
+  private record MeterKey(SdkMetric<?> metric, TagSet tags) { }
+
+  /**
+   *  Tag values are kept in their raw form so that a cache hit never formats them.
+   */
+  private record TagSet(String operation, @Nullable URI endpoint, String httpClient, int status) {
+    Tags toTags() {
+      return Tags.of(
+          TAG_OPERATION, operation,
+          TAG_ENDPOINT, (endpoint == null) ? UNKNOWN : endpoint.toString(),
+          TAG_HTTP_CLIENT, httpClient,
+          TAG_STATUS, (status == NO_STATUS) ? UNKNOWN : Integer.toString(status));
+    }
+  }
 }
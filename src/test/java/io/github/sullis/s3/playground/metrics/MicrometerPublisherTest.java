@@ -0,0 +1,73 @@
+package io.github.sullis.s3.playground.metrics;
+
+import io.github.sullis.s3.playground.InProcessS3Extension;
+import io.github.sullis.s3.playground.ObjectStorageProvider;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import io.github.sullis.s3.playground.server.InProcessS3Server;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+@ExtendWith(InProcessS3Extension.class)
+public class MicrometerPublisherTest {
+  @Test
+  void meterName() {
+    assertThat(MicrometerPublisher.meterName(CoreMetric.API_CALL_DURATION))
+        .isEqualTo("aws.sdk.api.call.duration");
+    assertThat(MicrometerPublisher.meterName(CoreMetric.TIME_TO_FIRST_BYTE))
+        .isEqualTo("aws.sdk.time.to.first.byte");
+  }
+
+  @Test
+  void publishesTaggedMeters(final InProcessS3Server server, final ObjectStorageProvider objectStorage) {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MicrometerPublisher publisher = new MicrometerPublisher(registry);
+    try (S3Client s3Client = S3ClientFactory.s3Client(objectStorage, ApacheHttpClient.builder(), publisher).client()) {
+      s3Client.createBucket(request -> request.bucket("micrometer"));
+      for (int i = 0; i < 3; i++) {
+        s3Client.putObject(request -> request.bucket("micrometer").key("key"), RequestBody.fromString("value"));
+      }
+      assertThatThrownBy(() -> s3Client.getObject(request -> request.bucket("micrometer").key("missing")))
+          .isInstanceOf(NoSuchKeyException.class);
+    }
+
+    Timer putObject = registry.get("aws.sdk.api.call.duration")
+        .tag(MicrometerPublisher.TAG_OPERATION, "PutObject")
+        .tag(MicrometerPublisher.TAG_STATUS, "200")
+        .tag(MicrometerPublisher.TAG_HTTP_CLIENT, "Apache")
+        .tag(MicrometerPublisher.TAG_ENDPOINT, server.endpoint().toString())
+        .timer();
+    assertThat(putObject.count()).isEqualTo(3);
+
+    Timer getObject = registry.get("aws.sdk.service.call.duration")
+        .tag(MicrometerPublisher.TAG_OPERATION, "GetObject")
+        .tag(MicrometerPublisher.TAG_STATUS, "404")
+        .timer();
+    assertThat(getObject.count()).isEqualTo(1);
+
+    assertThat(registry.get("aws.sdk.api.call.successful")
+        .tag(MicrometerPublisher.TAG_OPERATION, "PutObject")
+        .counter()
+        .count()).isEqualTo(3.0);
+
+    int meterCount = registry.getMeters().size();
+    putWithNewClient(objectStorage, publisher);
+    assertThat(registry.getMeters()).hasSize(meterCount);
+  }
+
+  private static void putWithNewClient(final ObjectStorageProvider objectStorage, final MicrometerPublisher publisher) {
+    try (S3Client s3Client = S3ClientFactory.s3Client(objectStorage, ApacheHttpClient.builder(), publisher).client()) {
+      s3Client.putObject(request -> request.bucket("micrometer").key("key"), RequestBody.fromString("value"));
+    }
+  }
+}
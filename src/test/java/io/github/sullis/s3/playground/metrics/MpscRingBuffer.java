@@ -0,0 +1,70 @@
+package io.github.sullis.s3.playground.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ *  Bounded, lock-free, multi-producer single-consumer queue.
+ *
+ *  Producers claim a slot by CAS on the producer index and publish the element with a release store.
+ *  The single consumer clears the slot before advancing the consumer index, so a claimed slot is always empty.
+ */
+final class MpscRingBuffer<E> {
+  private final AtomicReferenceArray<E> buffer;
+  private final int capacity;
+  private final int mask;
+  private final AtomicLong producerIndex = new AtomicLong();
+  private final AtomicLong consumerIndex = new AtomicLong();
+
+  MpscRingBuffer(final int requestedCapacity) {
+    if (requestedCapacity < 1 || requestedCapacity > (1 << 30)) {
+      throw new IllegalArgumentException("capacity out of range: " + requestedCapacity);
+    }
+    // round up to a power of two so the slot is index & mask
+    this.capacity = (requestedCapacity == 1) ? 1 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+    this.mask = capacity - 1;
+    this.buffer = new AtomicReferenceArray<>(capacity);
+  }
+
+  int capacity() {
+    return capacity;
+  }
+
+  /**
+   *  @return false if the buffer is full
+   */
+  boolean offer(final E element) {
+    long index;
+    do {
+      index = producerIndex.get();
+      if (index - consumerIndex.getAcquire() >= capacity) {
+        return false;
+      }
+    } while (!producerIndex.compareAndSet(index, index + 1));
+    buffer.setRelease((int) index & mask, element);
+    return true;
+  }
+
+  /**
+   *  Must only be called from the consumer thread.
+   *
+   *  @return null if the buffer is empty, or if the next producer has claimed its slot but not yet published
+   */
+  @Nullable E poll() {
+    final long index = consumerIndex.getPlain();
+    final int slot = (int) index & mask;
+    E element = buffer.getAcquire(slot);
+    if (element == null) {
+      return null;
+    }
+    buffer.setPlain(slot, null);
+    consumerIndex.setRelease(index + 1);
+    return element;
+  }
+
+  boolean isEmpty() {
+    return producerIndex.get() == consumerIndex.getAcquire();
+  }
+}
@@ -0,0 +1,70 @@
+package io.github.sullis.s3.playground.metrics;
+
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class MpscRingBufferTest {
+
+  @Test
+  void offerFailsWhenFull() {
+    MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+    assertThat(buffer.capacity()).isEqualTo(4);
+    for (int i = 0; i < 4; i++) {
+      assertThat(buffer.offer(i)).isTrue();
+    }
+    assertThat(buffer.offer(4)).isFalse();
+    assertThat(buffer.poll()).isEqualTo(0);
+    assertThat(buffer.offer(4)).isTrue();
+    for (int i = 1; i <= 4; i++) {
+      assertThat(buffer.poll()).isEqualTo(i);
+    }
+    assertThat(buffer.poll()).isNull();
+    assertThat(buffer.isEmpty()).isTrue();
+  }
+
+  @Test
+  void concurrentProducers() throws Exception {
+    final int producers = 4;
+    final int perProducer = 10_000;
+    MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(64);
+    CountDownLatch start = new CountDownLatch(1);
+    try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+      for (int p = 0; p < producers; p++) {
+        final int base = p * perProducer;
+        executor.execute(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+          for (int i = 0; i < perProducer; i++) {
+            while (!buffer.offer(base + i)) {
+              Thread.yield();
+            }
+          }
+        });
+      }
+      start.countDown();
+      BitSet received = new BitSet(producers * perProducer);
+      int count = 0;
+      while (count < producers * perProducer) {
+        Integer value = buffer.poll();
+        if (value == null) {
+          Thread.yield();
+          continue;
+        }
+        assertThat(received.get(value)).isFalse();
+        received.set(value);
+        count++;
+      }
+      assertThat(received.cardinality()).isEqualTo(producers * perProducer);
+    }
+  }
+}
@@ -1,24 +1,216 @@
 package io.github.sullis.s3.playground.metrics;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
 import software.amazon.awssdk.metrics.MetricCollection;
 import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.MetricRecord;
+import software.amazon.awssdk.metrics.SdkMetric;
 
+
+/**
+ *  Logs SDK metrics through SLF4J.
+ *
+ *  The no-arg constructor logs every collection on the publishing thread.
+ *  For Netty and CRT clients, that thread is an event loop.
+ *
+ *  The batched constructor only enqueues the collection into a bounded lock-free ring buffer.
+ *  A single background thread drains the buffer. Every {@code summaryInterval} it logs one line per
+ *  operation with count, mean and max for each metric. When the buffer is full, or the publisher is
+ *  closed, the collection is dropped and counted.
+ */
 public class Slf4jPublisher
     implements MetricPublisher {
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
 
   private final Logger logger = LoggerFactory.getLogger(Slf4jPublisher.class);
+  private final @Nullable MpscRingBuffer<MetricCollection> queue;
+  private final @Nullable Thread drainThread;
+  private final long summaryIntervalNanos;
+  private final AtomicLong dropped = new AtomicLong();
+  private volatile boolean closed;
+
+  public Slf4jPublisher() {
+    this.queue = null;
+    this.drainThread = null;
+    this.summaryIntervalNanos = 0;
+  }
 
-  public Slf4jPublisher() { }
+  public Slf4jPublisher(final int queueCapacity, final Duration summaryInterval) {
+    this.queue = new MpscRingBuffer<>(queueCapacity);
+    this.summaryIntervalNanos = summaryInterval.toNanos();
+    this.drainThread = Thread.ofPlatform()
+        .name("slf4j-metric-publisher")
+        .daemon(true)
+        .start(this::drain);
+  }
 
   @Override
   public void publish(MetricCollection metricCollection) {
-    logger.info("publish called. metricCollection: {}", metricCollection);
+    if (queue == null) {
+      logger.info("publish called. metricCollection: {}", metricCollection);
+    } else if (closed || !queue.offer(metricCollection)) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  /**
+   *  Number of collections dropped because the queue was full or the publisher was closed.
+   */
+  public long droppedCount() {
+    return dropped.get();
   }
 
   @Override
   public void close() {
-    // no-op
+    if (drainThread == null || closed) {
+      return;
+    }
+    closed = true;
+    LockSupport.unpark(drainThread);
+    try {
+      drainThread.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void drain() {
+    final Map<String, OperationSummary> summaries = new LinkedHashMap<>();
+    long droppedReported = 0;
+    long nextSummary = System.nanoTime() + summaryIntervalNanos;
+    while (true) {
+      final boolean stopping = closed;
+      MetricCollection metricCollection;
+      while ((metricCollection = queue.poll()) != null) {
+        aggregate(summaries, metricCollection);
+      }
+      final long now = System.nanoTime();
+      if (stopping || now - nextSummary >= 0) {
+        droppedReported = logSummaries(summaries, droppedReported);
+        nextSummary = now + summaryIntervalNanos;
+      }
+      if (stopping && queue.isEmpty()) {
+        return;
+      }
+      LockSupport.parkNanos(Math.min(IDLE_PARK_NANOS, Math.max(1, nextSummary - now)));
+    }
+  }
+
+  private static void aggregate(final Map<String, OperationSummary> summaries, final MetricCollection apiCall) {
+    String operation = "unknown";
+    for (MetricRecord<?> metricRecord : apiCall) {
+      if (metricRecord.metric() == CoreMetric.OPERATION_NAME) {
+        operation = (String) metricRecord.value();
+        break;
+      }
+    }
+    OperationSummary summary = summaries.computeIfAbsent(operation, k -> new OperationSummary());
+    summary.calls++;
+    summary.add(apiCall);
+    for (MetricCollection attempt : apiCall.children()) {
+      summary.add(attempt);
+      for (MetricCollection httpMetrics : attempt.children()) {
+        summary.add(httpMetrics);
+      }
+    }
+  }
+
+  private long logSummaries(final Map<String, OperationSummary> summaries, final long droppedReported) {
+    for (Map.Entry<String, OperationSummary> entry : summaries.entrySet()) {
+      OperationSummary summary = entry.getValue();
+      if (summary.calls > 0) {
+        logger.info("operation={} {}", entry.getKey(), summary);
+        summary.reset();
+      }
+    }
+    final long droppedTotal = dropped.get();
+    if (droppedTotal > droppedReported) {
+      logger.warn("dropped {} metric collections (total {}), queue capacity {}",
+          droppedTotal - droppedReported, droppedTotal, queue.capacity());
+    }
+    return droppedTotal;
+  }
+
+  /**
+   *  Only touched by the drain thread.
+   */
+  private static final class OperationSummary {
+    private final Map<SdkMetric<?>, Stats> stats = new LinkedHashMap<>();
+    private long calls;
+
+    void add(final MetricCollection collection) {
+      for (MetricRecord<?> metricRecord : collection) {
+        final Object value = metricRecord.value();
+        final SdkMetric<?> metric = metricRecord.metric();
+        if (metric == HttpMetric.HTTP_STATUS_CODE) {
+          continue;
+        }
+        if (value instanceof Duration duration) {
+          stats.computeIfAbsent(metric, k -> new Stats(true)).add(duration.toNanos());
+        } else if (value instanceof Number number) {
+          stats.computeIfAbsent(metric, k -> new Stats(false)).add(number.doubleValue());
+        }
+      }
+    }
+
+    void reset() {
+      calls = 0;
+      stats.values().forEach(Stats::reset);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder().append("count=").append(calls);
+      stats.forEach((metric, s) -> {
+        if (s.count > 0) {
+          sb.append(' ').append(metric.name()).append('[').append(s).append(']');
+        }
+      });
+      return sb.toString();
+    }
+  }
+
+  private static final class Stats {
+    private final boolean nanos;
+    private long count;
+    private double sum;
+    private double max;
+
+    Stats(final boolean nanos) {
+      this.nanos = nanos;
+    }
+
+    void add(final double value) {
+      if (count == 0 || value > max) {
+        max = value;
+      }
+      count++;
+      sum += value;
+    }
+
+    void reset() {
+      count = 0;
+      sum = 0;
+      max = 0;
+    }
+
+    @Override
+    public String toString() {
+      final double mean = sum / count;
+      if (nanos) {
+        return String.format("count=%d mean=%.3fms max=%.3fms", count, mean / 1_000_000d, max / 1_000_000d);
+      }
+      return String.format("count=%d mean=%.1f max=%.1f", count, mean, max);
+    }
   }
 }
@@ -0,0 +1,115 @@
+package io.github.sullis.s3.playground.metrics;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricCollector;
+import software.amazon.awssdk.metrics.MetricRecord;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class Slf4jPublisherTest {
+
+  @Test
+  void batchedModeCountsDropsAndLogsSummaries() throws Exception {
+    Logger logger = (Logger) LoggerFactory.getLogger(Slf4jPublisher.class);
+    ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    appender.start();
+    logger.addAppender(appender);
+    try {
+      // no periodic summary during the test; close() logs the final one
+      Slf4jPublisher publisher = new Slf4jPublisher(4, Duration.ofHours(1));
+      BlockingCollection blocker = new BlockingCollection(apiCall("HeadObject", 1));
+      publisher.publish(blocker);
+      assertThat(blocker.taken.await(10, TimeUnit.SECONDS)).isTrue();
+
+      // the drain thread is stuck on the blocker, so the fifth and sixth collections do not fit
+      for (int i = 1; i <= 6; i++) {
+        publisher.publish(apiCall("PutObject", i * 10));
+      }
+      assertThat(publisher.droppedCount()).isEqualTo(2);
+
+      blocker.release.countDown();
+      publisher.close();
+      publisher.publish(apiCall("PutObject", 50));
+      assertThat(publisher.droppedCount()).isEqualTo(3);
+    } finally {
+      logger.detachAppender(appender);
+    }
+
+    List<String> info = appender.list.stream()
+        .filter(event -> event.getLevel() == Level.INFO)
+        .map(ILoggingEvent::getFormattedMessage)
+        .toList();
+    assertThat(info).containsExactly(
+        "operation=HeadObject count=1 ApiCallDuration[count=1 mean=1.000ms max=1.000ms]",
+        "operation=PutObject count=4 ApiCallDuration[count=4 mean=25.000ms max=40.000ms]");
+    assertThat(appender.list.stream().filter(event -> event.getLevel() == Level.WARN))
+        .map(ILoggingEvent::getFormattedMessage)
+        .containsExactly("dropped 2 metric collections (total 2), queue capacity 4");
+  }
+
+  private static MetricCollection apiCall(final String operation, final long millis) {
+    MetricCollector collector = MetricCollector.create("ApiCall");
+    collector.reportMetric(CoreMetric.OPERATION_NAME, operation);
+    collector.reportMetric(CoreMetric.API_CALL_DURATION, Duration.ofMillis(millis));
+    return collector.collect();
+  }
+
+  /**
+   *  Holds the drain thread on its first read until released.
+   */
+  private static final class BlockingCollection implements MetricCollection {
+    private final MetricCollection delegate;
+    private final CountDownLatch taken = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    BlockingCollection(final MetricCollection delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Iterator<MetricRecord<?>> iterator() {
+      taken.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return delegate.iterator();
+    }
+
+    @Override
+    public String name() {
+      return delegate.name();
+    }
+
+    @Override
+    public <T> List<T> metricValues(final SdkMetric<T> metric) {
+      return delegate.metricValues(metric);
+    }
+
+    @Override
+    public List<MetricCollection> children() {
+      return delegate.children();
+    }
+
+    @Override
+    public Instant creationTime() {
+      return delegate.creationTime();
+    }
+  }
+}
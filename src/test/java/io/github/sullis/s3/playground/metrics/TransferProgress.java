@@ -0,0 +1,234 @@
+package io.github.sullis.s3.playground.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.jspecify.annotations.Nullable;
+import software.amazon.awssdk.transfer.s3.progress.LoggingTransferListener;
+import software.amazon.awssdk.transfer.s3.progress.TransferListener;
+
+
+/**
+ *  Aggregates transfer manager progress across many concurrent transfers, as a quiet alternative to
+ *  {@link LoggingTransferListener}.
+ *
+ *  Add a fresh {@link #newListener()} to each transfer. On the I/O thread a progress event only updates
+ *  that transfer's high-water mark and adds the growth to striped {@link LongAdder} totals: no locks,
+ *  no logging, no allocation. A background thread samples the total every {@code sampleInterval}
+ *  for the instantaneous rate and an exponentially weighted moving average over {@code averagingWindow}.
+ *
+ *  {@link #bindTo(MeterRegistry)} publishes the totals and rates to Micrometer as {@code s3.transfer.*}
+ *  meters; gauges read the last sample and never touch the counters' stripes.
+ */
+public class TransferProgress
+    implements MeterBinder, AutoCloseable {
+  static final String METER_NAME_PREFIX = "s3.transfer.";
+
+  private final LongAdder bytes = new LongAdder();
+  private final LongAdder active = new LongAdder();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final long sampleIntervalNanos;
+  private final long averagingWindowNanos;
+  private final Thread samplerThread;
+  private volatile double throughput;
+  private volatile double averageThroughput;
+  private volatile boolean closed;
+
+  public TransferProgress() {
+    this(Duration.ofSeconds(1), Duration.ofSeconds(30));
+  }
+
+  public TransferProgress(final Duration sampleInterval, final Duration averagingWindow) {
+    this.sampleIntervalNanos = sampleInterval.toNanos();
+    this.averagingWindowNanos = averagingWindow.toNanos();
+    this.samplerThread = Thread.ofPlatform()
+        .name("transfer-progress-sampler")
+        .daemon(true)
+        .start(this::sample);
+  }
+
+  /**
+   *  A listener for one transfer. Resuming that transfer with the same listener only counts the bytes
+   *  beyond what it had already reported.
+   */
+  public Transfer newListener() {
+    return new Transfer();
+  }
+
+  public long bytesTransferred() {
+    return bytes.sum();
+  }
+
+  public long activeTransfers() {
+    return active.sum();
+  }
+
+  public long completedTransfers() {
+    return completed.sum();
+  }
+
+  public long failedTransfers() {
+    return failed.sum();
+  }
+
+  /**
+   *  Bytes per second over the last sample interval.
+   */
+  public double throughput() {
+    return throughput;
+  }
+
+  /**
+   *  Bytes per second, exponentially weighted over the averaging window.
+   */
+  public double averageThroughput() {
+    return averageThroughput;
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    FunctionCounter.builder(METER_NAME_PREFIX + "bytes", bytes, LongAdder::sum)
+        .baseUnit("bytes")
+        .register(registry);
+    FunctionCounter.builder(METER_NAME_PREFIX + "completed", completed, LongAdder::sum).register(registry);
+    FunctionCounter.builder(METER_NAME_PREFIX + "failed", failed, LongAdder::sum).register(registry);
+    Gauge.builder(METER_NAME_PREFIX + "active", active, LongAdder::sum).register(registry);
+    Gauge.builder(METER_NAME_PREFIX + "throughput", this, TransferProgress::throughput)
+        .baseUnit("bytes")
+        .description("bytes per second over the last sample interval")
+        .register(registry);
+    Gauge.builder(METER_NAME_PREFIX + "throughput.average", this, TransferProgress::averageThroughput)
+        .baseUnit("bytes")
+        .description("bytes per second, exponentially weighted moving average")
+        .register(registry);
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    LockSupport.unpark(samplerThread);
+    try {
+      samplerThread.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void sample() {
+    long lastBytes = bytes.sum();
+    long lastSample = System.nanoTime();
+    long nextSample = lastSample + sampleIntervalNanos;
+    while (!closed) {
+      final long now = System.nanoTime();
+      if (now - nextSample < 0) {
+        LockSupport.parkNanos(nextSample - now);
+        continue;
+      }
+      final long currentBytes = bytes.sum();
+      final long elapsed = now - lastSample;
+      final double rate = (currentBytes - lastBytes) * 1e9 / elapsed;
+      final double weight = 1 - Math.exp(-(double) elapsed / averagingWindowNanos);
+      throughput = rate;
+      averageThroughput += weight * (rate - averageThroughput);
+      lastBytes = currentBytes;
+      lastSample = now;
+      nextSample = now + sampleIntervalNanos;
+    }
+  }
+
+  /**
+   *  Progress of one transfer. Figures are read from volatile fields, so any thread may poll them.
+   */
+  public final class Transfer implements TransferListener {
+    private final AtomicLong transferredBytes = new AtomicLong();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile long totalBytes = -1;
+    private volatile long initialBytes;
+    private volatile long startNanos;
+
+    private Transfer() { }
+
+    @Override
+    public void transferInitiated(final Context.TransferInitiated context) {
+      // a resumed transfer starts at the bytes already done; they were counted, if at all, before
+      initialBytes = transferredBytes.accumulateAndGet(context.progressSnapshot().transferredBytes(), Math::max);
+      totalBytes = context.progressSnapshot().totalBytes().orElse(-1);
+      startNanos = System.nanoTime();
+      if (running.compareAndSet(false, true)) {
+        active.increment();
+      }
+    }
+
+    @Override
+    public void bytesTransferred(final Context.BytesTransferred context) {
+      final long current = context.progressSnapshot().transferredBytes();
+      final long previous = transferredBytes.getAndAccumulate(current, Math::max);
+      if (current > previous) {
+        bytes.add(current - previous);
+      }
+      if (totalBytes < 0) {
+        totalBytes = context.progressSnapshot().totalBytes().orElse(-1);
+      }
+    }
+
+    @Override
+    public void transferComplete(final Context.TransferComplete context) {
+      bytesTransferred(context);
+      if (running.compareAndSet(true, false)) {
+        active.decrement();
+        completed.increment();
+      }
+    }
+
+    @Override
+    public void transferFailed(final Context.TransferFailed context) {
+      if (running.compareAndSet(true, false)) {
+        active.decrement();
+        failed.increment();
+      }
+    }
+
+    public long bytesTransferred() {
+      return transferredBytes.get();
+    }
+
+    /**
+     *  @return -1 until the size is known
+     */
+    public long totalBytes() {
+      return totalBytes;
+    }
+
+    /**
+     *  Remaining bytes at this transfer's average rate since it was initiated.
+     *
+     *  @return null while the size or the rate is unknown
+     */
+    public @Nullable Duration eta() {
+      final long total = totalBytes;
+      final long transferred = transferredBytes.get();
+      if (total < 0) {
+        return null;
+      }
+      if (transferred >= total) {
+        return Duration.ZERO;
+      }
+      final long moved = transferred - initialBytes;
+      final long elapsed = System.nanoTime() - startNanos;
+      if (moved <= 0 || startNanos == 0) {
+        return null;
+      }
+      return Duration.ofNanos((long) ((double) (total - transferred) * elapsed / moved));
+    }
+  }
+}
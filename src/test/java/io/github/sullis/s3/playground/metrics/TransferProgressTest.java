@@ -0,0 +1,70 @@
+package io.github.sullis.s3.playground.metrics;
+
+import io.github.sullis.s3.playground.InProcessS3Extension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+@ExtendWith(InProcessS3Extension.class)
+public class TransferProgressTest {
+  private static final int TRANSFERS = 16;
+  private static final int OBJECT_SIZE = 1024 * 1024;
+
+  @Test
+  void aggregatesConcurrentTransfers(final S3AsyncClient s3Client) throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    try (TransferProgress progress = new TransferProgress(Duration.ofMillis(10), Duration.ofMillis(100));
+         S3TransferManager transferManager = S3TransferManager.builder().s3Client(s3Client).build()) {
+      progress.bindTo(registry);
+      s3Client.createBucket(request -> request.bucket("progress")).join();
+
+      List<TransferProgress.Transfer> listeners = new ArrayList<>();
+      List<CompletableFuture<?>> uploads = new ArrayList<>();
+      for (int i = 0; i < TRANSFERS; i++) {
+        final String key = "key-" + i;
+        final TransferProgress.Transfer listener = progress.newListener();
+        listeners.add(listener);
+        uploads.add(transferManager.upload(upload -> upload
+            .putObjectRequest(put -> put.bucket("progress").key(key))
+            .requestBody(AsyncRequestBody.fromBytes(new byte[OBJECT_SIZE]))
+            .addTransferListener(listener)).completionFuture());
+      }
+      CompletableFuture.allOf(uploads.toArray(new CompletableFuture<?>[0])).join();
+
+      final TransferProgress.Transfer missingBucket = progress.newListener();
+      assertThatThrownBy(() -> transferManager.upload(upload -> upload
+          .putObjectRequest(put -> put.bucket("missing").key("key"))
+          .requestBody(AsyncRequestBody.fromBytes(new byte[OBJECT_SIZE]))
+          .addTransferListener(missingBucket)).completionFuture().join());
+
+      assertThat(progress.bytesTransferred()).isEqualTo((long) TRANSFERS * OBJECT_SIZE);
+      assertThat(progress.completedTransfers()).isEqualTo(TRANSFERS);
+      assertThat(progress.failedTransfers()).isEqualTo(1);
+      assertThat(progress.activeTransfers()).isZero();
+      assertThat(listeners).allSatisfy(listener -> {
+        assertThat(listener.bytesTransferred()).isEqualTo(OBJECT_SIZE);
+        assertThat(listener.totalBytes()).isEqualTo(OBJECT_SIZE);
+        assertThat(listener.eta()).isEqualTo(Duration.ZERO);
+      });
+
+      assertThat(registry.get("s3.transfer.bytes").functionCounter().count())
+          .isEqualTo((double) TRANSFERS * OBJECT_SIZE);
+      assertThat(registry.get("s3.transfer.completed").functionCounter().count()).isEqualTo(TRANSFERS);
+      assertThat(registry.get("s3.transfer.active").gauge().value()).isZero();
+
+      Thread.sleep(50);
+      assertThat(progress.averageThroughput()).isPositive();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package io.github.sullis.s3.playground.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ *  Decodes an aws-chunked request body.
+ *
+ *  The SDK uses this framing for streaming uploads with trailing checksums:
+ *  {@code <hex-size>[;chunk-signature=...]\r\n<data>\r\n ... 0\r\n<trailers>\r\n}.
+ *  Chunk signatures and trailers are skipped.
+ *
+ *  https://docs.aws.amazon.com/AmazonS3/latest/API/sigv4-streaming.html
+ */
+final class AwsChunkedInputStream extends InputStream {
+  private final InputStream in;
+  private long remainingInChunk = 0;
+  private boolean eof = false;
+
+  AwsChunkedInputStream(final InputStream in) {
+    this.in = in;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    int n = read(b, 0, 1);
+    return (n < 0) ? -1 : (b[0] & 0xFF);
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (remainingInChunk == 0) {
+      if (eof) {
+        return -1;
+      }
+      readChunkHeader();
+      if (eof) {
+        return -1;
+      }
+    }
+    int n = in.read(b, off, (int) Math.min(len, remainingInChunk));
+    if (n < 0) {
+      throw new EOFException("aws-chunked body ended inside a chunk");
+    }
+    remainingInChunk -= n;
+    if (remainingInChunk == 0) {
+      readLine();
+    }
+    return n;
+  }
+
+  private void readChunkHeader() throws IOException {
+    String header = readLine();
+    if (header == null) {
+      throw new EOFException("aws-chunked body ended before the final chunk");
+    }
+    int semicolon = header.indexOf(';');
+    String hexSize = (semicolon < 0) ? header : header.substring(0, semicolon);
+    long chunkSize = Long.parseLong(hexSize.trim(), 16);
+    if (chunkSize == 0) {
+      // trailing headers (e.g. x-amz-checksum-crc32) end with an empty line
+      String trailer = readLine();
+      while (trailer != null && !trailer.isEmpty()) {
+        trailer = readLine();
+      }
+      eof = true;
+    } else {
+      remainingInChunk = chunkSize;
+    }
+  }
+
+  private @Nullable String readLine() throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+    int c;
+    while ((c = in.read()) >= 0) {
+      if (c == '\n') {
+        return line.toString(StandardCharsets.US_ASCII);
+      }
+      if (c != '\r') {
+        line.write(c);
+      }
+    }
+    return (line.size() == 0) ? null : line.toString(StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,87 @@
+package io.github.sullis.s3.playground.server;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Duration;
+
+
+/**
+ *  Paces one stream to a fixed byte rate by sleeping whenever it gets ahead of schedule.
+ *  Writes and reads are split into small chunks so the rate holds within a single large buffer.
+ */
+final class BandwidthThrottle {
+  private static final int CHUNK_SIZE = 16 * 1024;
+
+  private final long bytesPerSecond;
+  private final long startNanos = System.nanoTime();
+  private long bytes;
+
+  private BandwidthThrottle(final long bytesPerSecond) {
+    this.bytesPerSecond = bytesPerSecond;
+  }
+
+  static InputStream throttle(final InputStream in, final long bytesPerSecond) {
+    final BandwidthThrottle throttle = new BandwidthThrottle(bytesPerSecond);
+    return new FilterInputStream(in) {
+      @Override
+      public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+          throttle.pace(1);
+        }
+        return b;
+      }
+
+      @Override
+      public int read(final byte[] b, final int off, final int len) throws IOException {
+        int n = super.read(b, off, Math.min(len, CHUNK_SIZE));
+        if (n > 0) {
+          throttle.pace(n);
+        }
+        return n;
+      }
+    };
+  }
+
+  static OutputStream throttle(final OutputStream out, final long bytesPerSecond) {
+    final BandwidthThrottle throttle = new BandwidthThrottle(bytesPerSecond);
+    return new FilterOutputStream(out) {
+      @Override
+      public void write(final int b) throws IOException {
+        out.write(b);
+        throttle.pace(1);
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+        for (int position = off; position < off + len; position += CHUNK_SIZE) {
+          int n = Math.min(CHUNK_SIZE, off + len - position);
+          out.write(b, position, n);
+          throttle.pace(n);
+        }
+      }
+    };
+  }
+
+  private void pace(final int count) throws IOException {
+    bytes += count;
+    final long dueNanos = startNanos + (long) (bytes * 1e9 / bytesPerSecond);
+    final long aheadNanos = dueNanos - System.nanoTime();
+    if (aheadNanos > 0) {
+      sleep(aheadNanos);
+    }
+  }
+
+  static void sleep(final long nanos) throws IOException {
+    try {
+      Thread.sleep(Duration.ofNanos(nanos));
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted during injected delay");
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package io.github.sullis.s3.playground.server;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ *  Counts body bytes as they pass. Large writes are split so a connection dropped part way through
+ *  a response counts roughly what was sent, not the whole buffer or nothing.
+ */
+final class ByteCounting {
+  private static final int CHUNK_SIZE = 1024 * 1024;
+
+  private ByteCounting() { }
+
+  static InputStream count(final InputStream in, final LongAdder counter) {
+    return new FilterInputStream(in) {
+      @Override
+      public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+          counter.increment();
+        }
+        return b;
+      }
+
+      @Override
+      public int read(final byte[] b, final int off, final int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+          counter.add(n);
+        }
+        return n;
+      }
+    };
+  }
+
+  static OutputStream count(final OutputStream out, final LongAdder counter) {
+    return new FilterOutputStream(out) {
+      @Override
+      public void write(final int b) throws IOException {
+        out.write(b);
+        counter.increment();
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+        for (int position = off; position < off + len; position += CHUNK_SIZE) {
+          int n = Math.min(CHUNK_SIZE, off + len - position);
+          out.write(b, position, n);
+          counter.add(n);
+        }
+      }
+    };
+  }
+}
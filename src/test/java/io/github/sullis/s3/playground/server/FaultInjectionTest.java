@@ -0,0 +1,87 @@
+package io.github.sullis.s3.playground.server;
+
+import io.github.sullis.s3.playground.InProcessS3Extension;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class FaultInjectionTest {
+  private static final String BUCKET = "faults";
+  private static final int OBJECT_SIZE = 512 * 1024;
+
+  // no retries, so every injected fault reaches the caller
+  @RegisterExtension
+  static final InProcessS3Extension S3 = new InProcessS3Extension()
+      .withSyncClient(objectStorage -> (S3Client) objectStorage.configure(S3Client.builder()
+          .httpClientBuilder(ApacheHttpClient.builder())
+          .overrideConfiguration(override -> override.retryStrategy(AwsRetryStrategy.doNotRetry())))
+          .build());
+
+  @BeforeAll
+  void createBucket(final S3Client s3Client) {
+    s3Client.createBucket(request -> request.bucket(BUCKET));
+    s3Client.putObject(request -> request.bucket(BUCKET).key("key"), RequestBody.fromBytes(new byte[OBJECT_SIZE]));
+  }
+
+  @AfterEach
+  void resetFaults(final InProcessS3Server server) {
+    server.injectFaults(FaultProfile.NONE);
+  }
+
+  @Test
+  void latencyPerOperation(final InProcessS3Server server, final S3Client s3Client) {
+    server.injectFaults(FaultProfile.NONE
+        .withLatency("HeadObject", LatencyDistribution.fixed(Duration.ofMillis(300))));
+    long start = System.nanoTime();
+    s3Client.headObject(request -> request.bucket(BUCKET).key("key"));
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(300));
+  }
+
+  @Test
+  void slowDown(final InProcessS3Server server, final S3Client s3Client) {
+    server.injectFaults(FaultProfile.NONE.withSlowDownRate(1.0));
+    assertThatThrownBy(() -> s3Client.headObject(request -> request.bucket(BUCKET).key("key")))
+        .isInstanceOfSatisfying(S3Exception.class, ex -> assertThat(ex.statusCode()).isEqualTo(503));
+    assertThatThrownBy(() -> s3Client.putObject(request -> request.bucket(BUCKET).key("key"),
+        RequestBody.fromString("value")))
+        .isInstanceOfSatisfying(S3Exception.class,
+            ex -> assertThat(ex.awsErrorDetails().errorCode()).isEqualTo("SlowDown"));
+  }
+
+  @Test
+  void bandwidth(final InProcessS3Server server, final S3Client s3Client) {
+    server.injectFaults(FaultProfile.NONE.withBytesPerSecond(1024 * 1024));
+    long start = System.nanoTime();
+    byte[] content = s3Client.getObject(request -> request.bucket(BUCKET).key("key"),
+        ResponseTransformer.toBytes()).asByteArrayUnsafe();
+    assertThat(content).hasSize(OBJECT_SIZE);
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(450));
+  }
+
+  @Test
+  void connectionResetMidBody(final InProcessS3Server server, final S3Client s3Client) {
+    server.injectFaults(FaultProfile.NONE.withConnectionResetRate(1.0));
+    assertThatThrownBy(() -> s3Client.getObject(request -> request.bucket(BUCKET).key("key"),
+        ResponseTransformer.toBytes()))
+        .isInstanceOf(SdkClientException.class);
+
+    server.injectFaults(FaultProfile.NONE);
+    assertThat(s3Client.getObject(request -> request.bucket(BUCKET).key("key"),
+        ResponseTransformer.toBytes()).asByteArrayUnsafe()).hasSize(OBJECT_SIZE);
+  }
+}
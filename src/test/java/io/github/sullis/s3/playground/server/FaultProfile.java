@@ -0,0 +1,63 @@
+package io.github.sullis.s3.playground.server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ *  Misbehavior injected by {@link InProcessS3Server#injectFaults}, so retry strategies, timeouts and tail
+ *  latency can be measured against an endpoint that is not ideal.
+ *
+ *  Per request, in order: the latency for its operation is slept before the request is processed; a
+ *  {@code slowDownRate} fraction of requests is rejected with 503 SlowDown; request and response bodies
+ *  are paced to {@code bytesPerSecond}; and a {@code connectionResetRate} fraction of GetObject responses
+ *  is cut off part-way through the body by closing the connection.
+ *
+ *  @param latency by S3 operation name, e.g. {@code GetObject}, {@code PutObject}, {@code UploadPart};
+ *                 other operations use {@code defaultLatency}
+ *  @param bytesPerSecond bandwidth of each request and response body; zero means unlimited
+ */
+public record FaultProfile(LatencyDistribution defaultLatency,
+    Map<String, LatencyDistribution> latency,
+    long bytesPerSecond,
+    double slowDownRate,
+    double connectionResetRate) {
+
+  public static final FaultProfile NONE = new FaultProfile(LatencyDistribution.NONE, Map.of(), 0, 0, 0);
+
+  public FaultProfile {
+    latency = Map.copyOf(latency);
+    if (bytesPerSecond < 0) {
+      throw new IllegalArgumentException("bytesPerSecond must not be negative: " + bytesPerSecond);
+    }
+    if (slowDownRate < 0 || slowDownRate > 1 || connectionResetRate < 0 || connectionResetRate > 1) {
+      throw new IllegalArgumentException("rates must be between 0 and 1: " + slowDownRate + ", " + connectionResetRate);
+    }
+  }
+
+  public LatencyDistribution latency(final String operation) {
+    return latency.getOrDefault(operation, defaultLatency);
+  }
+
+  public FaultProfile withDefaultLatency(final LatencyDistribution distribution) {
+    return new FaultProfile(distribution, latency, bytesPerSecond, slowDownRate, connectionResetRate);
+  }
+
+  public FaultProfile withLatency(final String operation, final LatencyDistribution distribution) {
+    Map<String, LatencyDistribution> copy = new HashMap<>(latency);
+    copy.put(operation, distribution);
+    return new FaultProfile(defaultLatency, copy, bytesPerSecond, slowDownRate, connectionResetRate);
+  }
+
+  public FaultProfile withBytesPerSecond(final long bytesPerSecond) {
+    return new FaultProfile(defaultLatency, latency, bytesPerSecond, slowDownRate, connectionResetRate);
+  }
+
+  public FaultProfile withSlowDownRate(final double slowDownRate) {
+    return new FaultProfile(defaultLatency, latency, bytesPerSecond, slowDownRate, connectionResetRate);
+  }
+
+  public FaultProfile withConnectionResetRate(final double connectionResetRate) {
+    return new FaultProfile(defaultLatency, latency, bytesPerSecond, slowDownRate, connectionResetRate);
+  }
+}
@@ -0,0 +1,192 @@
+package io.github.sullis.s3.playground.server;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ *  Bucket state for {@link InProcessS3Server}. Keys are kept sorted so listing is a range scan.
+ */
+final class InMemoryBucket {
+  private final String name;
+  private final Instant creationDate;
+  private final ConcurrentNavigableMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+  private final ConcurrentMap<String, MultipartUpload> uploads = new ConcurrentHashMap<>();
+  private volatile @Nullable String lifecycleConfiguration;
+
+  InMemoryBucket(final String name) {
+    this.name = name;
+    this.creationDate = Instant.now();
+  }
+
+  String name() {
+    return name;
+  }
+
+  Instant creationDate() {
+    return creationDate;
+  }
+
+  @Nullable StoredObject get(final String key) {
+    return objects.get(key);
+  }
+
+  void put(final StoredObject object) {
+    objects.put(object.key(), object);
+  }
+
+  /**
+   *  Stores {@code object} only if {@code precondition} accepts the object currently under its key
+   *  ({@code null} when there is none). Check and write are one atomic step: if another writer gets in
+   *  between, the precondition is evaluated again against the new object.
+   *
+   *  @return false if the precondition did not hold
+   */
+  boolean putIf(final StoredObject object, final Predicate<@Nullable StoredObject> precondition) {
+    while (true) {
+      final StoredObject current = objects.get(object.key());
+      if (!precondition.test(current)) {
+        return false;
+      }
+      final boolean written = (current == null)
+          ? objects.putIfAbsent(object.key(), object) == null
+          : objects.replace(object.key(), current, object);
+      if (written) {
+        return true;
+      }
+    }
+  }
+
+  @Nullable StoredObject remove(final String key) {
+    return objects.remove(key);
+  }
+
+  boolean isEmpty() {
+    return objects.isEmpty() && uploads.isEmpty();
+  }
+
+  @Nullable String lifecycleConfiguration() {
+    return lifecycleConfiguration;
+  }
+
+  void lifecycleConfiguration(@Nullable final String lifecycleConfiguration) {
+    this.lifecycleConfiguration = lifecycleConfiguration;
+  }
+
+  MultipartUpload createMultipartUpload(final String key,
+      @Nullable final String contentType,
+      final Map<String, String> userMetadata,
+      @Nullable final String storageClass) {
+    MultipartUpload upload = new MultipartUpload(UUID.randomUUID().toString(), key, contentType,
+        userMetadata, storageClass, Instant.now(), new ConcurrentSkipListMap<>());
+    uploads.put(upload.uploadId(), upload);
+    return upload;
+  }
+
+  @Nullable MultipartUpload multipartUpload(final String uploadId) {
+    return uploads.get(uploadId);
+  }
+
+  @Nullable MultipartUpload removeMultipartUpload(final String uploadId) {
+    return uploads.remove(uploadId);
+  }
+
+  /**
+   *  In-progress uploads whose key starts with {@code prefix}, ordered by key and then upload id.
+   */
+  List<MultipartUpload> multipartUploads(final String prefix) {
+    return uploads.values().stream()
+        .filter(upload -> upload.key().startsWith(prefix))
+        .sorted(Comparator.comparing(MultipartUpload::key).thenComparing(MultipartUpload::uploadId))
+        .toList();
+  }
+
+  /**
+   *  @param startAfter list keys after this key (exclusive); a common prefix here
+   *                    skips every key rolled up into it
+   */
+  ListResult list(final String prefix,
+      @Nullable final String delimiter,
+      @Nullable final String startAfter,
+      final int maxKeys) {
+    List<StoredObject> contents = new ArrayList<>();
+    List<String> commonPrefixes = new ArrayList<>();
+    String lastCommonPrefix = null;
+    String last = null;
+    boolean truncated = false;
+
+    Map.Entry<String, StoredObject> entry = (startAfter != null && startAfter.compareTo(prefix) >= 0)
+        ? objects.higherEntry(startAfter)
+        : objects.ceilingEntry(prefix);
+    while (entry != null) {
+      final String key = entry.getKey();
+      if (!key.startsWith(prefix)) {
+        break;
+      }
+      String commonPrefix = null;
+      if (delimiter != null && !delimiter.isEmpty()) {
+        int index = key.indexOf(delimiter, prefix.length());
+        if (index >= 0) {
+          commonPrefix = key.substring(0, index + delimiter.length());
+        }
+      }
+      if (commonPrefix != null) {
+        if (!commonPrefix.equals(lastCommonPrefix) && !commonPrefix.equals(startAfter)) {
+          if (contents.size() + commonPrefixes.size() >= maxKeys) {
+            truncated = true;
+            break;
+          }
+          commonPrefixes.add(commonPrefix);
+          lastCommonPrefix = commonPrefix;
+          last = commonPrefix;
+        }
+        // jump over the remaining keys under this common prefix
+        Map.Entry<String, StoredObject> next = objects.ceilingEntry(commonPrefix + Character.MAX_VALUE);
+        entry = (next != null && next.getKey().compareTo(key) > 0) ? next : objects.higherEntry(key);
+      } else {
+        if (contents.size() + commonPrefixes.size() >= maxKeys) {
+          truncated = true;
+          break;
+        }
+        contents.add(entry.getValue());
+        last = key;
+        entry = objects.higherEntry(key);
+      }
+    }
+    return new ListResult(contents, commonPrefixes, truncated ? last : null);
+  }
+
+  /**
+   *  @param nextStartAfter non-null when the listing is truncated
+   */
+  record ListResult(List<StoredObject> contents,
+                    List<String> commonPrefixes,
+                    @Nullable String nextStartAfter) {
+    boolean isTruncated() {
+      return nextStartAfter != null;
+    }
+  }
+
+  record MultipartUpload(String uploadId,
+                         String key,
+                         @Nullable String contentType,
+                         Map<String, String> userMetadata,
+                         @Nullable String storageClass,
+                         Instant initiated,
+                         ConcurrentNavigableMap<Integer, Part> parts) { }
+
+  /**
+   *  @param eTag unquoted ETag
+   */
+  record Part(int partNumber, ObjectContent content, String eTag, Instant lastModified) { }
+}
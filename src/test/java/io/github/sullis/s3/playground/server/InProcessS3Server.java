@@ -0,0 +1,1016 @@
+package io.github.sullis.s3.playground.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.random.RandomGenerator;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+
+/**
+ *  S3 stand-in that runs inside the JVM on top of the JDK HTTP server.
+ *
+ *  Implements the subset of the S3 API used by the test kits and the benchmarks:
+ *  buckets, put/get/head/delete object (including by part number), DeleteObjects, ListObjectsV2,
+ *  multipart upload, ListParts, ListMultipartUploads, conditional writes ({@code If-Match} /
+ *  {@code If-None-Match: *}) and bucket lifecycle configuration, which is stored and returned but never applied.
+ *  Requests must use path-style addressing, which the SDK does for an IP address endpoint.
+ *  Authentication is not checked.
+ *
+ *  Object content is held on the Java heap, or with {@link Storage#MAPPED} in memory-mapped temp files,
+ *  which keeps multi-GiB objects out of the heap and away from the garbage collector.
+ *
+ *  {@link #injectFaults} makes the server slow or unreliable on purpose; see {@link FaultProfile}.
+ */
+public class InProcessS3Server implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(InProcessS3Server.class);
+
+  private static final DateTimeFormatter HTTP_DATE =
+      DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+  private static final String DEFAULT_CONTENT_TYPE = "binary/octet-stream";
+  private static final String USER_METADATA_PREFIX = "x-amz-meta-";
+  private static final int MAX_KEYS = 1000;
+
+  public enum Storage { HEAP, MAPPED }
+
+  private final HttpServer httpServer;
+  private final ExecutorService executor;
+  private final @Nullable Path mappedDirectory;
+  private final ConcurrentMap<String, InMemoryBucket> buckets = new ConcurrentHashMap<>();
+  private volatile FaultProfile faultProfile = FaultProfile.NONE;
+  private final LongAdder bytesReceived = new LongAdder();
+  private final LongAdder bytesSent = new LongAdder();
+
+  private InProcessS3Server(final HttpServer httpServer,
+      final ExecutorService executor,
+      @Nullable final Path mappedDirectory) {
+    this.httpServer = httpServer;
+    this.executor = executor;
+    this.mappedDirectory = mappedDirectory;
+  }
+
+  /**
+   *  Starts a server on an ephemeral loopback port that keeps object content on the heap.
+   */
+  public static InProcessS3Server start() throws IOException {
+    return start(Storage.HEAP);
+  }
+
+  public static InProcessS3Server start(final Storage storage) throws IOException {
+    // read once when the JDK server classes initialize; without it Nagle's algorithm
+    // adds ~40 ms to every response whose headers and body are written separately
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+    HttpServer httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    // platform threads: the JDK server reads request bodies inside synchronized methods, which pins a
+    // virtual thread to its carrier and can starve virtual-thread clients running in the same JVM
+    ExecutorService executor = Executors.newCachedThreadPool(
+        Thread.ofPlatform().name("s3-server-", 0).daemon(true).factory());
+    Path mappedDirectory = (storage == Storage.MAPPED) ? Files.createTempDirectory("s3-in-process-") : null;
+    InProcessS3Server server = new InProcessS3Server(httpServer, executor, mappedDirectory);
+    httpServer.createContext("/", server::handle);
+    httpServer.setExecutor(executor);
+    httpServer.start();
+    logger.info("InProcessS3Server started: {} storage={}", server.endpoint(), storage);
+    return server;
+  }
+
+  /**
+   *  Applies to requests that arrive from now on; {@link FaultProfile#NONE} turns injection off.
+   */
+  public void injectFaults(final FaultProfile faultProfile) {
+    this.faultProfile = faultProfile;
+  }
+
+  /**
+   *  Request body bytes read since the server started. Unlike client progress, this is only what
+   *  actually crossed the connection, so a resumed transfer that skips completed parts does not count them.
+   */
+  public long bytesReceived() {
+    return bytesReceived.sum();
+  }
+
+  /**
+   *  Response body bytes written since the server started, including bodies cut short by the client.
+   */
+  public long bytesSent() {
+    return bytesSent.sum();
+  }
+
+  public URI endpoint() {
+    return URI.create("http://127.0.0.1:" + httpServer.getAddress().getPort());
+  }
+
+  @Override
+  public void close() {
+    httpServer.stop(0);
+    executor.close();
+    if (mappedDirectory != null) {
+      try {
+        Files.deleteIfExists(mappedDirectory);
+      } catch (IOException ex) {
+        logger.debug("could not delete {}", mappedDirectory, ex);
+      }
+    }
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    try (exchange) {
+      exchange.getResponseHeaders().set("x-amz-request-id", UUID.randomUUID().toString());
+      try {
+        dispatch(exchange);
+      } catch (S3Error error) {
+        sendError(exchange, error);
+      } catch (InjectedConnectionReset reset) {
+        // an exception out of the handler makes the JDK server drop the connection
+        throw reset;
+      } catch (RuntimeException | IOException ex) {
+        logger.warn("{} {} failed", exchange.getRequestMethod(), exchange.getRequestURI(), ex);
+        if (exchange.getResponseCode() < 0) {
+          sendError(exchange, new S3Error(500, "InternalError", String.valueOf(ex.getMessage())));
+        }
+      }
+    }
+  }
+
+  private void dispatch(final HttpExchange exchange) throws IOException {
+    final String method = exchange.getRequestMethod();
+    final String rawPath = exchange.getRequestURI().getRawPath();
+    final Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    final String path = rawPath.startsWith("/") ? rawPath.substring(1) : rawPath;
+    final int slash = path.indexOf('/');
+    final String bucketName = decode((slash < 0) ? path : path.substring(0, slash));
+    final String key = (slash < 0) ? "" : decode(path.substring(slash + 1));
+    exchange.setStreams(ByteCounting.count(exchange.getRequestBody(), bytesReceived),
+        ByteCounting.count(exchange.getResponseBody(), bytesSent));
+    final double resetFraction = injectFaults(exchange,
+        operationName(method, bucketName, key, query, exchange.getRequestHeaders()));
+
+    if (bucketName.isEmpty()) {
+      if ("GET".equals(method)) {
+        listBuckets(exchange, query.getOrDefault("prefix", ""));
+        return;
+      }
+      throw notImplemented(method, rawPath);
+    }
+    if (key.isEmpty()) {
+      bucketOperation(exchange, method, bucketName, query);
+    } else {
+      objectOperation(exchange, method, bucket(bucketName), key, query, resetFraction);
+    }
+  }
+
+  /**
+   *  Sleeps the injected latency and may reject the request with SlowDown or throttle its streams.
+   *
+   *  @return fraction of a GetObject body to send before dropping the connection; negative for no reset
+   */
+  private double injectFaults(final HttpExchange exchange, final String operation) throws IOException {
+    final FaultProfile profile = faultProfile;
+    if (profile == FaultProfile.NONE) {
+      return -1;
+    }
+    final RandomGenerator random = ThreadLocalRandom.current();
+    final long latencyNanos = profile.latency(operation).sampleNanos(random);
+    if (latencyNanos > 0) {
+      BandwidthThrottle.sleep(latencyNanos);
+    }
+    if (random.nextDouble() < profile.slowDownRate()) {
+      throw new S3Error(503, "SlowDown", "Please reduce your request rate.");
+    }
+    if (profile.bytesPerSecond() > 0) {
+      exchange.setStreams(
+          BandwidthThrottle.throttle(exchange.getRequestBody(), profile.bytesPerSecond()),
+          BandwidthThrottle.throttle(exchange.getResponseBody(), profile.bytesPerSecond()));
+    }
+    return ("GetObject".equals(operation) && random.nextDouble() < profile.connectionResetRate())
+        ? random.nextDouble()
+        : -1;
+  }
+
+  /**
+   *  S3 API name of a request, as used for {@link FaultProfile#latency(String)}.
+   */
+  private static String operationName(final String method,
+      final String bucketName,
+      final String key,
+      final Map<String, String> query,
+      final Headers headers) {
+    if (bucketName.isEmpty()) {
+      return "ListBuckets";
+    }
+    if (key.isEmpty()) {
+      final boolean lifecycle = query.containsKey("lifecycle");
+      return switch (method) {
+        case "PUT" -> lifecycle ? "PutBucketLifecycleConfiguration" : "CreateBucket";
+        case "HEAD" -> "HeadBucket";
+        case "GET" -> lifecycle ? "GetBucketLifecycleConfiguration"
+            : query.containsKey("uploads") ? "ListMultipartUploads" : "ListObjectsV2";
+        case "DELETE" -> lifecycle ? "DeleteBucketLifecycle" : "DeleteBucket";
+        case "POST" -> "DeleteObjects";
+        default -> method;
+      };
+    }
+    final boolean multipart = query.containsKey("uploadId");
+    return switch (method) {
+      case "PUT" -> multipart ? "UploadPart"
+          : headers.containsKey("x-amz-copy-source") ? "CopyObject" : "PutObject";
+      case "GET" -> multipart ? "ListParts" : "GetObject";
+      case "HEAD" -> "HeadObject";
+      case "DELETE" -> multipart ? "AbortMultipartUpload" : "DeleteObject";
+      case "POST" -> multipart ? "CompleteMultipartUpload" : "CreateMultipartUpload";
+      default -> method;
+    };
+  }
+
+  private void bucketOperation(final HttpExchange exchange,
+      final String method,
+      final String bucketName,
+      final Map<String, String> query) throws IOException {
+    switch (method) {
+      case "PUT" -> {
+        if (query.containsKey("lifecycle")) {
+          putBucketLifecycle(exchange, bucket(bucketName));
+        } else {
+          createBucket(exchange, bucketName);
+        }
+      }
+      case "HEAD" -> {
+        bucket(bucketName);
+        exchange.getResponseHeaders().set("x-amz-bucket-region", "us-east-1");
+        exchange.sendResponseHeaders(200, -1);
+      }
+      case "GET" -> {
+        InMemoryBucket bucket = bucket(bucketName);
+        if (query.containsKey("lifecycle")) {
+          getBucketLifecycle(exchange, bucket);
+        } else if ("2".equals(query.get("list-type"))) {
+          listObjectsV2(exchange, bucket, query);
+        } else if (query.containsKey("uploads")) {
+          listMultipartUploads(exchange, bucket, query);
+        } else {
+          throw notImplemented(method, exchange.getRequestURI().toString());
+        }
+      }
+      case "DELETE" -> {
+        if (query.containsKey("lifecycle")) {
+          bucket(bucketName).lifecycleConfiguration(null);
+          exchange.sendResponseHeaders(204, -1);
+        } else {
+          deleteBucket(exchange, bucketName);
+        }
+      }
+      case "POST" -> {
+        if (query.containsKey("delete")) {
+          deleteObjects(exchange, bucket(bucketName));
+        } else {
+          throw notImplemented(method, exchange.getRequestURI().toString());
+        }
+      }
+      default -> throw notImplemented(method, exchange.getRequestURI().toString());
+    }
+  }
+
+  private void objectOperation(final HttpExchange exchange,
+      final String method,
+      final InMemoryBucket bucket,
+      final String key,
+      final Map<String, String> query,
+      final double resetFraction) throws IOException {
+    final String uploadId = query.get("uploadId");
+    switch (method) {
+      case "PUT" -> {
+        if (uploadId != null) {
+          uploadPart(exchange, bucket, uploadId, query.get("partNumber"));
+        } else if (exchange.getRequestHeaders().containsKey("x-amz-copy-source")) {
+          throw notImplemented("CopyObject", key);
+        } else {
+          putObject(exchange, bucket, key);
+        }
+      }
+      case "GET" -> {
+        if (uploadId != null) {
+          listParts(exchange, bucket, key, uploadId, query);
+        } else {
+          getObject(exchange, bucket, key, query.get("partNumber"), true, resetFraction);
+        }
+      }
+      case "HEAD" -> getObject(exchange, bucket, key, query.get("partNumber"), false, -1);
+      case "DELETE" -> {
+        if (uploadId != null) {
+          abortMultipartUpload(exchange, bucket, uploadId);
+        } else {
+          bucket.remove(key);
+          exchange.sendResponseHeaders(204, -1);
+        }
+      }
+      case "POST" -> {
+        if (query.containsKey("uploads")) {
+          createMultipartUpload(exchange, bucket, key);
+        } else if (uploadId != null) {
+          completeMultipartUpload(exchange, bucket, key, uploadId);
+        } else {
+          throw notImplemented(method, exchange.getRequestURI().toString());
+        }
+      }
+      default -> throw notImplemented(method, exchange.getRequestURI().toString());
+    }
+  }
+
+  private void listBuckets(final HttpExchange exchange, final String prefix) throws IOException {
+    XmlWriter xml = new XmlWriter().startDocument("ListAllMyBucketsResult")
+        .start("Owner").element("ID", "in-process").element("DisplayName", "in-process").end("Owner")
+        .start("Buckets");
+    buckets.values().stream()
+        .filter(bucket -> bucket.name().startsWith(prefix))
+        .sorted((a, b) -> a.name().compareTo(b.name()))
+        .forEach(bucket -> xml.start("Bucket")
+            .element("Name", bucket.name())
+            .element("CreationDate", isoDate(bucket.creationDate()))
+            .end("Bucket"));
+    xml.end("Buckets").end("ListAllMyBucketsResult");
+    sendXml(exchange, 200, xml);
+  }
+
+  private void createBucket(final HttpExchange exchange, final String bucketName) throws IOException {
+    exchange.getRequestBody().readAllBytes();
+    if (buckets.putIfAbsent(bucketName, new InMemoryBucket(bucketName)) != null) {
+      throw new S3Error(409, "BucketAlreadyOwnedByYou",
+          "Your previous request to create the named bucket succeeded and you already own it.");
+    }
+    exchange.getResponseHeaders().set("Location", "/" + bucketName);
+    exchange.sendResponseHeaders(200, -1);
+  }
+
+  private void deleteBucket(final HttpExchange exchange, final String bucketName) throws IOException {
+    InMemoryBucket bucket = bucket(bucketName);
+    if (!bucket.isEmpty()) {
+      throw new S3Error(409, "BucketNotEmpty", "The bucket you tried to delete is not empty");
+    }
+    buckets.remove(bucketName, bucket);
+    exchange.sendResponseHeaders(204, -1);
+  }
+
+  private void putBucketLifecycle(final HttpExchange exchange, final InMemoryBucket bucket) throws IOException {
+    bucket.lifecycleConfiguration(new String(readBody(exchange).toBytes(), StandardCharsets.UTF_8));
+    exchange.sendResponseHeaders(200, -1);
+  }
+
+  private void getBucketLifecycle(final HttpExchange exchange, final InMemoryBucket bucket) throws IOException {
+    String lifecycleConfiguration = bucket.lifecycleConfiguration();
+    if (lifecycleConfiguration == null) {
+      throw new S3Error(404, "NoSuchLifecycleConfiguration", "The lifecycle configuration does not exist");
+    }
+    byte[] body = lifecycleConfiguration.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/xml");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private void listObjectsV2(final HttpExchange exchange,
+      final InMemoryBucket bucket,
+      final Map<String, String> query) throws IOException {
+    final String prefix = query.getOrDefault("prefix", "");
+    final String delimiter = query.get("delimiter");
+    final String continuationToken = query.get("continuation-token");
+    final String startAfter = query.get("start-after");
+    final boolean urlEncoding = "url".equals(query.get("encoding-type"));
+    final int maxKeys = Math.min(MAX_KEYS, Integer.parseInt(query.getOrDefault("max-keys", String.valueOf(MAX_KEYS))));
+
+    final String listAfter = (continuationToken != null)
+        ? new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8)
+        : startAfter;
+    InMemoryBucket.ListResult result = bucket.list(prefix, delimiter, listAfter, maxKeys);
+
+    XmlWriter xml = new XmlWriter().startDocument("ListBucketResult")
+        .element("Name", bucket.name())
+        .element("Prefix", encodeIf(urlEncoding, prefix))
+        .element("Delimiter", encodeIf(urlEncoding, delimiter))
+        .element("MaxKeys", maxKeys)
+        .element("KeyCount", result.contents().size() + result.commonPrefixes().size())
+        .element("IsTruncated", result.isTruncated())
+        .element("ContinuationToken", continuationToken)
+        .element("StartAfter", encodeIf(urlEncoding, startAfter))
+        .element("EncodingType", urlEncoding ? "url" : null);
+    if (result.isTruncated()) {
+      xml.element("NextContinuationToken",
+          Base64.getUrlEncoder().encodeToString(result.nextStartAfter().getBytes(StandardCharsets.UTF_8)));
+    }
+    for (StoredObject object : result.contents()) {
+      xml.start("Contents")
+          .element("Key", encodeIf(urlEncoding, object.key()))
+          .element("LastModified", isoDate(object.lastModified()))
+          .element("ETag", object.quotedETag())
+          .element("Size", object.size())
+          .element("StorageClass", (object.storageClass() != null) ? object.storageClass() : "STANDARD")
+          .end("Contents");
+    }
+    for (String commonPrefix : result.commonPrefixes()) {
+      xml.start("CommonPrefixes").element("Prefix", encodeIf(urlEncoding, commonPrefix)).end("CommonPrefixes");
+    }
+    xml.end("ListBucketResult");
+    sendXml(exchange, 200, xml);
+  }
+
+  private void listMultipartUploads(final HttpExchange exchange,
+      final InMemoryBucket bucket,
+      final Map<String, String> query) throws IOException {
+    final String prefix = query.getOrDefault("prefix", "");
+    final String keyMarker = query.get("key-marker");
+    final String uploadIdMarker = query.get("upload-id-marker");
+    final int maxUploads =
+        Math.min(MAX_KEYS, Integer.parseInt(query.getOrDefault("max-uploads", String.valueOf(MAX_KEYS))));
+
+    List<InMemoryBucket.MultipartUpload> uploads = bucket.multipartUploads(prefix).stream()
+        .filter(upload -> keyMarker == null
+            || upload.key().compareTo(keyMarker) > 0
+            || (upload.key().equals(keyMarker) && uploadIdMarker != null
+                && upload.uploadId().compareTo(uploadIdMarker) > 0))
+        .toList();
+    final boolean truncated = uploads.size() > maxUploads;
+    if (truncated) {
+      uploads = uploads.subList(0, maxUploads);
+    }
+
+    XmlWriter xml = new XmlWriter().startDocument("ListMultipartUploadsResult")
+        .element("Bucket", bucket.name())
+        .element("KeyMarker", keyMarker)
+        .element("UploadIdMarker", uploadIdMarker)
+        .element("Prefix", prefix)
+        .element("MaxUploads", maxUploads)
+        .element("IsTruncated", truncated);
+    if (truncated) {
+      InMemoryBucket.MultipartUpload last = uploads.get(uploads.size() - 1);
+      xml.element("NextKeyMarker", last.key()).element("NextUploadIdMarker", last.uploadId());
+    }
+    for (InMemoryBucket.MultipartUpload upload : uploads) {
+      xml.start("Upload")
+          .element("Key", upload.key())
+          .element("UploadId", upload.uploadId())
+          .element("Initiated", isoDate(upload.initiated()))
+          .element("StorageClass", (upload.storageClass() != null) ? upload.storageClass() : "STANDARD")
+          .end("Upload");
+    }
+    xml.end("ListMultipartUploadsResult");
+    sendXml(exchange, 200, xml);
+  }
+
+  private void deleteObjects(final HttpExchange exchange, final InMemoryBucket bucket) throws IOException {
+    final Document request = parseXml(readBody(exchange).toBytes());
+    final NodeList objectElements = request.getElementsByTagName("Object");
+    if (objectElements.getLength() > MAX_KEYS) {
+      throw new S3Error(400, "MalformedXML", "The XML you provided was not well-formed.");
+    }
+    final NodeList quietElements = request.getElementsByTagName("Quiet");
+    final boolean quiet = quietElements.getLength() > 0
+        && "true".equalsIgnoreCase(quietElements.item(0).getTextContent().trim());
+
+    XmlWriter xml = new XmlWriter().startDocument("DeleteResult");
+    for (int i = 0; i < objectElements.getLength(); i++) {
+      String key = childText((Element) objectElements.item(i), "Key");
+      if (key == null) {
+        throw new S3Error(400, "MalformedXML", "The XML you provided was not well-formed.");
+      }
+      bucket.remove(key);
+      if (!quiet) {
+        xml.start("Deleted").element("Key", key).end("Deleted");
+      }
+    }
+    xml.end("DeleteResult");
+    sendXml(exchange, 200, xml);
+  }
+
+  private void putObject(final HttpExchange exchange, final InMemoryBucket bucket, final String key)
+      throws IOException {
+    final Headers headers = exchange.getRequestHeaders();
+    final ObjectContent content = readContent(exchange);
+    final StoredObject object = new StoredObject(key, content, content.md5Hex(), List.of(), now(),
+        contentType(headers), userMetadata(headers), headers.getFirst("x-amz-storage-class"));
+    store(bucket, object, headers);
+    exchange.getResponseHeaders().set("ETag", object.quotedETag());
+    exchange.sendResponseHeaders(200, -1);
+  }
+
+  /**
+   *  @param partNumberParameter selects one part of an object created by a multipart upload;
+   *                             part 1 of any other object is the whole object
+   */
+  private void getObject(final HttpExchange exchange,
+      final InMemoryBucket bucket,
+      final String key,
+      @Nullable final String partNumberParameter,
+      final boolean sendContent,
+      final double resetFraction) throws IOException {
+    final StoredObject object = bucket.get(key);
+    if (object == null) {
+      throw new S3Error(404, "NoSuchKey", "The specified key does not exist.");
+    }
+    final Headers requestHeaders = exchange.getRequestHeaders();
+    final String ifMatch = requestHeaders.getFirst("If-Match");
+    if (ifMatch != null && !eTagMatches(ifMatch, object)) {
+      throw preconditionFailed();
+    }
+    final Headers responseHeaders = exchange.getResponseHeaders();
+    responseHeaders.set("ETag", object.quotedETag());
+    responseHeaders.set("Last-Modified", HTTP_DATE.format(object.lastModified()));
+    final String ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+    if (ifNoneMatch != null && eTagMatches(ifNoneMatch, object)) {
+      exchange.sendResponseHeaders(304, -1);
+      return;
+    }
+    responseHeaders.set("Content-Type", (object.contentType() != null) ? object.contentType() : DEFAULT_CONTENT_TYPE);
+    responseHeaders.set("Accept-Ranges", "bytes");
+    if (object.storageClass() != null && !"STANDARD".equals(object.storageClass())) {
+      responseHeaders.set("x-amz-storage-class", object.storageClass());
+    }
+    object.userMetadata().forEach((name, value) -> responseHeaders.set(USER_METADATA_PREFIX + name, value));
+
+    final long size = object.size();
+    long offset = 0;
+    long length = size;
+    int status = 200;
+    final String range = requestHeaders.getFirst("Range");
+    if (partNumberParameter != null) {
+      final int partNumber = parsePartNumber(partNumberParameter);
+      final List<Long> partSizes = object.partSizes();
+      if (partNumber > Math.max(1, partSizes.size())) {
+        throw new S3Error(416, "InvalidPartNumber", "The requested partnumber is not satisfiable");
+      }
+      if (!partSizes.isEmpty()) {
+        for (int i = 0; i < partNumber - 1; i++) {
+          offset += partSizes.get(i);
+        }
+        length = partSizes.get(partNumber - 1);
+        status = 206;
+        responseHeaders.set("Content-Range", "bytes " + offset + "-" + (offset + length - 1) + "/" + size);
+        responseHeaders.set("x-amz-mp-parts-count", String.valueOf(partSizes.size()));
+      }
+    } else if (range != null) {
+      long[] bounds = parseRange(range, size);
+      offset = bounds[0];
+      length = bounds[1] - bounds[0] + 1;
+      status = 206;
+      responseHeaders.set("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + size);
+    }
+
+    if (!sendContent) {
+      responseHeaders.set("Content-Length", String.valueOf(length));
+      exchange.sendResponseHeaders(status, -1);
+      return;
+    }
+    exchange.sendResponseHeaders(status, (length == 0) ? -1 : length);
+    if (length > 0) {
+      try (OutputStream out = exchange.getResponseBody()) {
+        if (resetFraction >= 0) {
+          object.content().writeTo(out, offset, (long) (length * resetFraction));
+          out.flush();
+          throw new InjectedConnectionReset();
+        }
+        object.content().writeTo(out, offset, length);
+      }
+    }
+  }
+
+  private void createMultipartUpload(final HttpExchange exchange, final InMemoryBucket bucket, final String key)
+      throws IOException {
+    final Headers headers = exchange.getRequestHeaders();
+    exchange.getRequestBody().readAllBytes();
+    InMemoryBucket.MultipartUpload upload = bucket.createMultipartUpload(key,
+        contentType(headers), userMetadata(headers), headers.getFirst("x-amz-storage-class"));
+    XmlWriter xml = new XmlWriter().startDocument("InitiateMultipartUploadResult")
+        .element("Bucket", bucket.name())
+        .element("Key", key)
+        .element("UploadId", upload.uploadId())
+        .end("InitiateMultipartUploadResult");
+    sendXml(exchange, 200, xml);
+  }
+
+  private void uploadPart(final HttpExchange exchange,
+      final InMemoryBucket bucket,
+      final String uploadId,
+      @Nullable final String partNumberParameter) throws IOException {
+    final ObjectContent content = readContent(exchange);
+    final InMemoryBucket.MultipartUpload upload = multipartUpload(bucket, uploadId);
+    final int partNumber = parsePartNumber(partNumberParameter);
+    final InMemoryBucket.Part part = new InMemoryBucket.Part(partNumber, content, content.md5Hex(), now());
+    upload.parts().put(partNumber, part);
+    exchange.getResponseHeaders().set("ETag", "\"" + part.eTag() + "\"");
+    exchange.sendResponseHeaders(200, -1);
+  }
+
+  private void listParts(final HttpExchange exchange,
+      final InMemoryBucket bucket,
+      final String key,
+      final String uploadId,
+      final Map<String, String> query) throws IOException {
+    final InMemoryBucket.MultipartUpload upload = multipartUpload(bucket, uploadId);
+    final int partNumberMarker = Integer.parseInt(query.getOrDefault("part-number-marker", "0"));
+    final int maxParts =
+        Math.min(MAX_KEYS, Integer.parseInt(query.getOrDefault("max-parts", String.valueOf(MAX_KEYS))));
+
+    List<InMemoryBucket.Part> parts = new ArrayList<>(upload.parts().tailMap(partNumberMarker, false).values());
+    final boolean truncated = parts.size() > maxParts;
+    if (truncated) {
+      parts = parts.subList(0, maxParts);
+    }
+
+    XmlWriter xml = new XmlWriter().startDocument("ListPartsResult")
+        .element("Bucket", bucket.name())
+        .element("Key", key)
+        .element("UploadId", uploadId)
+        .element("PartNumberMarker", partNumberMarker)
+        .element("MaxParts", maxParts)
+        .element("IsTruncated", truncated)
+        .element("StorageClass", (upload.storageClass() != null) ? upload.storageClass() : "STANDARD");
+    if (truncated) {
+      xml.element("NextPartNumberMarker", parts.get(parts.size() - 1).partNumber());
+    }
+    for (InMemoryBucket.Part part : parts) {
+      xml.start("Part")
+          .element("PartNumber", part.partNumber())
+          .element("LastModified", isoDate(part.lastModified()))
+          .element("ETag", "\"" + part.eTag() + "\"")
+          .element("Size", part.content().size())
+          .end("Part");
+    }
+    xml.end("ListPartsResult");
+    sendXml(exchange, 200, xml);
+  }
+
+  private void completeMultipartUpload(final HttpExchange exchange,
+      final InMemoryBucket bucket,
+      final String key,
+      final String uploadId) throws IOException {
+    final byte[] requestXml = readBody(exchange).toBytes();
+    final InMemoryBucket.MultipartUpload upload = multipartUpload(bucket, uploadId);
+
+    final List<ObjectContent> contents = new ArrayList<>();
+    final List<Long> partSizes = new ArrayList<>();
+    final MessageDigest eTagDigest = md5();
+    int previousPartNumber = 0;
+    final NodeList partElements = parseXml(requestXml).getElementsByTagName("Part");
+    for (int i = 0; i < partElements.getLength(); i++) {
+      Element partElement = (Element) partElements.item(i);
+      int partNumber = parsePartNumber(childText(partElement, "PartNumber"));
+      if (partNumber <= previousPartNumber) {
+        throw new S3Error(400, "InvalidPartOrder", "The list of parts was not in ascending order.");
+      }
+      previousPartNumber = partNumber;
+      InMemoryBucket.Part part = upload.parts().get(partNumber);
+      String eTag = childText(partElement, "ETag");
+      if (part == null || eTag == null || !part.eTag().equals(unquote(eTag))) {
+        throw new S3Error(400, "InvalidPart", "One or more of the specified parts could not be found.");
+      }
+      contents.add(part.content());
+      partSizes.add(part.content().size());
+      eTagDigest.update(HexFormat.of().parseHex(part.eTag()));
+    }
+    if (contents.isEmpty()) {
+      throw new S3Error(400, "MalformedXML", "The XML you provided was not well-formed.");
+    }
+
+    final StoredObject object = new StoredObject(key, ObjectContent.concat(contents),
+        HexFormat.of().formatHex(eTagDigest.digest()) + "-" + contents.size(), List.copyOf(partSizes), now(),
+        upload.contentType(), upload.userMetadata(), upload.storageClass());
+    // on a failed precondition the upload stays in place, as on S3
+    store(bucket, object, exchange.getRequestHeaders());
+    bucket.removeMultipartUpload(uploadId);
+
+    String host = exchange.getRequestHeaders().getFirst("Host");
+    XmlWriter xml = new XmlWriter().startDocument("CompleteMultipartUploadResult")
+        .element("Location", "http://" + host + "/" + bucket.name() + "/" + key)
+        .element("Bucket", bucket.name())
+        .element("Key", key)
+        .element("ETag", object.quotedETag())
+        .end("CompleteMultipartUploadResult");
+    sendXml(exchange, 200, xml);
+  }
+
+  private void abortMultipartUpload(final HttpExchange exchange, final InMemoryBucket bucket, final String uploadId)
+      throws IOException {
+    if (bucket.removeMultipartUpload(uploadId) == null) {
+      throw noSuchUpload();
+    }
+    exchange.sendResponseHeaders(204, -1);
+  }
+
+  /**
+   *  Stores {@code object}, honoring {@code If-Match} and {@code If-None-Match: *} on the request.
+   */
+  private static void store(final InMemoryBucket bucket, final StoredObject object, final Headers headers) {
+    final String ifMatch = headers.getFirst("If-Match");
+    final String ifNoneMatch = headers.getFirst("If-None-Match");
+    if (ifMatch == null && ifNoneMatch == null) {
+      bucket.put(object);
+      return;
+    }
+    if (ifNoneMatch != null && !"*".equals(ifNoneMatch.trim())) {
+      throw new S3Error(501, "NotImplemented", "If-None-Match on writes only supports *");
+    }
+    final Predicate<@Nullable StoredObject> precondition = current -> {
+      if (ifMatch != null) {
+        if (current == null) {
+          throw new S3Error(404, "NoSuchKey", "The specified key does not exist.");
+        }
+        return eTagMatches(ifMatch, current);
+      }
+      return current == null;
+    };
+    if (!bucket.putIf(object, precondition)) {
+      throw preconditionFailed();
+    }
+  }
+
+  /**
+   *  @param header an {@code If-Match} or {@code If-None-Match} value: {@code *} or a list of quoted ETags
+   */
+  private static boolean eTagMatches(final String header, final StoredObject object) {
+    for (String eTag : header.split(",")) {
+      String candidate = unquote(eTag.trim());
+      if ("*".equals(candidate) || object.eTag().equals(candidate)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private InMemoryBucket bucket(final String bucketName) {
+    InMemoryBucket bucket = buckets.get(bucketName);
+    if (bucket == null) {
+      throw new S3Error(404, "NoSuchBucket", "The specified bucket does not exist");
+    }
+    return bucket;
+  }
+
+  private static InMemoryBucket.MultipartUpload multipartUpload(final InMemoryBucket bucket, final String uploadId) {
+    InMemoryBucket.MultipartUpload upload = bucket.multipartUpload(uploadId);
+    if (upload == null) {
+      throw noSuchUpload();
+    }
+    return upload;
+  }
+
+  private static ObjectContent readBody(final HttpExchange exchange) throws IOException {
+    return readBody(exchange, null);
+  }
+
+  /**
+   *  Object and part content: mapped when the server was started with {@link Storage#MAPPED}.
+   */
+  private ObjectContent readContent(final HttpExchange exchange) throws IOException {
+    return readBody(exchange, mappedDirectory);
+  }
+
+  private static ObjectContent readBody(final HttpExchange exchange, @Nullable final Path mappedDirectory)
+      throws IOException {
+    final Headers headers = exchange.getRequestHeaders();
+    InputStream in = exchange.getRequestBody();
+    final String contentEncoding = headers.getFirst("Content-Encoding");
+    final String contentSha256 = headers.getFirst("x-amz-content-sha256");
+    final boolean awsChunked = (contentEncoding != null && contentEncoding.contains("aws-chunked"))
+        || (contentSha256 != null && contentSha256.startsWith("STREAMING-"));
+    String length;
+    if (awsChunked) {
+      in = new AwsChunkedInputStream(in);
+      length = headers.getFirst("x-amz-decoded-content-length");
+    } else {
+      length = headers.getFirst("Content-Length");
+    }
+    final long contentLength = (length != null) ? Long.parseLong(length) : -1;
+    ObjectContent content = (mappedDirectory != null)
+        ? ObjectContent.map(in, contentLength, mappedDirectory)
+        : ObjectContent.read(in, contentLength);
+    // drain trailers so the connection can be reused
+    in.transferTo(OutputStream.nullOutputStream());
+    return content;
+  }
+
+  private static void sendXml(final HttpExchange exchange, final int status, final XmlWriter xml) throws IOException {
+    byte[] body = xml.toBytes();
+    exchange.getResponseHeaders().set("Content-Type", "application/xml");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static void sendError(final HttpExchange exchange, final S3Error error) throws IOException {
+    // unread request content would otherwise be parsed as the next request on this connection
+    exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+    if ("HEAD".equals(exchange.getRequestMethod())) {
+      exchange.sendResponseHeaders(error.status, -1);
+      return;
+    }
+    XmlWriter xml = new XmlWriter().start("Error")
+        .element("Code", error.code)
+        .element("Message", error.getMessage())
+        .element("Resource", exchange.getRequestURI().getRawPath())
+        .element("RequestId", exchange.getResponseHeaders().getFirst("x-amz-request-id"))
+        .end("Error");
+    sendXml(exchange, error.status, xml);
+  }
+
+  /**
+   *  @return inclusive first and last byte positions
+   */
+  private static long[] parseRange(final String range, final long size) {
+    if (!range.startsWith("bytes=") || range.contains(",")) {
+      throw invalidRange();
+    }
+    final String spec = range.substring("bytes=".length()).trim();
+    final int dash = spec.indexOf('-');
+    if (dash < 0) {
+      throw invalidRange();
+    }
+    final String first = spec.substring(0, dash).trim();
+    final String last = spec.substring(dash + 1).trim();
+    try {
+      if (first.isEmpty()) {
+        long suffixLength = Long.parseLong(last);
+        if (suffixLength <= 0 || size == 0) {
+          throw invalidRange();
+        }
+        return new long[] { Math.max(0, size - suffixLength), size - 1 };
+      }
+      long start = Long.parseLong(first);
+      long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+      if (start >= size || end < start) {
+        throw invalidRange();
+      }
+      return new long[] { start, end };
+    } catch (NumberFormatException ex) {
+      throw invalidRange();
+    }
+  }
+
+  private static int parsePartNumber(@Nullable final String partNumber) {
+    try {
+      int value = Integer.parseInt(String.valueOf(partNumber).trim());
+      if (value >= 1 && value <= 10_000) {
+        return value;
+      }
+    } catch (NumberFormatException ignored) {
+      // fall through
+    }
+    throw new S3Error(400, "InvalidArgument", "Part number must be an integer between 1 and 10000, inclusive");
+  }
+
+  private static Map<String, String> parseQuery(@Nullable final String rawQuery) {
+    Map<String, String> query = new HashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return query;
+    }
+    for (String parameter : rawQuery.split("&")) {
+      int equals = parameter.indexOf('=');
+      if (equals < 0) {
+        query.put(decode(parameter), "");
+      } else {
+        query.put(decode(parameter.substring(0, equals)), decode(parameter.substring(equals + 1)));
+      }
+    }
+    return query;
+  }
+
+  /**
+   *  Percent-decoding only: the SDK encodes '+' in keys as %2B, so a literal '+' is not a space.
+   */
+  private static String decode(final String value) {
+    return URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8);
+  }
+
+  private static @Nullable String encodeIf(final boolean urlEncoding, @Nullable final String value) {
+    if (!urlEncoding || value == null) {
+      return value;
+    }
+    return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+  }
+
+  private static @Nullable String contentType(final Headers headers) {
+    return headers.getFirst("Content-Type");
+  }
+
+  private static Map<String, String> userMetadata(final Headers headers) {
+    Map<String, String> metadata = new HashMap<>();
+    headers.forEach((name, values) -> {
+      if (name.toLowerCase(Locale.ROOT).startsWith(USER_METADATA_PREFIX) && !values.isEmpty()) {
+        metadata.put(name.substring(USER_METADATA_PREFIX.length()).toLowerCase(Locale.ROOT), values.get(0));
+      }
+    });
+    return Map.copyOf(metadata);
+  }
+
+  private static Document parseXml(final byte[] xml) {
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+      return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    } catch (Exception ex) {
+      throw new S3Error(400, "MalformedXML", "The XML you provided was not well-formed.");
+    }
+  }
+
+  private static @Nullable String childText(final Element parent, final String childName) {
+    NodeList children = parent.getElementsByTagName(childName);
+    return (children.getLength() == 0) ? null : children.item(0).getTextContent().trim();
+  }
+
+  private static String unquote(final String eTag) {
+    return eTag.replace("\"", "").replace("&quot;", "");
+  }
+
+  private static MessageDigest md5() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static Instant now() {
+    return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+  }
+
+  private static String isoDate(final Instant instant) {
+    return DateTimeFormatter.ISO_INSTANT.format(instant);
+  }
+
+  private static S3Error notImplemented(final String operation, final String resource) {
+    return new S3Error(501, "NotImplemented", operation + " " + resource + " is not implemented by InProcessS3Server");
+  }
+
+  private static S3Error noSuchUpload() {
+    return new S3Error(404, "NoSuchUpload", "The specified multipart upload does not exist.");
+  }
+
+  private static S3Error preconditionFailed() {
+    return new S3Error(412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+  }
+
+  private static S3Error invalidRange() {
+    return new S3Error(416, "InvalidRange", "The requested range is not satisfiable");
+  }
+
+  private static final class InjectedConnectionReset extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    InjectedConnectionReset() {
+      super("injected connection reset", null);
+    }
+  }
+
+  static final class S3Error extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+    private final String code;
+
+    S3Error(final int status, final String code, final String message) {
+      super(message, null, false, false);
+      this.status = status;
+      this.code = code;
+    }
+  }
+}
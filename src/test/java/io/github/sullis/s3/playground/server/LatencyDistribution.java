@@ -0,0 +1,43 @@
+package io.github.sullis.s3.playground.server;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+
+/**
+ *  Delay added to a request by a {@link FaultProfile}.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+  LatencyDistribution NONE = random -> 0;
+
+  long sampleNanos(RandomGenerator random);
+
+  static LatencyDistribution fixed(final Duration latency) {
+    final long nanos = latency.toNanos();
+    return random -> nanos;
+  }
+
+  static LatencyDistribution uniform(final Duration min, final Duration max) {
+    final long minNanos = min.toNanos();
+    final long maxNanos = max.toNanos();
+    if (maxNanos < minNanos) {
+      throw new IllegalArgumentException("max is less than min: " + max + " < " + min);
+    }
+    return random -> (maxNanos == minNanos) ? minNanos : random.nextLong(minNanos, maxNanos + 1);
+  }
+
+  /**
+   *  Long-tailed latency, the usual shape of object store response times: half the samples fall below
+   *  {@code median} and one in a hundred above {@code p99}.
+   */
+  static LatencyDistribution logNormal(final Duration median, final Duration p99) {
+    if (median.isNegative() || median.isZero() || p99.compareTo(median) < 0) {
+      throw new IllegalArgumentException("need 0 < median <= p99: " + median + ", " + p99);
+    }
+    final double mu = Math.log(median.toNanos());
+    // 2.3263 is the 99th percentile of the standard normal distribution
+    final double sigma = Math.log((double) p99.toNanos() / median.toNanos()) / 2.3263;
+    return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+  }
+}
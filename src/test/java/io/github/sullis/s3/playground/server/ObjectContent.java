@@ -0,0 +1,199 @@
+package io.github.sullis.s3.playground.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+
+/**
+ *  Immutable object content made of one or more segments.
+ *
+ *  Completing a multipart upload reuses the part buffers as segments, so no bytes are copied
+ *  and objects are not limited to the 2 GiB size of a single buffer.
+ */
+final class ObjectContent {
+  static final ObjectContent EMPTY = new ObjectContent(new ByteBuffer[0]);
+
+  private static final int MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  private final ByteBuffer[] segments;
+  private final long[] offsets;
+  private final long size;
+
+  private ObjectContent(final ByteBuffer[] segments) {
+    this.segments = segments;
+    this.offsets = new long[segments.length];
+    long total = 0;
+    for (int i = 0; i < segments.length; i++) {
+      offsets[i] = total;
+      total += segments[i].remaining();
+    }
+    this.size = total;
+  }
+
+  static ObjectContent of(final List<ByteBuffer> segments) {
+    return new ObjectContent(segments.toArray(new ByteBuffer[0]));
+  }
+
+  static ObjectContent concat(final List<ObjectContent> parts) {
+    return new ObjectContent(parts.stream()
+        .flatMap(part -> List.of(part.segments).stream())
+        .toArray(ByteBuffer[]::new));
+  }
+
+  /**
+   *  Reads exactly {@code length} bytes, or until end of stream when {@code length} is negative.
+   */
+  static ObjectContent read(final InputStream in, final long length) throws IOException {
+    if (length == 0) {
+      return EMPTY;
+    }
+    List<ByteBuffer> segments = new ArrayList<>();
+    if (length < 0) {
+      byte[] segment;
+      do {
+        segment = in.readNBytes(MAX_SEGMENT_SIZE);
+        if (segment.length > 0) {
+          segments.add(ByteBuffer.wrap(segment));
+        }
+      } while (segment.length == MAX_SEGMENT_SIZE);
+      return of(segments);
+    }
+    long remaining = length;
+    while (remaining > 0) {
+      int segmentSize = (int) Math.min(remaining, MAX_SEGMENT_SIZE);
+      byte[] segment = new byte[segmentSize];
+      int n = in.readNBytes(segment, 0, segmentSize);
+      if (n < segmentSize) {
+        throw new IOException("request body ended after " + (length - remaining + n) + " of " + length + " bytes");
+      }
+      segments.add(ByteBuffer.wrap(segment));
+      remaining -= n;
+    }
+    return of(segments);
+  }
+
+  /**
+   *  Like {@link #read}, but spools the bytes to a file in {@code directory} and maps it read-only,
+   *  so the content lives in the page cache instead of on the Java heap.
+   *
+   *  The file is unlinked as soon as it is mapped; the mapping keeps the bytes until the buffers
+   *  are garbage collected.
+   */
+  static ObjectContent map(final InputStream in, final long length, final Path directory) throws IOException {
+    if (length == 0) {
+      return EMPTY;
+    }
+    final Path file = Files.createTempFile(directory, "object-", ".bin");
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+      long written = 0;
+      while (length < 0 || written < length) {
+        int chunk = (length < 0) ? copyBuffer.length : (int) Math.min(copyBuffer.length, length - written);
+        int n = in.read(copyBuffer, 0, chunk);
+        if (n < 0) {
+          break;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(copyBuffer, 0, n);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        written += n;
+      }
+      if (length > 0 && written < length) {
+        throw new IOException("request body ended after " + written + " of " + length + " bytes");
+      }
+      List<ByteBuffer> segments = new ArrayList<>();
+      for (long position = 0; position < written; position += MAX_SEGMENT_SIZE) {
+        long segmentSize = Math.min(MAX_SEGMENT_SIZE, written - position);
+        segments.add(channel.map(FileChannel.MapMode.READ_ONLY, position, segmentSize));
+      }
+      return of(segments);
+    } finally {
+      try {
+        Files.delete(file);
+      } catch (IOException ex) {
+        // Windows refuses to delete a mapped file
+        file.toFile().deleteOnExit();
+      }
+    }
+  }
+
+  long size() {
+    return size;
+  }
+
+  String md5Hex() {
+    return HexFormat.of().formatHex(md5());
+  }
+
+  byte[] md5() {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      for (ByteBuffer segment : segments) {
+        digest.update(segment.duplicate());
+      }
+      return digest.digest();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  byte[] toBytes() {
+    byte[] bytes = new byte[Math.toIntExact(size)];
+    int position = 0;
+    for (ByteBuffer segment : segments) {
+      int n = segment.remaining();
+      segment.duplicate().get(bytes, position, n);
+      position += n;
+    }
+    return bytes;
+  }
+
+  void writeTo(final OutputStream out) throws IOException {
+    writeTo(out, 0, size);
+  }
+
+  void writeTo(final OutputStream out, final long offset, final long length) throws IOException {
+    long position = offset;
+    long remaining = length;
+    byte[] copyBuffer = null;
+    for (int i = 0; i < segments.length && remaining > 0; i++) {
+      long segmentEnd = offsets[i] + segments[i].remaining();
+      if (position >= segmentEnd) {
+        continue;
+      }
+      int start = (int) (position - offsets[i]);
+      int count = (int) Math.min(remaining, segmentEnd - position);
+      ByteBuffer segment = segments[i];
+      if (segment.hasArray()) {
+        out.write(segment.array(), segment.arrayOffset() + segment.position() + start, count);
+      } else {
+        if (copyBuffer == null) {
+          copyBuffer = new byte[COPY_BUFFER_SIZE];
+        }
+        ByteBuffer view = segment.duplicate();
+        view.position(view.position() + start);
+        view.limit(view.position() + count);
+        while (view.hasRemaining()) {
+          int n = Math.min(view.remaining(), copyBuffer.length);
+          view.get(copyBuffer, 0, n);
+          out.write(copyBuffer, 0, n);
+        }
+      }
+      position += count;
+      remaining -= count;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package io.github.sullis.s3.playground.server;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ *  An object held by {@link InProcessS3Server}.
+ *
+ *  @param eTag unquoted ETag
+ *  @param partSizes sizes of the parts it was assembled from, in order; empty unless it was a multipart upload
+ */
+record StoredObject(String key,
+                    ObjectContent content,
+                    String eTag,
+                    List<Long> partSizes,
+                    Instant lastModified,
+                    @Nullable String contentType,
+                    Map<String, String> userMetadata,
+                    @Nullable String storageClass) {
+
+  long size() {
+    return content.size();
+  }
+
+  String quotedETag() {
+    return "\"" + eTag + "\"";
+  }
+}
@@ -0,0 +1,57 @@
+package io.github.sullis.s3.playground.server;
+
+import java.nio.charset.StandardCharsets;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ *  Just enough XML writing for S3 responses.
+ */
+final class XmlWriter {
+  static final String S3_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+  private final StringBuilder xml = new StringBuilder(256)
+      .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+
+  XmlWriter startDocument(final String rootElement) {
+    xml.append('<').append(rootElement).append(" xmlns=\"").append(S3_NAMESPACE).append("\">");
+    return this;
+  }
+
+  XmlWriter start(final String element) {
+    xml.append('<').append(element).append('>');
+    return this;
+  }
+
+  XmlWriter end(final String element) {
+    xml.append("</").append(element).append('>');
+    return this;
+  }
+
+  XmlWriter element(final String element, @Nullable final Object value) {
+    if (value != null) {
+      start(element);
+      escape(String.valueOf(value));
+      end(element);
+    }
+    return this;
+  }
+
+  byte[] toBytes() {
+    return xml.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private void escape(final String text) {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '<' -> xml.append("&lt;");
+        case '>' -> xml.append("&gt;");
+        case '&' -> xml.append("&amp;");
+        case '"' -> xml.append("&quot;");
+        case '\'' -> xml.append("&apos;");
+        default -> xml.append(c);
+      }
+    }
+  }
+}
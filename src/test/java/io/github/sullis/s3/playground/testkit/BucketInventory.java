@@ -0,0 +1,403 @@
+package io.github.sullis.s3.playground.testkit;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.jspecify.annotations.Nullable;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+
+/**
+ *  A snapshot of a listing as a sorted, memory-mapped file: key, size, ETag and last-modified per object.
+ *
+ *  The file holds a 32-byte header, the UTF-8 keys and ETags back to back, then one fixed-size record
+ *  per object in key order. Only the mapping and the entries a caller asks for live on the Java heap,
+ *  so a bucket of tens of millions of keys can be searched, range-queried and diffed with a small heap;
+ *  the page cache holds the rest. Lookups compare the mapped UTF-8 bytes, which is S3's key order,
+ *  without decoding them.
+ *
+ *  {@link #write} streams a listing (e.g. from {@link ParallelLister}) to a file, {@link #open} reloads one
+ *  without listing again. Like other mapped buffers, the mapping is released when this is garbage collected.
+ */
+public final class BucketInventory {
+  private static final long MAGIC = 0x5333_494e_5600_0001L; // "S3INV", format 1
+  private static final int HEADER_SIZE = 32;
+  private static final int RECORD_SIZE = 32;
+  private static final int MAX_CHUNK_SIZE = 1 << 30;
+  private static final long UNKNOWN = Long.MIN_VALUE;
+
+  private final Path file;
+  private final long count;
+  private final Region strings;
+  private final Region records;
+
+  private BucketInventory(final Path file, final long count, final Region strings, final Region records) {
+    this.file = file;
+    this.count = count;
+    this.strings = strings;
+    this.records = records;
+  }
+
+  /**
+   *  One object in the snapshot.
+   *
+   *  @param size -1 when the listing did not say
+   */
+  public record Entry(String key, long size, @Nullable String eTag, @Nullable Instant lastModified) { }
+
+  public enum ChangeType { ADDED, REMOVED, MODIFIED }
+
+  /**
+   *  @param before null for {@link ChangeType#ADDED}
+   *  @param after null for {@link ChangeType#REMOVED}
+   */
+  public record Change(ChangeType type, @Nullable Entry before, @Nullable Entry after) {
+    public String key() {
+      return (after != null) ? after.key() : before.key();
+    }
+  }
+
+  /**
+   *  Writes {@code listing} to {@code file} and opens the result. The file is built next to {@code file} and
+   *  moved over it atomically, so a failed listing leaves an existing file as it was, and a
+   *  {@code BucketInventory} still mapping the old file keeps reading the old snapshot.
+   *
+   *  @param listing in S3 key order, as ListObjectsV2 returns it
+   *  @throws IllegalArgumentException if a key is out of order or repeated
+   */
+  public static BucketInventory write(final Stream<S3Object> listing, final Path file) throws IOException {
+    final Path directory = file.toAbsolutePath().getParent();
+    final Path partialFile = Files.createTempFile(directory, "inventory-", ".partial");
+    final Path recordsFile = Files.createTempFile(directory, "inventory-", ".records");
+    try {
+      long count = 0;
+      long stringsLength = 0;
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partialFile)));
+           DataOutputStream recordsOut = new DataOutputStream(new BufferedOutputStream(
+               Files.newOutputStream(recordsFile)))) {
+        out.write(new byte[HEADER_SIZE]);
+        byte[] previousKey = null;
+        for (Iterator<S3Object> it = listing.iterator(); it.hasNext(); ) {
+          final S3Object object = it.next();
+          final byte[] key = object.key().getBytes(StandardCharsets.UTF_8);
+          if (previousKey != null && Arrays.compareUnsigned(previousKey, key) >= 0) {
+            throw new IllegalArgumentException("listing is not in key order at " + object.key());
+          }
+          final byte[] eTag = (object.eTag() == null) ? new byte[0] : object.eTag().getBytes(StandardCharsets.UTF_8);
+          out.write(key);
+          out.write(eTag);
+          recordsOut.writeLong(stringsLength);
+          recordsOut.writeInt(key.length);
+          recordsOut.writeInt(eTag.length);
+          recordsOut.writeLong((object.size() == null) ? -1 : object.size());
+          recordsOut.writeLong((object.lastModified() == null) ? UNKNOWN : object.lastModified().toEpochMilli());
+          stringsLength += key.length + eTag.length;
+          previousKey = key;
+          count++;
+        }
+      }
+      try (FileChannel channel = FileChannel.open(partialFile, StandardOpenOption.WRITE);
+           FileChannel recordsChannel = FileChannel.open(recordsFile, StandardOpenOption.READ)) {
+        final long recordsOffset = HEADER_SIZE + stringsLength;
+        long position = 0;
+        while (position < count * RECORD_SIZE) {
+          position += recordsChannel.transferTo(position, count * RECORD_SIZE - position,
+              channel.position(recordsOffset + position));
+        }
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+            .putLong(MAGIC)
+            .putLong(count)
+            .putLong(HEADER_SIZE)
+            .putLong(recordsOffset)
+            .flip();
+        while (header.hasRemaining()) {
+          channel.write(header, header.position());
+        }
+        channel.force(false);
+      }
+      Files.move(partialFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(recordsFile);
+      Files.deleteIfExists(partialFile);
+    }
+    return open(file);
+  }
+
+  public static BucketInventory open(final Path file) throws IOException {
+    return open(file, MAX_CHUNK_SIZE);
+  }
+
+  /**
+   *  @param chunkSize the largest single mapping, a multiple of the record size; small values let tests
+   *                   cover keys and records that cross mappings
+   */
+  static BucketInventory open(final Path file, final int chunkSize) throws IOException {
+    if (chunkSize % RECORD_SIZE != 0) {
+      throw new IllegalArgumentException("chunkSize must be a multiple of " + RECORD_SIZE + ": " + chunkSize);
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining() && channel.read(header) >= 0) {
+        // keep reading
+      }
+      header.flip();
+      if (header.remaining() < HEADER_SIZE || header.getLong() != MAGIC) {
+        throw new IOException("not a bucket inventory: " + file);
+      }
+      final long count = header.getLong();
+      final long stringsOffset = header.getLong();
+      final long recordsOffset = header.getLong();
+      if (recordsOffset + count * RECORD_SIZE != channel.size()) {
+        throw new IOException("truncated bucket inventory: " + file);
+      }
+      return new BucketInventory(file,
+          count,
+          Region.map(channel, stringsOffset, recordsOffset - stringsOffset, chunkSize),
+          Region.map(channel, recordsOffset, count * RECORD_SIZE, chunkSize));
+    }
+  }
+
+  public Path file() {
+    return file;
+  }
+
+  public long size() {
+    return count;
+  }
+
+  public Entry get(final long index) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("index " + index + " of " + count);
+    }
+    final long record = index * RECORD_SIZE;
+    final long stringOffset = records.getLong(record);
+    final int keyLength = records.getInt(record + 8);
+    final int eTagLength = records.getInt(record + 12);
+    final long lastModified = records.getLong(record + 24);
+    final String eTag = (eTagLength == 0)
+        ? null
+        : new String(strings.get(stringOffset + keyLength, eTagLength), StandardCharsets.UTF_8);
+    return new Entry(new String(strings.get(stringOffset, keyLength), StandardCharsets.UTF_8),
+        records.getLong(record + 16),
+        eTag,
+        (lastModified == UNKNOWN) ? null : Instant.ofEpochMilli(lastModified));
+  }
+
+  public @Nullable Entry get(final String key) {
+    final long index = indexOf(key.getBytes(StandardCharsets.UTF_8));
+    return (index >= 0) ? get(index) : null;
+  }
+
+  public Stream<Entry> stream() {
+    return LongStream.range(0, count).mapToObj(this::get);
+  }
+
+  /**
+   *  Entries whose key starts with {@code prefix}, in key order.
+   */
+  public Stream<Entry> range(final String prefix) {
+    final byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+    return LongStream.range(insertionPoint(indexOf(bytes)), count)
+        .takeWhile(index -> startsWith(index, bytes))
+        .mapToObj(this::get);
+  }
+
+  /**
+   *  What changed from {@code before} to {@code after}, in key order. An entry is {@link ChangeType#MODIFIED}
+   *  when its size, ETag or last-modified time differs. Only changed entries are decoded.
+   */
+  public static Stream<Change> diff(final BucketInventory before, final BucketInventory after) {
+    final Iterator<Change> changes = new Iterator<>() {
+      private long i;
+      private long j;
+      private @Nullable Change next;
+
+      @Override
+      public boolean hasNext() {
+        while (next == null && (i < before.count || j < after.count)) {
+          final int order = (i == before.count) ? 1
+              : (j == after.count) ? -1
+              : compareKeys(before, i, after, j);
+          if (order < 0) {
+            next = new Change(ChangeType.REMOVED, before.get(i++), null);
+          } else if (order > 0) {
+            next = new Change(ChangeType.ADDED, null, after.get(j++));
+          } else {
+            if (!sameMetadata(before, i, after, j)) {
+              next = new Change(ChangeType.MODIFIED, before.get(i), after.get(j));
+            }
+            i++;
+            j++;
+          }
+        }
+        return next != null;
+      }
+
+      @Override
+      public Change next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final Change change = next;
+        next = null;
+        return change;
+      }
+    };
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(changes,
+        Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+  }
+
+  /**
+   *  @return the index of {@code key}, or {@code -(insertion point) - 1}
+   */
+  private long indexOf(final byte[] key) {
+    long low = 0;
+    long high = count - 1;
+    while (low <= high) {
+      final long middle = (low + high) >>> 1;
+      final int order = compareKey(middle, key);
+      if (order < 0) {
+        low = middle + 1;
+      } else if (order > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private static long insertionPoint(final long index) {
+    return (index >= 0) ? index : -index - 1;
+  }
+
+  private int compareKey(final long index, final byte[] key) {
+    final long record = index * RECORD_SIZE;
+    final long offset = records.getLong(record);
+    final int length = records.getInt(record + 8);
+    final int common = Math.min(length, key.length);
+    for (int k = 0; k < common; k++) {
+      final int order = Byte.compareUnsigned(strings.get(offset + k), key[k]);
+      if (order != 0) {
+        return order;
+      }
+    }
+    return Integer.compare(length, key.length);
+  }
+
+  private boolean startsWith(final long index, final byte[] prefix) {
+    final long record = index * RECORD_SIZE;
+    final long offset = records.getLong(record);
+    if (records.getInt(record + 8) < prefix.length) {
+      return false;
+    }
+    for (int k = 0; k < prefix.length; k++) {
+      if (strings.get(offset + k) != prefix[k]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int compareKeys(final BucketInventory a, final long i, final BucketInventory b, final long j) {
+    final long offsetA = a.records.getLong(i * RECORD_SIZE);
+    final int lengthA = a.records.getInt(i * RECORD_SIZE + 8);
+    final long offsetB = b.records.getLong(j * RECORD_SIZE);
+    final int lengthB = b.records.getInt(j * RECORD_SIZE + 8);
+    final int common = Math.min(lengthA, lengthB);
+    for (int k = 0; k < common; k++) {
+      final int order = Byte.compareUnsigned(a.strings.get(offsetA + k), b.strings.get(offsetB + k));
+      if (order != 0) {
+        return order;
+      }
+    }
+    return Integer.compare(lengthA, lengthB);
+  }
+
+  private static boolean sameMetadata(final BucketInventory a, final long i, final BucketInventory b, final long j) {
+    final long recordA = i * RECORD_SIZE;
+    final long recordB = j * RECORD_SIZE;
+    if (a.records.getLong(recordA + 16) != b.records.getLong(recordB + 16)
+        || a.records.getLong(recordA + 24) != b.records.getLong(recordB + 24)) {
+      return false;
+    }
+    final int eTagLength = a.records.getInt(recordA + 12);
+    if (eTagLength != b.records.getInt(recordB + 12)) {
+      return false;
+    }
+    final long eTagA = a.records.getLong(recordA) + a.records.getInt(recordA + 8);
+    final long eTagB = b.records.getLong(recordB) + b.records.getInt(recordB + 8);
+    for (int k = 0; k < eTagLength; k++) {
+      if (a.strings.get(eTagA + k) != b.strings.get(eTagB + k)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   *  A read-only span of the file mapped in chunks, since one mapping is limited to 2 GiB. Records never
+   *  cross a chunk; keys and ETags may.
+   */
+  private static final class Region {
+    private final ByteBuffer[] chunks;
+    private final int chunkSize;
+
+    private Region(final ByteBuffer[] chunks, final int chunkSize) {
+      this.chunks = chunks;
+      this.chunkSize = chunkSize;
+    }
+
+    static Region map(final FileChannel channel, final long offset, final long length, final int chunkSize)
+        throws IOException {
+      final ByteBuffer[] chunks = new ByteBuffer[(int) ((length + chunkSize - 1) / chunkSize)];
+      for (int c = 0; c < chunks.length; c++) {
+        final long position = (long) c * chunkSize;
+        chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, offset + position,
+            Math.min(chunkSize, length - position));
+      }
+      return new Region(chunks, chunkSize);
+    }
+
+    byte get(final long position) {
+      return chunks[(int) (position / chunkSize)].get((int) (position % chunkSize));
+    }
+
+    int getInt(final long position) {
+      return chunks[(int) (position / chunkSize)].getInt((int) (position % chunkSize));
+    }
+
+    long getLong(final long position) {
+      return chunks[(int) (position / chunkSize)].getLong((int) (position % chunkSize));
+    }
+
+    byte[] get(final long position, final int length) {
+      final byte[] bytes = new byte[length];
+      int copied = 0;
+      while (copied < length) {
+        final long at = position + copied;
+        final int offsetInChunk = (int) (at % chunkSize);
+        final int n = Math.min(length - copied, chunkSize - offsetInChunk);
+        chunks[(int) (at / chunkSize)].get(offsetInChunk, bytes, copied, n);
+        copied += n;
+      }
+      return bytes;
+    }
+  }
+}
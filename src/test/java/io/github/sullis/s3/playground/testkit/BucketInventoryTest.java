@@ -0,0 +1,98 @@
+package io.github.sullis.s3.playground.testkit;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+public class BucketInventoryTest {
+  private static final Instant LAST_MODIFIED = Instant.parse("2024-01-01T00:00:00Z");
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void reloadsAndQueriesAcrossMappings() throws Exception {
+    // String order puts the surrogate pair before U+FFFD; UTF-8 byte order, which S3 uses, does not
+    final List<String> keys = Stream.concat(
+            IntStream.range(0, 500).mapToObj(i -> String.format("dir-%d/key-%04d", i % 5, i)).sorted(),
+            Stream.of("z-\uFFFD", "z-\uD83D\uDE00"))
+        .toList();
+    final Path file = directory.resolve("inventory.bin");
+    BucketInventory.write(keys.stream().map(key -> object(key, key.length(), "\"" + key.hashCode() + "\"")), file);
+
+    // 64-byte mappings: most keys and ETags are split across two of them
+    final BucketInventory inventory = BucketInventory.open(file, 64);
+    assertThat(inventory.size()).isEqualTo(keys.size());
+    assertThat(inventory.stream().map(BucketInventory.Entry::key).toList()).isEqualTo(keys);
+    assertThat(inventory.get("dir-3/key-0123"))
+        .isEqualTo(new BucketInventory.Entry("dir-3/key-0123", 14, "\"" + "dir-3/key-0123".hashCode() + "\"",
+            LAST_MODIFIED));
+    assertThat(inventory.get("dir-3/key-0124")).isNull();
+    assertThat(inventory.range("dir-2/")).hasSize(100).allMatch(entry -> entry.key().startsWith("dir-2/"));
+    assertThat(inventory.range("dir-9/")).isEmpty();
+    assertThat(inventory.range("z-").map(BucketInventory.Entry::key)).containsExactly("z-\uFFFD", "z-\uD83D\uDE00");
+  }
+
+  @Test
+  void diffsSnapshots() throws Exception {
+    final BucketInventory before = BucketInventory.write(Stream.of(
+        object("a", 1, "\"1\""),
+        object("b", 2, "\"2\""),
+        object("c", 3, "\"3\"")), directory.resolve("before.bin"));
+    final BucketInventory after = BucketInventory.write(Stream.of(
+        object("b", 2, "\"2\""),
+        object("c", 3, "\"3-changed\""),
+        object("d", 4, null)), directory.resolve("after.bin"));
+
+    assertThat(BucketInventory.diff(before, after).map(change -> change.type() + " " + change.key()))
+        .containsExactly("REMOVED a", "MODIFIED c", "ADDED d");
+    assertThat(BucketInventory.diff(after, after)).isEmpty();
+    assertThat(after.get("d").eTag()).isNull();
+  }
+
+  @Test
+  void rejectsUnsortedListing() {
+    assertThatThrownBy(() -> BucketInventory.write(Stream.of(object("b", 0, null), object("a", 0, null)),
+        directory.resolve("unsorted.bin")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void rewritingLeavesOpenSnapshotsAndFailedWritesAlone() throws Exception {
+    final Path file = directory.resolve("inventory.bin");
+    final BucketInventory first = BucketInventory.write(
+        Stream.of(object("a", 1, "\"1\""), object("b", 2, "\"2\"")), file);
+
+    final BucketInventory second = BucketInventory.write(Stream.of(object("c", 3, "\"3\"")), file);
+    assertThat(first.stream().map(BucketInventory.Entry::key)).containsExactly("a", "b");
+    assertThat(second.stream().map(BucketInventory.Entry::key)).containsExactly("c");
+
+    // the listing fails after the first key; the file still holds the previous snapshot
+    final Stream<S3Object> failing = Stream.of("d", "e").map(key -> {
+      if (key.equals("e")) {
+        throw new IllegalStateException("listing failed");
+      }
+      return object(key, 4, null);
+    });
+    assertThatThrownBy(() -> BucketInventory.write(failing, file)).hasMessage("listing failed");
+    assertThat(BucketInventory.open(file).stream().map(BucketInventory.Entry::key)).containsExactly("c");
+    try (Stream<Path> files = Files.list(directory)) {
+      assertThat(files).containsExactly(file);
+    }
+  }
+
+  private static S3Object object(final String key, final long size, @Nullable final String eTag) {
+    return S3Object.builder().key(key).size(size).eTag(eTag).lastModified(LAST_MODIFIED).build();
+  }
+}
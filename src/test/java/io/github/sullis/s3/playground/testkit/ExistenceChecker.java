@@ -0,0 +1,290 @@
+package io.github.sullis.s3.playground.testkit;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.jspecify.annotations.Nullable;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+
+/**
+ *  Checks whether many keys exist with as few requests as it can, instead of one HeadObject per key.
+ *
+ *  Keys are sorted and grouped by the directory they are in, up to the last {@code delimiter}. A group of
+ *  two or more keys is resolved with ListObjectsV2 pages under the group's longest common prefix, each
+ *  starting just before the group's first unresolved key: every listed key marks the group's keys up to it
+ *  as present or absent. A listing stops as soon as it passes the group's last key, or once it has used as
+ *  many pages as keys are still unresolved, at which point HEADs are no more expensive; the keys it has not
+ *  reached are then checked with HeadObject. Lone keys go straight to HeadObject.
+ *
+ *  Up to {@code maxInFlight} lists and HEADs run at a time, in the style of {@link ParallelMultipartUploader};
+ *  the HEADs a listing falls back to start more of them, so a single directory's HEADs run in parallel too.
+ */
+public class ExistenceChecker {
+  private final S3AsyncClient s3Client;
+  private final int maxInFlight;
+  private final String delimiter;
+
+  public ExistenceChecker(final S3AsyncClient s3Client, final int maxInFlight) {
+    this(s3Client, maxInFlight, "/");
+  }
+
+  public ExistenceChecker(final S3AsyncClient s3Client, final int maxInFlight, final String delimiter) {
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+    }
+    this.s3Client = s3Client;
+    this.maxInFlight = maxInFlight;
+    this.delimiter = delimiter;
+  }
+
+  /**
+   *  @param present bit {@code i} is set when {@code keys.get(i)} exists
+   */
+  public record Result(BitSet present, int listRequests, int headRequests) { }
+
+  /**
+   *  @param keys may repeat; every occurrence gets its own bit
+   */
+  public CompletableFuture<Result> exists(final String bucket, final List<String> keys) {
+    final TreeMap<String, List<Integer>> positions = new TreeMap<>(ParallelLister.KEY_ORDER);
+    for (int i = 0; i < keys.size(); i++) {
+      positions.computeIfAbsent(keys.get(i), key -> new ArrayList<>(1)).add(i);
+    }
+    final Check check = new Check(bucket, positions);
+    String directory = null;
+    String first = null;
+    for (String key : positions.keySet()) {
+      final String keyDirectory = key.substring(0, key.lastIndexOf(delimiter) + 1);
+      if (!keyDirectory.equals(directory)) {
+        if (first != null) {
+          check.addGroup(first, positions.lowerKey(key));
+        }
+        directory = keyDirectory;
+        first = key;
+      }
+    }
+    if (first == null) {
+      return CompletableFuture.completedFuture(new Result(check.present, 0, 0));
+    }
+    check.addGroup(first, positions.lastKey());
+
+    check.startDrains();
+    return check.done
+        .thenApply(ignored -> new Result(check.present, check.listRequests.get(), check.headRequests.get()));
+  }
+
+  /**
+   *  HeadBucket, with 404 meaning absent rather than an error.
+   */
+  public CompletableFuture<Boolean> bucketExists(final String bucket) {
+    return s3Client.headBucket(request -> request.bucket(bucket))
+        .handle((response, failure) -> {
+          if (failure == null) {
+            return true;
+          }
+          if (isNotFound(failure)) {
+            return false;
+          }
+          throw new CompletionException(unwrap(failure));
+        });
+  }
+
+  private void drain(final Check check) {
+    final Supplier<CompletableFuture<Void>> task = (check.failure == null) ? check.tasks.poll() : null;
+    if (task == null) {
+      check.drainStopped();
+      return;
+    }
+    task.get()
+        .whenComplete((ignored, failure) -> {
+          if (failure != null && check.failure == null) {
+            check.failure = unwrap(failure);
+          }
+          drain(check);
+        });
+  }
+
+  private CompletableFuture<Void> head(final Check check, final String key) {
+    check.headRequests.incrementAndGet();
+    return s3Client.headObject(request -> request.bucket(check.bucket).key(key))
+        .handle((response, failure) -> {
+          if (failure == null) {
+            check.markPresent(key);
+          } else if (!isNotFound(failure)) {
+            throw new CompletionException(unwrap(failure));
+          }
+          return null;
+        });
+  }
+
+  private static String commonPrefix(final String a, final String b) {
+    int length = 0;
+    while (length < a.length() && length < b.length() && a.charAt(length) == b.charAt(length)) {
+      length++;
+    }
+    if (length > 0 && Character.isHighSurrogate(a.charAt(length - 1))) {
+      length--;
+    }
+    return a.substring(0, length);
+  }
+
+  private static boolean isNotFound(final Throwable failure) {
+    return unwrap(failure) instanceof S3Exception s3Exception && s3Exception.statusCode() == 404;
+  }
+
+  private static Throwable unwrap(final Throwable throwable) {
+    return (throwable instanceof CompletionException && throwable.getCause() != null)
+        ? throwable.getCause()
+        : throwable;
+  }
+
+  private final class Check {
+    final String bucket;
+    final TreeMap<String, List<Integer>> positions;
+    final BitSet present = new BitSet();
+    final Queue<Supplier<CompletableFuture<Void>>> tasks = new ConcurrentLinkedQueue<>();
+    final AtomicInteger listRequests = new AtomicInteger();
+    final AtomicInteger headRequests = new AtomicInteger();
+    final AtomicInteger draining = new AtomicInteger();
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+    volatile @Nullable Throwable failure;
+
+    Check(final String bucket, final TreeMap<String, List<Integer>> positions) {
+      this.bucket = bucket;
+      this.positions = positions;
+    }
+
+    void addGroup(final String first, final String last) {
+      if (first.equals(last)) {
+        tasks.add(() -> head(this, first));
+      } else {
+        tasks.add(new GroupListing(this, first, last)::next);
+      }
+    }
+
+    /**
+     *  Starts drain chains until {@code maxInFlight} are running or every queued task has one.
+     */
+    void startDrains() {
+      while (failure == null && !tasks.isEmpty()) {
+        final int running = draining.get();
+        if (running >= maxInFlight) {
+          return;
+        }
+        if (draining.compareAndSet(running, running + 1)) {
+          drain(this);
+        }
+      }
+    }
+
+    /**
+     *  Only a running task queues more, so once the last chain stops with nothing queued the check is over.
+     *  A chain that found the queue empty while another task was still adding to it starts a replacement.
+     */
+    void drainStopped() {
+      if (draining.decrementAndGet() > 0) {
+        return;
+      }
+      if (failure == null && !tasks.isEmpty()) {
+        startDrains();
+      } else if (failure != null) {
+        done.completeExceptionally(failure);
+      } else {
+        done.complete(null);
+      }
+    }
+
+    void markPresent(final String key) {
+      synchronized (present) {
+        for (int position : positions.get(key)) {
+          present.set(position);
+        }
+      }
+    }
+  }
+
+  /**
+   *  Pages through one group; keys the listing has passed without seeing them are absent. Every page starts
+   *  just before the first key not yet resolved, rather than where the previous page ended, so runs of keys
+   *  nobody asked about are skipped.
+   */
+  private final class GroupListing {
+    private final Check check;
+    private final String prefix;
+    private final String last;
+    /** the first key the listing has not passed yet */
+    private String unresolved;
+    private @Nullable String reached;
+    private int pages;
+
+    GroupListing(final Check check, final String first, final String last) {
+      this.check = check;
+      this.prefix = commonPrefix(first, last);
+      this.last = last;
+      this.unresolved = first;
+    }
+
+    CompletableFuture<Void> next() {
+      final NavigableMap<String, List<Integer>> remaining = check.positions.subMap(unresolved, true, last, true);
+      if (pages > 0 && pages >= remaining.size()) {
+        remaining.keySet().forEach(key -> check.tasks.add(() -> head(check, key)));
+        check.startDrains();
+        return CompletableFuture.completedFuture(null);
+      }
+      pages++;
+      check.listRequests.incrementAndGet();
+      return s3Client.listObjectsV2(request -> request
+              .bucket(check.bucket)
+              .prefix(prefix)
+              .startAfter(startAfter()))
+          .thenCompose(response -> onPage(response) ? next() : CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     *  StartAfter is exclusive, so start after the unresolved key minus its last code point, which sorts
+     *  before it, unless the last page already went further.
+     */
+    private @Nullable String startAfter() {
+      final String before = unresolved.substring(0, unresolved.offsetByCodePoints(unresolved.length(), -1));
+      if (reached != null && ParallelLister.KEY_ORDER.compare(reached, before) > 0) {
+        return reached;
+      }
+      return (before.length() > prefix.length()) ? before : null;
+    }
+
+    /**
+     *  @return whether another page is needed
+     */
+    private boolean onPage(final ListObjectsV2Response response) {
+      for (S3Object object : response.contents()) {
+        reached = object.key();
+        if (check.positions.containsKey(reached)) {
+          check.markPresent(reached);
+        }
+      }
+      if (!Boolean.TRUE.equals(response.isTruncated())) {
+        return false;
+      }
+      if (reached != null && ParallelLister.KEY_ORDER.compare(reached, unresolved) >= 0) {
+        final String higher = check.positions.higherKey(reached);
+        if (higher == null || ParallelLister.KEY_ORDER.compare(higher, last) > 0) {
+          return false;
+        }
+        unresolved = higher;
+      }
+      return true;
+    }
+  }
+}
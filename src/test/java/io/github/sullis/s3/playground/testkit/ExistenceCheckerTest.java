@@ -0,0 +1,115 @@
+package io.github.sullis.s3.playground.testkit;
+
+import io.github.sullis.s3.playground.InProcessS3Extension;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+@ExtendWith(InProcessS3Extension.class)
+public class ExistenceCheckerTest {
+  private static final String BUCKET = "existence";
+
+  @Test
+  void resolvesPresentAndMissingKeysFromListPages(final S3AsyncClient s3Client) throws Exception {
+    s3Client.createBucket(request -> request.bucket(BUCKET)).join();
+    // more than one 1000-key page in dir/
+    final List<String> stored = new ArrayList<>();
+    IntStream.range(0, 1100).mapToObj(i -> String.format("dir/key-%04d", i)).forEach(stored::add);
+    stored.add("emoji/a-\uD83D\uDE00");
+    for (int i = 0; i < stored.size(); i += 100) {
+      CompletableFuture.allOf(stored.subList(i, Math.min(i + 100, stored.size())).stream()
+          .map(key -> s3Client.putObject(put -> put.bucket(BUCKET).key(key), AsyncRequestBody.empty()))
+          .toArray(CompletableFuture<?>[]::new)).join();
+    }
+
+    final List<String> keys = List.of(
+        "dir/key-0500",
+        "other/alone",
+        "dir/key-0000",
+        "dir/key-0500-missing",
+        "emoji/a-\uD83D\uDE00",
+        "dir/key-1050",
+        "emoji/b",
+        "dir/key-1099-missing",
+        "dir/key-0500");
+    final ExistenceChecker.Result result = new ExistenceChecker(s3Client, 4).exists(BUCKET, keys).get();
+
+    assertThat(result.present().stream().boxed().toList()).containsExactly(0, 2, 4, 5, 8);
+    // dir/: the first page starts after "dir/key-000" and ends at key-0999, the second starts after
+    // "dir/key-105" and is the last; emoji/ starts after "emoji/a-", the key minus its surrogate pair;
+    // the lone key in other/ is a HEAD
+    assertThat(result.listRequests()).isEqualTo(3);
+    assertThat(result.headRequests()).isEqualTo(1);
+  }
+
+  @Test
+  void fallbackHeadsOfOneDirectoryRunConcurrently() throws Exception {
+    final List<String> keys = IntStream.range(0, 8).mapToObj(i -> "dir/key-" + i).toList();
+    final StubClient s3Client = new StubClient();
+    final CompletableFuture<ExistenceChecker.Result> result =
+        new ExistenceChecker(s3Client, 4).exists("bucket", keys);
+
+    // every page comes back empty and truncated, so the listing gives up and HEADs the whole group
+    assertThat(s3Client.pendingHeads).hasSize(4);
+    while (!s3Client.pendingHeads.isEmpty()) {
+      final Map.Entry<String, CompletableFuture<HeadObjectResponse>> head = s3Client.pendingHeads.poll();
+      if (head.getKey().endsWith("-3") || head.getKey().endsWith("-6")) {
+        head.getValue().complete(HeadObjectResponse.builder().build());
+      } else {
+        head.getValue().completeExceptionally(S3Exception.builder().statusCode(404).build());
+      }
+    }
+
+    assertThat(result).isCompleted();
+    assertThat(result.get().present().stream().boxed().toList()).containsExactly(3, 6);
+    assertThat(result.get().listRequests()).isEqualTo(keys.size());
+    assertThat(result.get().headRequests()).isEqualTo(keys.size());
+    assertThat(s3Client.maxHeadsInFlight).isEqualTo(4);
+  }
+
+  /**
+   *  Answers lists at once and holds every HEAD until the test completes it.
+   */
+  private static final class StubClient implements S3AsyncClient {
+    private final Queue<Map.Entry<String, CompletableFuture<HeadObjectResponse>>> pendingHeads = new ArrayDeque<>();
+    private int maxHeadsInFlight;
+
+    @Override
+    public CompletableFuture<ListObjectsV2Response> listObjectsV2(final ListObjectsV2Request request) {
+      return CompletableFuture.completedFuture(ListObjectsV2Response.builder().isTruncated(true).build());
+    }
+
+    @Override
+    public CompletableFuture<HeadObjectResponse> headObject(final HeadObjectRequest request) {
+      final CompletableFuture<HeadObjectResponse> response = new CompletableFuture<>();
+      pendingHeads.add(Map.entry(request.key(), response));
+      maxHeadsInFlight = Math.max(maxHeadsInFlight, pendingHeads.size());
+      return response;
+    }
+
+    @Override
+    public String serviceName() {
+      return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,268 @@
+package io.github.sullis.s3.playground.testkit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.jspecify.annotations.Nullable;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+
+/**
+ *  Lists a bucket with ListObjectsV2, following continuation tokens, as a {@link Stream} in key order.
+ *
+ *  The keyspace can be split into shards at {@code boundaries}: shard {@code i} holds the keys after
+ *  boundary {@code i - 1} up to and including boundary {@code i}, so the shards cover every key exactly once
+ *  whatever the boundaries are. Each shard is its own chain of pages: it starts with {@code StartAfter} at
+ *  its lower boundary and stops at the first key past its upper one. {@link #boundaries} picks boundaries
+ *  from the common prefixes one delimiter level below the request's prefix.
+ *
+ *  Up to {@code maxInFlight} shards, starting with the one being read, fetch at the same time, each with one
+ *  request in flight and at most {@code prefetchPages} pages buffered ahead of the reader. A shard that has
+ *  buffered enough waits for the reader, so memory is bounded by {@code maxInFlight * prefetchPages} pages
+ *  however far apart the shards run. Without boundaries this is serial pagination that fetches the next page
+ *  while the current one is read.
+ *
+ *  Closing the stream stops further requests; pages already in flight are discarded.
+ */
+public class ParallelLister {
+  /** S3 orders keys by their UTF-8 bytes, which is code point order, not {@link String#compareTo} */
+  static final Comparator<String> KEY_ORDER = ParallelLister::compareCodePoints;
+
+  private final S3AsyncClient s3Client;
+  private final int maxInFlight;
+  private final int prefetchPages;
+
+  public ParallelLister(final S3AsyncClient s3Client, final int maxInFlight, final int prefetchPages) {
+    if (maxInFlight < 1 || prefetchPages < 1) {
+      throw new IllegalArgumentException("maxInFlight and prefetchPages must be positive: "
+          + maxInFlight + ", " + prefetchPages);
+    }
+    this.s3Client = s3Client;
+    this.maxInFlight = maxInFlight;
+    this.prefetchPages = prefetchPages;
+  }
+
+  public Stream<S3Object> list(final ListObjectsV2Request request) {
+    return list(request, List.of());
+  }
+
+  /**
+   *  @param boundaries need not be sorted or distinct; those not after the request's {@code StartAfter} are ignored
+   */
+  public Stream<S3Object> list(final ListObjectsV2Request request, final List<String> boundaries) {
+    if (request.continuationToken() != null) {
+      throw new IllegalArgumentException("start from StartAfter, not a continuation token");
+    }
+    final TreeSet<String> sorted = new TreeSet<>(KEY_ORDER);
+    sorted.addAll(boundaries);
+    final List<Shard> shards = new ArrayList<>();
+    String lower = request.startAfter();
+    for (String boundary : (lower == null) ? sorted : sorted.tailSet(lower, false)) {
+      shards.add(new Shard(request, lower, boundary));
+      lower = boundary;
+    }
+    shards.add(new Shard(request, lower, null));
+
+    final ShardedIterator iterator = new ShardedIterator(shards);
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+        .onClose(iterator::close);
+  }
+
+  /**
+   *  Up to {@code maxShards - 1} boundaries, evenly spaced over the common prefixes found with
+   *  {@code delimiter} under the request's prefix. Blocks while those are listed.
+   */
+  public List<String> boundaries(final ListObjectsV2Request request, final String delimiter, final int maxShards) {
+    final List<String> prefixes = new ArrayList<>();
+    s3Client.listObjectsV2Paginator(request.toBuilder().delimiter(delimiter).build())
+        .commonPrefixes()
+        .subscribe(commonPrefix -> prefixes.add(commonPrefix.prefix()))
+        .join();
+    final int count = Math.min(prefixes.size(), maxShards - 1);
+    final List<String> boundaries = new ArrayList<>(count);
+    for (int i = 1; i <= count; i++) {
+      boundaries.add(prefixes.get((int) ((long) i * prefixes.size() / (count + 1))));
+    }
+    return boundaries;
+  }
+
+  private static int compareCodePoints(final String a, final String b) {
+    int i = 0;
+    int j = 0;
+    while (i < a.length() && j < b.length()) {
+      final int ca = a.codePointAt(i);
+      final int cb = b.codePointAt(j);
+      if (ca != cb) {
+        return Integer.compare(ca, cb);
+      }
+      i += Character.charCount(ca);
+      j += Character.charCount(cb);
+    }
+    return Integer.compare(a.length() - i, b.length() - j);
+  }
+
+  /**
+   *  Pages arrive on SDK threads and are taken by the reader; both sides synchronize on the shard.
+   */
+  private final class Shard {
+    private final ListObjectsV2Request request;
+    private final @Nullable String lower;
+    private final @Nullable String upper;
+    private final Deque<List<S3Object>> pages = new ArrayDeque<>();
+    private @Nullable String continuationToken;
+    private boolean started;
+    private boolean fetching;
+    private boolean exhausted;
+    private boolean closed;
+    private @Nullable Throwable failure;
+
+    Shard(final ListObjectsV2Request request, @Nullable final String lower, @Nullable final String upper) {
+      this.request = request;
+      this.lower = lower;
+      this.upper = upper;
+    }
+
+    synchronized void start() {
+      started = true;
+      fetchIfRoom();
+    }
+
+    /**
+     *  @return null once the shard is exhausted
+     */
+    synchronized @Nullable List<S3Object> take() throws InterruptedException {
+      if (!started) {
+        start();
+      }
+      while (pages.isEmpty() && !exhausted && failure == null) {
+        wait();
+      }
+      if (failure != null) {
+        throw new CompletionException("listing failed: " + request.bucket(), failure);
+      }
+      final List<S3Object> page = pages.poll();
+      fetchIfRoom();
+      return page;
+    }
+
+    synchronized void close() {
+      closed = true;
+      pages.clear();
+    }
+
+    private void fetchIfRoom() {
+      if (fetching || exhausted || closed || failure != null || pages.size() >= prefetchPages) {
+        return;
+      }
+      fetching = true;
+      final ListObjectsV2Request.Builder builder = request.toBuilder();
+      if (continuationToken != null) {
+        builder.continuationToken(continuationToken).startAfter(null);
+      } else {
+        builder.startAfter(lower);
+      }
+      s3Client.listObjectsV2(builder.build()).whenComplete(this::onPage);
+    }
+
+    private synchronized void onPage(final ListObjectsV2Response response, final Throwable error) {
+      fetching = false;
+      if (closed) {
+        return;
+      }
+      if (error != null) {
+        failure = (error instanceof CompletionException) ? error.getCause() : error;
+        notifyAll();
+        return;
+      }
+      List<S3Object> contents = response.contents();
+      if (upper != null && !contents.isEmpty()
+          && KEY_ORDER.compare(contents.get(contents.size() - 1).key(), upper) > 0) {
+        contents = contents.stream().filter(object -> KEY_ORDER.compare(object.key(), upper) <= 0).toList();
+        exhausted = true;
+      }
+      if (!contents.isEmpty()) {
+        pages.add(contents);
+      }
+      continuationToken = Boolean.TRUE.equals(response.isTruncated()) ? response.nextContinuationToken() : null;
+      if (continuationToken == null) {
+        exhausted = true;
+      }
+      notifyAll();
+      fetchIfRoom();
+    }
+  }
+
+  /**
+   *  Only the reading thread touches the window of started shards.
+   */
+  private final class ShardedIterator implements Iterator<S3Object> {
+    private final Deque<Shard> pending;
+    private final Deque<Shard> window = new ArrayDeque<>();
+    private Iterator<S3Object> current = List.<S3Object>of().iterator();
+
+    ShardedIterator(final List<Shard> shards) {
+      this.pending = new ArrayDeque<>(shards);
+      fillWindow();
+    }
+
+    private void fillWindow() {
+      while (window.size() < maxInFlight && !pending.isEmpty()) {
+        Shard shard = pending.poll();
+        shard.start();
+        window.add(shard);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!current.hasNext()) {
+        final Shard shard = window.peek();
+        if (shard == null) {
+          return false;
+        }
+        final List<S3Object> page;
+        try {
+          page = shard.take();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new CompletionException(ex);
+        }
+        if (page == null) {
+          window.poll();
+          fillWindow();
+        } else {
+          current = page.iterator();
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public S3Object next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return current.next();
+    }
+
+    void close() {
+      window.forEach(Shard::close);
+      window.clear();
+      pending.clear();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package io.github.sullis.s3.playground.testkit;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+
+
+/**
+ *  Uploads the parts of a multipart upload concurrently, with at most {@code maxInFlight} parts in flight.
+ *
+ *  Each in-flight slot takes the next part number when its previous part completes, so
+ *  no thread blocks while parts are uploading. Completed parts are stored by part number,
+ *  so CompleteMultipartUpload always lists them in ascending order. If any part fails, no
+ *  new parts are started. Once the in-flight parts have settled, the upload is aborted and
+ *  the returned future fails with the first error.
+ *
+ *  {@code maxInFlight = 1} is the sequential path.
+ */
+public class ParallelMultipartUploader {
+  private static final Logger logger = LoggerFactory.getLogger(ParallelMultipartUploader.class);
+
+  private final S3AsyncClient s3Client;
+  private final int maxInFlight;
+
+  public ParallelMultipartUploader(final S3AsyncClient s3Client, final int maxInFlight) {
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+    }
+    this.s3Client = s3Client;
+    this.maxInFlight = maxInFlight;
+  }
+
+  /**
+   *  @param partBody called once per part number (1 to partCount), from whichever thread completed
+   *                  the previous part
+   */
+  public CompletableFuture<CompleteMultipartUploadResponse> upload(
+      final CreateMultipartUploadRequest createMultipartUploadRequest,
+      final int partCount,
+      final IntFunction<AsyncRequestBody> partBody) {
+    if (partCount < 1 || partCount > 10_000) {
+      throw new IllegalArgumentException("partCount must be between 1 and 10000: " + partCount);
+    }
+    return s3Client.createMultipartUpload(createMultipartUploadRequest)
+        .thenCompose(created -> uploadParts(new UploadState(createMultipartUploadRequest.bucket(),
+            createMultipartUploadRequest.key(), created.uploadId(), partCount, partBody)));
+  }
+
+  private CompletableFuture<CompleteMultipartUploadResponse> uploadParts(final UploadState state) {
+    CompletableFuture<?>[] slots = new CompletableFuture<?>[Math.min(maxInFlight, state.partCount)];
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = uploadRemainingParts(state);
+    }
+    CompletableFuture<CompleteMultipartUploadResponse> completed = CompletableFuture.allOf(slots)
+        .thenCompose(ignored -> s3Client.completeMultipartUpload(request -> request
+            .bucket(state.bucket)
+            .key(state.key)
+            .uploadId(state.uploadId)
+            .multipartUpload(upload -> upload.parts(Arrays.asList(state.completedParts)))));
+    return completed.exceptionallyCompose(failure -> abort(state, unwrap(failure)));
+  }
+
+  private CompletableFuture<Void> uploadRemainingParts(final UploadState state) {
+    if (state.failed) {
+      return CompletableFuture.completedFuture(null);
+    }
+    final int partNumber = state.nextPartNumber.getAndIncrement();
+    if (partNumber > state.partCount) {
+      return CompletableFuture.completedFuture(null);
+    }
+    final CompletableFuture<Void> uploaded;
+    try {
+      uploaded = s3Client.uploadPart(request -> request
+                  .bucket(state.bucket)
+                  .key(state.key)
+                  .uploadId(state.uploadId)
+                  .partNumber(partNumber),
+              state.partBody.apply(partNumber))
+          .thenAccept(response -> state.completedParts[partNumber - 1] =
+              CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+    } catch (RuntimeException ex) {
+      state.failed = true;
+      return CompletableFuture.failedFuture(ex);
+    }
+    return uploaded
+        .whenComplete((ignored, failure) -> {
+          if (failure != null) {
+            state.failed = true;
+          }
+        })
+        .thenCompose(ignored -> uploadRemainingParts(state));
+  }
+
+  private <T> CompletableFuture<T> abort(final UploadState state, final Throwable failure) {
+    logger.warn("aborting multipart upload: bucket={} key={} uploadId={}",
+        state.bucket, state.key, state.uploadId, failure);
+    return s3Client.abortMultipartUpload(request -> request
+            .bucket(state.bucket)
+            .key(state.key)
+            .uploadId(state.uploadId))
+        .handle((response, abortFailure) -> {
+          if (abortFailure != null) {
+            failure.addSuppressed(unwrap(abortFailure));
+          }
+          throw new CompletionException(failure);
+        });
+  }
+
+  private static Throwable unwrap(final Throwable throwable) {
+    return (throwable instanceof CompletionException && throwable.getCause() != null)
+        ? throwable.getCause()
+        : throwable;
+  }
+
+  private static final class UploadState {
+    final String bucket;
+    final String key;
+    final String uploadId;
+    final int partCount;
+    final IntFunction<AsyncRequestBody> partBody;
+    final CompletedPart[] completedParts;
+    final AtomicInteger nextPartNumber = new AtomicInteger(1);
+    volatile boolean failed;
+
+    UploadState(final String bucket,
+        final String key,
+        final String uploadId,
+        final int partCount,
+        final IntFunction<AsyncRequestBody> partBody) {
+      this.bucket = bucket;
+      this.key = key;
+      this.uploadId = uploadId;
+      this.partCount = partCount;
+      this.partBody = partBody;
+      this.completedParts = new CompletedPart[partCount];
+    }
+  }
+}
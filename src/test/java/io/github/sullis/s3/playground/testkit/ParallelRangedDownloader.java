@@ -0,0 +1,336 @@
+package io.github.sullis.s3.playground.testkit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jspecify.annotations.Nullable;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+
+/**
+ *  Downloads an object as byte ranges of {@code rangeSize}, with at most {@code maxInFlight} ranged GETs in flight.
+ *
+ *  The first range is fetched on its own; its {@code Content-Range} gives the object size and its ETag
+ *  pins the version for the remaining ranges ({@code If-Match}), so an overwrite mid-download fails
+ *  instead of producing a mixed file.
+ *
+ *  {@link #downloadToFile} sizes the file up front and writes every buffer straight to its offset with
+ *  positional {@link FileChannel} writes, so ranges can complete in any order and nothing is held in memory.
+ *  {@link #openInputStream} returns the object in order while keeping up to {@code maxInFlight}
+ *  ranges prefetched, so memory is bounded by {@code maxInFlight * rangeSize}.
+ *
+ *  Empty objects are not supported: S3 answers a range request on them with 416.
+ */
+public class ParallelRangedDownloader {
+  private final S3AsyncClient s3Client;
+  private final long rangeSize;
+  private final int maxInFlight;
+
+  public ParallelRangedDownloader(final S3AsyncClient s3Client, final long rangeSize, final int maxInFlight) {
+    if (rangeSize < 1) {
+      throw new IllegalArgumentException("rangeSize must be positive: " + rangeSize);
+    }
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+    }
+    this.s3Client = s3Client;
+    this.rangeSize = rangeSize;
+    this.maxInFlight = maxInFlight;
+  }
+
+  /**
+   *  Creates or truncates {@code destination}.
+   *
+   *  @return the response for the first range; its content length and range describe that range only
+   */
+  public CompletableFuture<GetObjectResponse> downloadToFile(final GetObjectRequest getObjectRequest,
+      final Path destination) {
+    final FileChannel channel;
+    try {
+      channel = FileChannel.open(destination,
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    } catch (IOException ex) {
+      return CompletableFuture.failedFuture(ex);
+    }
+    return s3Client.getObject(rangeRequest(getObjectRequest, null, 0, rangeSize),
+            new PositionalWriteTransformer(channel, 0))
+        .thenCompose(first -> {
+          final long size = objectSize(first);
+          final DownloadState state = new DownloadState(
+              rangeRequest(getObjectRequest, first.eTag(), 0, 0), channel, size);
+          if (size > rangeSize) {
+            try {
+              // allocate the full length once so positional writes never extend the file
+              channel.write(ByteBuffer.allocate(1), size - 1);
+            } catch (IOException ex) {
+              throw new UncheckedIOException(ex);
+            }
+          }
+          CompletableFuture<?>[] slots = new CompletableFuture<?>[(int) Math.min(maxInFlight, state.rangeCount)];
+          for (int i = 0; i < slots.length; i++) {
+            slots[i] = downloadRemainingRanges(state);
+          }
+          return CompletableFuture.allOf(slots).thenApply(ignored -> first);
+        })
+        .whenComplete((response, failure) -> {
+          try {
+            channel.close();
+          } catch (IOException ex) {
+            if (failure != null) {
+              failure.addSuppressed(ex);
+            } else {
+              throw new UncheckedIOException(ex);
+            }
+          }
+        });
+  }
+
+  /**
+   *  Blocks until the first range has arrived.
+   */
+  public InputStream openInputStream(final GetObjectRequest getObjectRequest) {
+    ResponseBytes<GetObjectResponse> first = s3Client.getObject(
+        rangeRequest(getObjectRequest, null, 0, rangeSize), AsyncResponseTransformer.toBytes()).join();
+    return new RangedInputStream(getObjectRequest, first);
+  }
+
+  private CompletableFuture<Void> downloadRemainingRanges(final DownloadState state) {
+    if (state.failed) {
+      return CompletableFuture.completedFuture(null);
+    }
+    final long range = state.nextRange.getAndIncrement();
+    if (range >= state.rangeCount) {
+      return CompletableFuture.completedFuture(null);
+    }
+    final long start = range * rangeSize;
+    return s3Client.getObject(rangeRequest(state.request, null, start, rangeSize),
+            new PositionalWriteTransformer(state.channel, start))
+        .whenComplete((ignored, failure) -> {
+          if (failure != null) {
+            state.failed = true;
+          }
+        })
+        .thenCompose(ignored -> downloadRemainingRanges(state));
+  }
+
+  private static GetObjectRequest rangeRequest(final GetObjectRequest request, @Nullable final String eTag,
+      final long start, final long length) {
+    GetObjectRequest.Builder builder = request.toBuilder();
+    if (length > 0) {
+      builder.range("bytes=" + start + "-" + (start + length - 1));
+    }
+    if (eTag != null) {
+      builder.ifMatch(eTag);
+    }
+    return builder.build();
+  }
+
+  /**
+   *  Total size from {@code Content-Range: bytes 0-n/size}; falls back to the content length when the
+   *  server ignored the range (object smaller than one range on some stores).
+   */
+  private static long objectSize(final GetObjectResponse response) {
+    final String contentRange = response.contentRange();
+    if (contentRange != null) {
+      final int slash = contentRange.lastIndexOf('/');
+      if (slash >= 0 && !contentRange.endsWith("*")) {
+        return Long.parseLong(contentRange.substring(slash + 1).trim());
+      }
+    }
+    return response.contentLength();
+  }
+
+  private final class DownloadState {
+    final GetObjectRequest request;
+    final FileChannel channel;
+    final long rangeCount;
+    /** range 0 is already done */
+    final AtomicLong nextRange = new AtomicLong(1);
+    volatile boolean failed;
+
+    DownloadState(final GetObjectRequest request, final FileChannel channel, final long size) {
+      this.request = request;
+      this.channel = channel;
+      this.rangeCount = (size + rangeSize - 1) / rangeSize;
+    }
+  }
+
+  /**
+   *  Writes each body buffer at its absolute file offset. {@link #prepare()} runs again for every retry
+   *  attempt, which rewinds to the start of the range.
+   */
+  private static final class PositionalWriteTransformer
+      implements AsyncResponseTransformer<GetObjectResponse, GetObjectResponse> {
+    private final FileChannel channel;
+    private final long start;
+    private volatile CompletableFuture<GetObjectResponse> future;
+    private volatile GetObjectResponse response;
+
+    PositionalWriteTransformer(final FileChannel channel, final long start) {
+      this.channel = channel;
+      this.start = start;
+    }
+
+    @Override
+    public CompletableFuture<GetObjectResponse> prepare() {
+      future = new CompletableFuture<>();
+      return future;
+    }
+
+    @Override
+    public void onResponse(final GetObjectResponse getObjectResponse) {
+      this.response = getObjectResponse;
+    }
+
+    @Override
+    public void onStream(final SdkPublisher<ByteBuffer> publisher) {
+      final CompletableFuture<GetObjectResponse> attempt = future;
+      publisher.subscribe(new Subscriber<ByteBuffer>() {
+        private Subscription subscription;
+        private long position = start;
+
+        @Override
+        public void onSubscribe(final Subscription s) {
+          subscription = s;
+          s.request(1);
+        }
+
+        @Override
+        public void onNext(final ByteBuffer byteBuffer) {
+          try {
+            while (byteBuffer.hasRemaining()) {
+              position += channel.write(byteBuffer, position);
+            }
+          } catch (IOException ex) {
+            subscription.cancel();
+            attempt.completeExceptionally(ex);
+            return;
+          }
+          subscription.request(1);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+          attempt.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+          attempt.complete(response);
+        }
+      });
+    }
+
+    @Override
+    public void exceptionOccurred(final Throwable error) {
+      final CompletableFuture<GetObjectResponse> attempt = future;
+      if (attempt != null) {
+        attempt.completeExceptionally(error);
+      }
+    }
+  }
+
+  /**
+   *  Only the reading thread touches the window; each range is a separate ranged GET buffered on the heap.
+   */
+  private final class RangedInputStream extends InputStream {
+    private final GetObjectRequest request;
+    private final long rangeCount;
+    private final Deque<CompletableFuture<ResponseBytes<GetObjectResponse>>> window = new ArrayDeque<>();
+    private long nextRange = 1;
+    private ByteBuffer current;
+    private boolean closed;
+
+    RangedInputStream(final GetObjectRequest getObjectRequest, final ResponseBytes<GetObjectResponse> first) {
+      final long size = objectSize(first.response());
+      this.request = rangeRequest(getObjectRequest, first.response().eTag(), 0, 0);
+      this.rangeCount = (size + rangeSize - 1) / rangeSize;
+      this.current = first.asByteBuffer();
+      fillWindow();
+    }
+
+    private void fillWindow() {
+      while (window.size() < maxInFlight && nextRange < rangeCount) {
+        window.add(s3Client.getObject(
+            rangeRequest(request, null, nextRange * rangeSize, rangeSize),
+            AsyncResponseTransformer.toBytes()));
+        nextRange++;
+      }
+    }
+
+    /**
+     *  @return false at end of object
+     */
+    private boolean advance() throws IOException {
+      while (!current.hasRemaining()) {
+        final CompletableFuture<ResponseBytes<GetObjectResponse>> next = window.poll();
+        if (next == null) {
+          return false;
+        }
+        try {
+          current = next.join().asByteBuffer();
+        } catch (CompletionException ex) {
+          throw new IOException("ranged GET failed: " + request.key(), ex.getCause());
+        }
+        fillWindow();
+      }
+      return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+      ensureOpen();
+      return advance() ? (current.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      ensureOpen();
+      if (len == 0) {
+        return 0;
+      }
+      if (!advance()) {
+        return -1;
+      }
+      final int n = Math.min(len, current.remaining());
+      current.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return closed ? 0 : current.remaining();
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        window.forEach(range -> range.cancel(true));
+        window.clear();
+      }
+    }
+
+    private void ensureOpen() throws IOException {
+      if (closed) {
+        throw new IOException("stream closed");
+      }
+    }
+  }
+}
@@ -0,0 +1,225 @@
+package io.github.sullis.s3.playground.testkit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.sync.RequestBody;
+
+
+/**
+ *  Deterministic part content held off-heap and handed to the SDK as read-only slices.
+ *
+ *  The content is generated once, either into a direct buffer or into a file that is memory-mapped.
+ *  Every request body after that is a view of the same memory, so uploading any number of parts
+ *  costs constant heap. Content is printable ASCII from a fixed seed, so the same part size always
+ *  produces the same bytes.
+ */
+public final class PartPayload {
+  public static final String CONTENT_TYPE = "binary/octet-stream";
+
+  private static final long SEED = 42L;
+
+  private final ByteBuffer content;
+
+  private PartPayload(final ByteBuffer content) {
+    this.content = content.asReadOnlyBuffer();
+  }
+
+  public static PartPayload allocate(final int partSize) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(partSize);
+    fill(buffer);
+    return new PartPayload(buffer.flip());
+  }
+
+  /**
+   *  Maps {@code file} read-only, writing the content first if the file does not already hold it.
+   */
+  public static PartPayload map(final Path file, final int partSize) throws IOException {
+    if (!Files.exists(file) || Files.size(file) != partSize) {
+      try (FileChannel channel = FileChannel.open(file,
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.min(partSize, 1024 * 1024));
+        SplittableRandom random = new SplittableRandom(SEED);
+        long remaining = partSize;
+        while (remaining > 0) {
+          buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+          fill(buffer, random);
+          buffer.flip();
+          while (buffer.hasRemaining()) {
+            remaining -= channel.write(buffer);
+          }
+        }
+      }
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new PartPayload(channel.map(FileChannel.MapMode.READ_ONLY, 0, partSize));
+    }
+  }
+
+  public int partSize() {
+    return content.capacity();
+  }
+
+  /**
+   *  Read-only view of the first {@code length} bytes, positioned at zero.
+   */
+  public ByteBuffer slice(final int length) {
+    return content.slice(0, length);
+  }
+
+  public ByteBuffer slice() {
+    return slice(partSize());
+  }
+
+  public AsyncRequestBody asyncRequestBody() {
+    return asyncRequestBody(partSize());
+  }
+
+  public AsyncRequestBody asyncRequestBody(final int length) {
+    return AsyncRequestBody.fromRemainingByteBufferUnsafe(slice(length));
+  }
+
+  /**
+   *  The content repeated up to {@code length} bytes, as one request body of any size, for clients that
+   *  split large uploads into parts themselves ({@code crtBuilder}). Each buffer is a slice of the same memory.
+   */
+  public AsyncRequestBody repeatedAsyncRequestBody(final long length) {
+    return new RepeatedRequestBody(length);
+  }
+
+  public RequestBody requestBody() {
+    return requestBody(partSize());
+  }
+
+  /**
+   *  Each (re)try gets a fresh stream over the same memory; nothing is copied onto the heap.
+   */
+  public RequestBody requestBody(final int length) {
+    return RequestBody.fromContentProvider(() -> new ByteBufferInputStream(slice(length)), length, CONTENT_TYPE);
+  }
+
+  private static void fill(final ByteBuffer buffer) {
+    fill(buffer, new SplittableRandom(SEED));
+  }
+
+  private static void fill(final ByteBuffer buffer, final SplittableRandom random) {
+    while (buffer.hasRemaining()) {
+      buffer.put((byte) ('a' + random.nextInt(26)));
+    }
+  }
+
+  private final class RepeatedRequestBody implements AsyncRequestBody {
+    private final long length;
+
+    RepeatedRequestBody(final long length) {
+      this.length = length;
+    }
+
+    @Override
+    public Optional<Long> contentLength() {
+      return Optional.of(length);
+    }
+
+    @Override
+    public String contentType() {
+      return CONTENT_TYPE;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super ByteBuffer> subscriber) {
+      subscriber.onSubscribe(new Subscription() {
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger draining = new AtomicInteger();
+        private long emitted;
+        private volatile boolean done;
+
+        @Override
+        public void request(final long n) {
+          if (n <= 0) {
+            done = true;
+            subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+            return;
+          }
+          demand.accumulateAndGet(n, (current, added) -> (current + added < 0) ? Long.MAX_VALUE : current + added);
+          // a subscriber that requests more from onNext only bumps the demand; the outer call emits it
+          if (draining.getAndIncrement() != 0) {
+            return;
+          }
+          do {
+            while (!done) {
+              if (emitted == length) {
+                done = true;
+                subscriber.onComplete();
+              } else if (demand.get() == 0) {
+                break;
+              } else {
+                emitNext();
+              }
+            }
+          } while (draining.decrementAndGet() != 0);
+        }
+
+        private void emitNext() {
+          final int chunk = (int) Math.min(partSize(), length - emitted);
+          emitted += chunk;
+          demand.decrementAndGet();
+          subscriber.onNext(slice(chunk));
+        }
+
+        @Override
+        public void cancel() {
+          done = true;
+        }
+      });
+    }
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(final ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      final int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public long skip(final long n) {
+      final int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+      buffer.position(buffer.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
@@ -0,0 +1,292 @@
+package io.github.sullis.s3.playground.testkit;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+import software.amazon.awssdk.transfer.s3.model.DownloadFileRequest;
+import software.amazon.awssdk.transfer.s3.model.FileDownload;
+import software.amazon.awssdk.transfer.s3.model.FileUpload;
+import software.amazon.awssdk.transfer.s3.model.ObjectTransfer;
+import software.amazon.awssdk.transfer.s3.model.ResumableFileDownload;
+import software.amazon.awssdk.transfer.s3.model.ResumableFileUpload;
+import software.amazon.awssdk.transfer.s3.model.UploadFileRequest;
+import software.amazon.awssdk.transfer.s3.progress.TransferListener;
+
+
+/**
+ *  Runs a transfer manager file download or upload, interrupts it part way and completes it, either by
+ *  resuming from a checkpoint persisted to disk or, as the baseline, by starting over from zero.
+ *
+ *  A checkpoint is the {@link ResumableFileDownload} or {@link ResumableFileUpload} serialized to
+ *  {@code checkpointFile}. The SDK only hands out that state from {@code pause()}, so each checkpoint
+ *  pauses the transfer, writes the file and resumes from what was written, every
+ *  {@code checkpointIntervalBytes} and at the interruption. The interruption closes the transfer manager the
+ *  way a crashed process would; a fresh one, on a client from {@code clients}, then continues from the
+ *  checkpoint file alone. Pass a supplier that builds a new client to drop the connections as well.
+ *
+ *  Uploads can only be paused, and so checkpointed, with a multipart client: {@code crtBuilder}, or a client
+ *  built with {@code multipartEnabled(true)}. With any other client {@code pause()} throws.
+ */
+public final class ResumableTransfers {
+  public enum Recovery { RESUME, RESTART }
+
+  /**
+   *  Byte counts come from the SDK's progress listeners. A resumed multipart transfer reports the parts it
+   *  skips as transferred, so there they overstate what crossed the network; a ranged download resume does not.
+   *
+   *  @param bytesTransferred bytes reported by every attempt together, so at least {@code objectSize}
+   *  @param resumedFrom bytes the checkpoint at the interruption recorded as done; 0 for {@link Recovery#RESTART}
+   *                     or when the transfer completed before it could be interrupted
+   *  @param bytesAfterInterruption bytes reported by the fresh transfer manager
+   */
+  public record Result(long objectSize,
+      long bytesTransferred,
+      long resumedFrom,
+      long bytesAfterInterruption,
+      int checkpoints,
+      boolean interrupted,
+      Duration wallTime) {
+
+    public long bytesRetransferred() {
+      return bytesTransferred - objectSize;
+    }
+  }
+
+  private static final Duration STOP_TIMEOUT = Duration.ofSeconds(1);
+
+  private final Supplier<S3AsyncClient> clients;
+  private final Path checkpointFile;
+  private final long checkpointIntervalBytes;
+
+  /**
+   *  @param checkpointIntervalBytes 0 checkpoints only at the interruption
+   */
+  public ResumableTransfers(final Supplier<S3AsyncClient> clients,
+      final Path checkpointFile,
+      final long checkpointIntervalBytes) {
+    this.clients = clients;
+    this.checkpointFile = checkpointFile;
+    this.checkpointIntervalBytes = checkpointIntervalBytes;
+  }
+
+  public Result download(final DownloadFileRequest request,
+      final long interruptAfterBytes,
+      final Recovery recovery) throws Exception {
+    return run(new Operations() {
+      @Override
+      public ObjectTransfer start(final S3TransferManager transferManager, final TransferListener listener) {
+        return transferManager.downloadFile(request.toBuilder().addTransferListener(listener).build());
+      }
+
+      @Override
+      public long checkpoint(final ObjectTransfer transfer) throws IOException, InterruptedException {
+        ResumableFileDownload paused = ((FileDownload) transfer).pause();
+        awaitStopped(transfer);
+        paused = settled(paused);
+        paused.serializeToFile(checkpointFile);
+        return paused.bytesTransferred();
+      }
+
+      @Override
+      public ObjectTransfer resume(final S3TransferManager transferManager, final TransferListener listener) {
+        ResumableFileDownload checkpoint = ResumableFileDownload.fromFile(checkpointFile);
+        return transferManager.resumeDownloadFile(checkpoint.toBuilder()
+            .downloadFileRequest(checkpoint.downloadFileRequest().toBuilder().addTransferListener(listener).build())
+            .build());
+      }
+
+      @Override
+      public long objectSize() throws IOException {
+        return Files.size(request.destination());
+      }
+    }, interruptAfterBytes, recovery);
+  }
+
+  public Result upload(final UploadFileRequest request,
+      final long interruptAfterBytes,
+      final Recovery recovery) throws Exception {
+    return run(new Operations() {
+      @Override
+      public ObjectTransfer start(final S3TransferManager transferManager, final TransferListener listener) {
+        return transferManager.uploadFile(request.toBuilder().addTransferListener(listener).build());
+      }
+
+      @Override
+      public long checkpoint(final ObjectTransfer transfer) throws IOException {
+        ResumableFileUpload paused = ((FileUpload) transfer).pause();
+        paused.serializeToFile(checkpointFile);
+        // the last part may be short
+        return Math.min(paused.transferredParts().orElse(0) * paused.partSizeInBytes().orElse(0),
+            Files.size(request.source()));
+      }
+
+      @Override
+      public ObjectTransfer resume(final S3TransferManager transferManager, final TransferListener listener) {
+        ResumableFileUpload checkpoint = ResumableFileUpload.fromFile(checkpointFile);
+        return transferManager.resumeUploadFile(checkpoint.toBuilder()
+            .uploadFileRequest(checkpoint.uploadFileRequest().toBuilder().addTransferListener(listener).build())
+            .build());
+      }
+
+      @Override
+      public long objectSize() throws IOException {
+        return Files.size(request.source());
+      }
+    }, interruptAfterBytes, recovery);
+  }
+
+  private Result run(final Operations operations,
+      final long interruptAfterBytes,
+      final Recovery recovery) throws Exception {
+    final long start = System.nanoTime();
+    S3TransferManager transferManager = S3TransferManager.builder().s3Client(clients.get()).build();
+    try {
+      long bytesTransferred = 0;
+      long resumedFrom = 0;
+      long bytesAtInterruption = -1;
+      int checkpoints = 0;
+      Progress progress = new Progress(0, nextThreshold(0, interruptAfterBytes, recovery));
+      ObjectTransfer transfer = operations.start(transferManager, progress);
+      while (true) {
+        CompletableFuture.anyOf(progress.thresholdReached, transfer.completionFuture()).exceptionally(ex -> null).get();
+        if (transfer.completionFuture().isDone()) {
+          transfer.completionFuture().get();
+          bytesTransferred = progress.bytes();
+          break;
+        }
+        final boolean interrupt = (bytesAtInterruption < 0) && (progress.bytes() >= interruptAfterBytes);
+        long checkpointed = 0;
+        if (recovery == Recovery.RESUME) {
+          checkpointed = operations.checkpoint(transfer);
+          checkpoints++;
+        } else {
+          transfer.completionFuture().cancel(true);
+        }
+        awaitStopped(transfer);
+        bytesTransferred = progress.bytes();
+        if (interrupt) {
+          bytesAtInterruption = bytesTransferred;
+          resumedFrom = checkpointed;
+          transferManager.close();
+          transferManager = S3TransferManager.builder().s3Client(clients.get()).build();
+        }
+        progress = new Progress(bytesTransferred, nextThreshold(bytesTransferred, interruptAfterBytes, recovery));
+        transfer = (recovery == Recovery.RESUME)
+            ? operations.resume(transferManager, progress)
+            : operations.start(transferManager, progress);
+      }
+      return new Result(operations.objectSize(),
+          bytesTransferred,
+          resumedFrom,
+          (bytesAtInterruption < 0) ? 0 : bytesTransferred - bytesAtInterruption,
+          checkpoints,
+          bytesAtInterruption >= 0,
+          Duration.ofNanos(System.nanoTime() - start));
+    } finally {
+      transferManager.close();
+      Files.deleteIfExists(checkpointFile);
+    }
+  }
+
+  /**
+   *  Once interrupted, a transfer runs to completion.
+   */
+  private long nextThreshold(final long bytesTransferred, final long interruptAfterBytes, final Recovery recovery) {
+    if (bytesTransferred >= interruptAfterBytes) {
+      return Long.MAX_VALUE;
+    }
+    if (recovery == Recovery.RESUME && checkpointIntervalBytes > 0) {
+      return Math.min(interruptAfterBytes, (bytesTransferred / checkpointIntervalBytes + 1) * checkpointIntervalBytes);
+    }
+    return interruptAfterBytes;
+  }
+
+  /**
+   *  Writes still in flight when {@code pause()} returned may have extended the file past the checkpoint, and
+   *  the SDK downloads the whole object again unless the file's length and modification time match it. Once
+   *  the transfer has stopped, the file is cut back to the checkpoint and the checkpoint takes its new time.
+   */
+  private static ResumableFileDownload settled(final ResumableFileDownload paused) throws IOException {
+    final Path destination = paused.downloadFileRequest().destination();
+    try (FileChannel channel = FileChannel.open(destination, StandardOpenOption.WRITE)) {
+      channel.truncate(paused.bytesTransferred());
+    }
+    return paused.toBuilder()
+        .fileLastModified(Instant.ofEpochMilli(destination.toFile().lastModified()))
+        .build();
+  }
+
+  /**
+   *  Lets requests still in flight settle, so their bytes are counted. The wait is bounded: a paused upload on
+   *  the Java multipart client never completes its future, and cancelling it would abort the multipart upload.
+   */
+  private static void awaitStopped(final ObjectTransfer transfer) throws InterruptedException {
+    try {
+      transfer.completionFuture().get(STOP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException | CancellationException | TimeoutException expected) {
+      // paused, cancelled, or still winding down
+    }
+  }
+
+  private interface Operations {
+    ObjectTransfer start(S3TransferManager transferManager, TransferListener listener);
+
+    /**
+     *  Pauses the transfer and persists it.
+     *
+     *  @return bytes the checkpoint records as done
+     */
+    long checkpoint(ObjectTransfer transfer) throws IOException, InterruptedException;
+
+    ObjectTransfer resume(S3TransferManager transferManager, TransferListener listener);
+
+    long objectSize() throws IOException;
+  }
+
+  /**
+   *  Bytes moved by one attempt, on top of {@code previousBytes} from earlier attempts. A resumed transfer
+   *  may start its progress at the bytes already done, so only the growth after initiation is counted.
+   */
+  private static final class Progress implements TransferListener {
+    final CompletableFuture<Void> thresholdReached = new CompletableFuture<>();
+    private final long previousBytes;
+    private final long threshold;
+    private volatile long initialBytes = -1;
+    private volatile long currentBytes;
+
+    Progress(final long previousBytes, final long threshold) {
+      this.previousBytes = previousBytes;
+      this.threshold = threshold;
+    }
+
+    @Override
+    public void transferInitiated(final Context.TransferInitiated context) {
+      initialBytes = context.progressSnapshot().transferredBytes();
+      currentBytes = initialBytes;
+    }
+
+    @Override
+    public void bytesTransferred(final Context.BytesTransferred context) {
+      currentBytes = context.progressSnapshot().transferredBytes();
+      if (bytes() >= threshold) {
+        thresholdReached.complete(null);
+      }
+    }
+
+    long bytes() {
+      return previousBytes + Math.max(0, currentBytes - Math.max(0, initialBytes));
+    }
+  }
+}
@@ -1,14 +1,25 @@
 package io.github.sullis.s3.playground.testkit;
 
+import io.github.sullis.s3.playground.metrics.TransferProgress;
 import java.io.File;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
-import org.apache.commons.io.IOUtils;
+import java.util.function.LongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.assertj.core.util.Files;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,23 +28,20 @@ import software.amazon.awssdk.core.SdkResponse;
 import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
-import software.amazon.awssdk.services.s3.model.Bucket;
 import software.amazon.awssdk.services.s3.model.BucketLifecycleConfiguration;
-import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
-import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
-import software.amazon.awssdk.services.s3.model.CompletedPart;
 import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
 import software.amazon.awssdk.services.s3.model.CreateBucketResponse;
 import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
-import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.DeleteBucketResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
-import software.amazon.awssdk.services.s3.model.HeadBucketResponse;
 import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsResponse;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutBucketLifecycleConfigurationRequest;
 import software.amazon.awssdk.services.s3.model.PutBucketLifecycleConfigurationResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
@@ -41,14 +49,13 @@ import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 import software.amazon.awssdk.services.s3.model.S3Object;
 import software.amazon.awssdk.services.s3.model.StorageClass;
-import software.amazon.awssdk.services.s3.model.UploadPartRequest;
-import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 import software.amazon.awssdk.transfer.s3.S3TransferManager;
 import software.amazon.awssdk.transfer.s3.model.CompletedFileDownload;
 import software.amazon.awssdk.transfer.s3.model.CompletedUpload;
 import software.amazon.awssdk.transfer.s3.model.DownloadFileRequest;
 import software.amazon.awssdk.transfer.s3.model.FileDownload;
 import software.amazon.awssdk.transfer.s3.model.Upload;
+import software.amazon.awssdk.transfer.s3.model.UploadFileRequest;
 import software.amazon.awssdk.transfer.s3.progress.LoggingTransferListener;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -60,22 +67,58 @@ import org.jspecify.annotations.Nullable;
 
 public class S3AsyncTestKit implements S3TestKit {
   private static final int PART_SIZE = 5 * 1024 * 1024;
+  private static final int LISTING_PAGE_SIZE = 20;
   private static final int NUM_PARTS = 3;
   private static final long EXPECTED_OBJECT_SIZE = NUM_PARTS * PART_SIZE;
+  private static final PartPayload PART_PAYLOAD = PartPayload.allocate(PART_SIZE);
+  private static final StreamingChecksum.ContentChecksum EXPECTED_OBJECT_CHECKSUM =
+      StreamingChecksum.ofRepeated(PART_PAYLOAD.slice(), NUM_PARTS);
+  /** DeleteObjects limit */
+  private static final int MAX_DELETE_BATCH_SIZE = 1000;
+  private static final int MAX_DELETE_BATCHES_IN_FLIGHT = 8;
+  private static final int MAX_EXISTENCE_CHECKS_IN_FLIGHT = 8;
+  private static final int CONDITIONAL_WRITE_RACERS = 8;
+  /** deliberately not a multiple of PART_SIZE, so ranges straddle part boundaries */
+  private static final long DOWNLOAD_RANGE_SIZE = 4 * 1024 * 1024;
+  /** large enough that a transfer interrupted after its first part is still far from done */
+  private static final int RESUMABLE_PARTS = 8;
+  private static final long RESUMABLE_OBJECT_SIZE = (long) RESUMABLE_PARTS * PART_SIZE;
+  private static final StreamingChecksum.ContentChecksum RESUMABLE_OBJECT_CHECKSUM =
+      StreamingChecksum.ofRepeated(PART_PAYLOAD.slice(), RESUMABLE_PARTS);
 
   private static final Logger logger = LoggerFactory.getLogger(S3AsyncTestKit.class);
 
-  private List<String> bucketsCreated = new ArrayList<>();
+  private final Queue<String> bucketsCreated = new ConcurrentLinkedQueue<>();
   private final S3AsyncClient s3Client;
   private final int bucketExpirationDays;
   private final boolean exerciseConditionalWrites;
+  private final @Nullable LongFunction<S3AsyncClient> multipartClients;
+  private final Path scratchDirectory;
 
   public S3AsyncTestKit(final S3AsyncClient s3Client,
       final int bucketExpirationDays,
       final boolean exerciseConditionalWrites) {
+    this(s3Client, bucketExpirationDays, exerciseConditionalWrites, null, Path.of(Files.temporaryFolderPath()));
+  }
+
+  /**
+   *  @param multipartClients builds a client with multipart support for a given part size, which the resumable
+   *                          upload check needs to pause uploads; null skips that check unless
+   *                          {@code s3Client} is a crtBuilder client
+   *  @param scratchDirectory where bucket inventory snapshots are written; they stay memory-mapped until
+   *                          collected, so the kit leaves them for the owner of the directory (e.g. a JUnit
+   *                          {@code @TempDir}) to delete
+   */
+  public S3AsyncTestKit(final S3AsyncClient s3Client,
+      final int bucketExpirationDays,
+      final boolean exerciseConditionalWrites,
+      final @Nullable LongFunction<S3AsyncClient> multipartClients,
+      final Path scratchDirectory) {
     this.s3Client = s3Client;
     this.bucketExpirationDays = bucketExpirationDays;
     this.exerciseConditionalWrites = exerciseConditionalWrites;
+    this.multipartClients = multipartClients;
+    this.scratchDirectory = scratchDirectory;
   }
 
   public void validate(@Nullable StorageClass storageClass)
@@ -85,6 +128,7 @@ public class S3AsyncTestKit implements S3TestKit {
     putObjectIntoBucket(bucket, storageClass);
     uploadMultiPartIntoBucket(bucket, storageClass);
     exerciseTransferManager(storageClass);
+    exerciseListing(bucket);
     if (exerciseConditionalWrites) {
       exerciseConditionalWrite(bucket);
     }
@@ -100,33 +144,10 @@ public class S3AsyncTestKit implements S3TestKit {
       createMultipartUploadBuilder.storageClass(storageClass);
     }
     CreateMultipartUploadRequest createMultipartUploadRequest = createMultipartUploadBuilder.build();
-    CreateMultipartUploadResponse createMultipartUploadResponse =
-        s3Client.createMultipartUpload(createMultipartUploadRequest).get();
-    assertSuccess(createMultipartUploadResponse);
-
-    final String uploadId = createMultipartUploadResponse.uploadId();
-
-    List<CompletedPart> completedParts = new ArrayList<>();
-    final String partText = "a".repeat(PART_SIZE);
-
-    for (int part = 1; part <= NUM_PARTS; part++) {
-      AsyncRequestBody requestBody = AsyncRequestBody.fromString(partText);
-      UploadPartRequest uploadPartRequest =
-          UploadPartRequest.builder().bucket(bucket).key(key).uploadId(uploadId).partNumber(part).build();
-      UploadPartResponse uploadPartResponse = s3Client.uploadPart(uploadPartRequest, requestBody).get();
-      assertSuccess(uploadPartResponse);
-      logger.info("S3AsyncClient uploaded part {} of {}", part, NUM_PARTS);
-      completedParts.add(CompletedPart.builder().partNumber(part).eTag(uploadPartResponse.eTag()).build());
-    }
-
-    CompletedMultipartUpload completedMultipartUpload =
-        CompletedMultipartUpload.builder().parts(completedParts).build();
 
-    CompleteMultipartUploadRequest completeMultipartUploadRequest =
-        CompleteMultipartUploadRequest.builder().bucket(bucket).key(key).uploadId(uploadId)
-            .multipartUpload(completedMultipartUpload).build();
-    CompleteMultipartUploadResponse completeMultipartUploadResponse =
-        s3Client.completeMultipartUpload(completeMultipartUploadRequest).get();
+    ParallelMultipartUploader uploader = new ParallelMultipartUploader(s3Client, NUM_PARTS);
+    CompleteMultipartUploadResponse completeMultipartUploadResponse = uploader.upload(
+        createMultipartUploadRequest, NUM_PARTS, part -> PART_PAYLOAD.asyncRequestBody()).get();
     assertSuccess(completeMultipartUploadResponse);
     assertThat(completeMultipartUploadResponse.location())
         .contains(bucket)
@@ -139,7 +160,8 @@ public class S3AsyncTestKit implements S3TestKit {
     localFile.deleteOnExit();
 
     GetObjectRequest getObjectRequest = GetObjectRequest.builder().bucket(bucket).key(key).build();
-    GetObjectResponse getObjectResponse = s3Client.getObject(getObjectRequest, localFile.toPath()).get();
+    ParallelRangedDownloader downloader = new ParallelRangedDownloader(s3Client, DOWNLOAD_RANGE_SIZE, NUM_PARTS);
+    GetObjectResponse getObjectResponse = downloader.downloadToFile(getObjectRequest, localPath).get();
     assertSuccess(getObjectResponse);
     assertThat(getObjectResponse.contentType()).startsWith("plain/text");
     assertThat(getObjectResponse.eTag()).isNotNull();
@@ -147,22 +169,114 @@ public class S3AsyncTestKit implements S3TestKit {
     assertThat(localFile).exists();
     assertThat(localFile).hasSize(EXPECTED_OBJECT_SIZE);
 
-    InputStream inputStream = s3Client.getObject(getObjectRequest, AsyncResponseTransformer.toBlockingInputStream()).get();
-    assertThat(inputStream).hasContent(IOUtils.toString(localFile.toURI(), StandardCharsets.UTF_8));
-    inputStream.close();
+    assertThat(StreamingChecksum.of(localPath)).isEqualTo(EXPECTED_OBJECT_CHECKSUM);
+    try (InputStream inputStream = downloader.openInputStream(getObjectRequest)) {
+      assertThat(StreamingChecksum.of(inputStream)).isEqualTo(EXPECTED_OBJECT_CHECKSUM);
+    }
+    assertThat(s3Client.getObject(getObjectRequest, StreamingChecksum.<GetObjectResponse>asyncResponseTransformer()).get())
+        .isEqualTo(EXPECTED_OBJECT_CHECKSUM);
 
-    ListObjectsV2Request listObjectsV2Request = ListObjectsV2Request.builder().bucket(bucket).build();
-    ListObjectsV2Response listObjectsV2Response = s3Client.listObjectsV2(listObjectsV2Request).get();
-    assertSuccess(listObjectsV2Response);
-    List<S3Object> s3Objects = listObjectsV2Response.contents()
-        .stream()
-        .filter(obj -> obj.key().equals(key))
-        .toList();
+    List<S3Object> s3Objects;
+    try (Stream<S3Object> listing = new ParallelLister(s3Client, 1, 1)
+        .list(ListObjectsV2Request.builder().bucket(bucket).prefix(key).build())) {
+      s3Objects = listing.filter(obj -> obj.key().equals(key)).toList();
+    }
     assertThat(s3Objects).hasSize(1);
     S3Object s3Object = s3Objects.get(0);
     assertThat(s3Object.key()).isEqualTo(key);
     assertThat(s3Object.eTag()).isNotNull();
     assertThat(s3Object.size()).isEqualTo(EXPECTED_OBJECT_SIZE);
+
+    assertMultipartUploadAbortedOnFailure(bucket);
+  }
+
+  /**
+   *  Lists a few directories of keys in pages of {@value #LISTING_PAGE_SIZE}: serially, and sharded at the
+   *  directory prefixes. Both must return every key once, in key order.
+   */
+  private void exerciseListing(final String bucket) throws Exception {
+    final String prefix = "listing-" + UUID.randomUUID() + "/";
+    final List<String> keys = new ArrayList<>();
+    for (int directory = 0; directory < 5; directory++) {
+      for (int i = 0; i < 30; i++) {
+        keys.add(String.format("%sd%d/key-%03d", prefix, directory, i));
+      }
+    }
+    keys.add(prefix + "top-level-key");
+    CompletableFuture.allOf(keys.stream()
+        .map(key -> s3Client.putObject(request -> request.bucket(bucket).key(key), AsyncRequestBody.empty()))
+        .toArray(CompletableFuture<?>[]::new)).get();
+    final List<String> expected = keys.stream().sorted().toList();
+
+    final ListObjectsV2Request request = ListObjectsV2Request.builder()
+        .bucket(bucket)
+        .prefix(prefix)
+        .maxKeys(LISTING_PAGE_SIZE)
+        .build();
+    final ParallelLister lister = new ParallelLister(s3Client, 3, 2);
+    try (Stream<S3Object> listing = lister.list(request)) {
+      assertThat(listing.map(S3Object::key).toList()).isEqualTo(expected);
+    }
+    final List<String> boundaries = lister.boundaries(request, "/", 4);
+    assertThat(boundaries).hasSize(3);
+    try (Stream<S3Object> listing = lister.list(request, boundaries)) {
+      assertThat(listing.map(S3Object::key).toList()).isEqualTo(expected);
+    }
+
+    assertKeysExist(bucket, keys);
+    final List<String> missing = List.of(prefix + "d0/key-0001", prefix + "d4/missing", prefix + "missing/key");
+    final List<String> mixed = new ArrayList<>(keys);
+    mixed.addAll(1, missing);
+    final ExistenceChecker.Result existence = new ExistenceChecker(s3Client, 4).exists(bucket, mixed).get();
+    assertThat(existence.present().cardinality()).isEqualTo(keys.size());
+    assertThat(missing).allSatisfy(key -> assertThat(existence.present().get(mixed.indexOf(key))).isFalse());
+    // one LIST per directory instead of a HEAD per key; the lone key in missing/ costs a HEAD
+    assertThat(existence.listRequests() + existence.headRequests()).isLessThan(mixed.size() / 4);
+    assertThat(new ExistenceChecker(s3Client, 1).bucketExists(bucket + "-missing").get()).isFalse();
+
+    final Path before = scratchDirectory.resolve("inventory-" + UUID.randomUUID() + ".bin");
+    final Path after = scratchDirectory.resolve("inventory-" + UUID.randomUUID() + ".bin");
+    try (Stream<S3Object> listing = lister.list(request, boundaries)) {
+      assertThat(BucketInventory.write(listing, before).size()).isEqualTo(expected.size());
+    }
+    final BucketInventory snapshot = BucketInventory.open(before);
+    assertThat(snapshot.stream().map(BucketInventory.Entry::key).toList()).isEqualTo(expected);
+    assertThat(snapshot.range(prefix + "d3/").map(BucketInventory.Entry::key).toList())
+        .isEqualTo(expected.stream().filter(key -> key.startsWith(prefix + "d3/")).toList());
+
+    final String removed = prefix + "d0/key-000";
+    final String modified = prefix + "d1/key-001";
+    final String added = prefix + "d2/key-added";
+    s3Client.deleteObject(delete -> delete.bucket(bucket).key(removed)).get();
+    s3Client.putObject(put -> put.bucket(bucket).key(modified), AsyncRequestBody.fromString("modified")).get();
+    s3Client.putObject(put -> put.bucket(bucket).key(added), AsyncRequestBody.empty()).get();
+    try (Stream<S3Object> listing = lister.list(request, boundaries)) {
+      BucketInventory.write(listing, after);
+    }
+    assertThat(BucketInventory.diff(snapshot, BucketInventory.open(after))
+        .map(change -> change.type() + " " + change.key())
+        .toList())
+        .containsExactly("REMOVED " + removed, "MODIFIED " + modified, "ADDED " + added);
+  }
+
+  private void assertMultipartUploadAbortedOnFailure(final String bucket) throws Exception {
+    final String key = "multipart-abort-key-" + UUID.randomUUID();
+    ParallelMultipartUploader uploader = new ParallelMultipartUploader(s3Client, 2);
+    assertThatThrownBy(() -> uploader.upload(
+        CreateMultipartUploadRequest.builder().bucket(bucket).key(key).build(),
+        NUM_PARTS,
+        part -> {
+          if (part == NUM_PARTS) {
+            throw new IllegalStateException("part " + part + " failed");
+          }
+          return PART_PAYLOAD.asyncRequestBody();
+        }).get())
+        .isInstanceOf(ExecutionException.class)
+        .hasRootCauseInstanceOf(IllegalStateException.class);
+
+    ListMultipartUploadsResponse uploads = s3Client.listMultipartUploads(request -> request.bucket(bucket).prefix(key)).get();
+    assertSuccess(uploads);
+    assertThat(uploads.uploads()).isEmpty();
   }
 
   @Override
@@ -265,6 +379,25 @@ public class S3AsyncTestKit implements S3TestKit {
 
     responseBody = new String(getResponse.readAllBytes(), StandardCharsets.UTF_8);
     assertThat(responseBody).isEqualTo("with-valid-etag");
+
+    // racing creators: exactly one wins; S3 answers the others 412, or 409 while the winner is in flight
+    final String racedKey = "test-raced-key-" + UUID.randomUUID();
+    final List<CompletableFuture<PutObjectResponse>> racers = new ArrayList<>();
+    for (int i = 0; i < CONDITIONAL_WRITE_RACERS; i++) {
+      racers.add(s3Client.putObject(request -> request.bucket(bucket).key(racedKey).ifNoneMatch("*"),
+          AsyncRequestBody.fromString("racer-" + i)));
+    }
+    int winners = 0;
+    for (CompletableFuture<PutObjectResponse> racer : racers) {
+      try {
+        assertSuccess(racer.get());
+        winners++;
+      } catch (ExecutionException ex) {
+        assertThat(ex.getCause()).isInstanceOfSatisfying(S3Exception.class,
+            s3Exception -> assertThat(s3Exception.statusCode()).isIn(409, 412));
+      }
+    }
+    assertThat(winners).isEqualTo(1);
   }
 
   public void exerciseTransferManager(@Nullable StorageClass storageClass)
@@ -279,7 +412,8 @@ public class S3AsyncTestKit implements S3TestKit {
 
     final LoggingTransferListener listener = LoggingTransferListener.create();
 
-    try (S3TransferManager transferManager = S3TransferManager.builder().s3Client(s3Client).build()) {
+    try (TransferProgress progress = new TransferProgress();
+         S3TransferManager transferManager = S3TransferManager.builder().s3Client(s3Client).build()) {
 
       PutObjectRequest.Builder putObjectRequestBuilder = PutObjectRequest.builder().bucket(bucket).key(uploadKey);
       if (storageClass != null) {
@@ -287,6 +421,7 @@ public class S3AsyncTestKit implements S3TestKit {
       }
       Upload upload = transferManager.upload(
           uploadReq -> uploadReq.requestBody(AsyncRequestBody.fromString(payload)).addTransferListener(listener)
+              .addTransferListener(progress.newListener())
               .putObjectRequest(putObjectRequestBuilder.build()));
       CompletedUpload completedUpload = upload.completionFuture().get();
       assertThat(completedUpload.response().eTag()).isNotNull();
@@ -300,7 +435,8 @@ public class S3AsyncTestKit implements S3TestKit {
       File destinationFile = Files.newTemporaryFile();
 
       DownloadFileRequest downloadFileRequest =
-          DownloadFileRequest.builder().addTransferListener(listener).destination(destinationFile)
+          DownloadFileRequest.builder().addTransferListener(listener).addTransferListener(progress.newListener())
+              .destination(destinationFile)
               .getObjectRequest(GetObjectRequest.builder().bucket(bucket).key(uploadKey).build()).build();
 
       FileDownload fileDownload = transferManager.downloadFile(downloadFileRequest);
@@ -317,17 +453,128 @@ public class S3AsyncTestKit implements S3TestKit {
 
       assertThat(destinationFile).content()
           .isEqualTo(payload);
+
+      assertThat(progress.bytesTransferred()).isEqualTo(2L * payload.length());
+      assertThat(progress.completedTransfers()).isEqualTo(2);
+      assertThat(progress.activeTransfers()).isZero();
     }
+
+    exerciseResumableDownload(bucket);
+    exerciseResumableUpload(bucket);
+  }
+
+  /**
+   *  Interrupts a download after its first part's worth of bytes and resumes it from the checkpoint file with a
+   *  new transfer manager. Only the bytes the checkpoint did not cover are downloaded again; crtBuilder may
+   *  restart from the first byte instead, so for it the whole object is the upper bound.
+   */
+  private void exerciseResumableDownload(final String bucket) throws Exception {
+    final String key = "resumable-key-" + UUID.randomUUID();
+    new ParallelMultipartUploader(s3Client, RESUMABLE_PARTS).upload(
+        CreateMultipartUploadRequest.builder().bucket(bucket).key(key).build(),
+        RESUMABLE_PARTS,
+        part -> PART_PAYLOAD.asyncRequestBody()).get();
+
+    File destinationFile = Files.newTemporaryFile();
+    Path checkpointFile = Path.of(Files.temporaryFolderPath(), "resumable-" + UUID.randomUUID() + ".json");
+    ResumableTransfers transfers = new ResumableTransfers(() -> s3Client, checkpointFile, 0);
+    ResumableTransfers.Result result = transfers.download(
+        DownloadFileRequest.builder()
+            .destination(destinationFile)
+            .getObjectRequest(request -> request.bucket(bucket).key(key))
+            .build(),
+        PART_SIZE,
+        ResumableTransfers.Recovery.RESUME);
+    logger.info("exerciseResumableDownload: {}", result);
+
+    assertThat(StreamingChecksum.of(destinationFile.toPath())).isEqualTo(RESUMABLE_OBJECT_CHECKSUM);
+    assertThat(result.interrupted()).isTrue();
+    assertThat(result.checkpoints()).isEqualTo(1);
+    if (isCrtBuilder()) {
+      assertThat(result.bytesAfterInterruption())
+          .isBetween(RESUMABLE_OBJECT_SIZE - result.resumedFrom(), RESUMABLE_OBJECT_SIZE);
+    } else {
+      assertThat(result.resumedFrom()).isPositive();
+      assertThat(result.bytesAfterInterruption()).isEqualTo(RESUMABLE_OBJECT_SIZE - result.resumedFrom());
+    }
+    assertThat(checkpointFile).doesNotExist();
+    destinationFile.delete();
+  }
+
+  /**
+   *  Interrupts an upload after its first part's worth of bytes and resumes it from the checkpoint file with a
+   *  new transfer manager and a new client. A resumed multipart upload reports the parts it skips as
+   *  transferred, so the check is on the object's content and the recorded parts rather than on byte counts.
+   */
+  private void exerciseResumableUpload(final String bucket) throws Exception {
+    if (!isCrtBuilder() && multipartClients == null) {
+      logger.info("exerciseResumableUpload: skipped, no multipart client");
+      return;
+    }
+    final String key = "resumable-upload-key-" + UUID.randomUUID();
+    File sourceFile = Files.newTemporaryFile();
+    try (FileChannel channel = FileChannel.open(sourceFile.toPath(), StandardOpenOption.WRITE)) {
+      for (int i = 0; i < RESUMABLE_PARTS; i++) {
+        ByteBuffer part = PART_PAYLOAD.slice();
+        while (part.hasRemaining()) {
+          channel.write(part);
+        }
+      }
+    }
+    Path checkpointFile = Path.of(Files.temporaryFolderPath(), "resumable-" + UUID.randomUUID() + ".json");
+    List<S3AsyncClient> transferClients = new ArrayList<>();
+    ResumableTransfers transfers = new ResumableTransfers(() -> {
+      if (isCrtBuilder()) {
+        return s3Client;
+      }
+      S3AsyncClient client = multipartClients.apply(PART_SIZE);
+      transferClients.add(client);
+      return client;
+    }, checkpointFile, 0);
+    ResumableTransfers.Result result;
+    try {
+      result = transfers.upload(
+          UploadFileRequest.builder()
+              .source(sourceFile)
+              .putObjectRequest(request -> request.bucket(bucket).key(key))
+              .build(),
+          PART_SIZE,
+          ResumableTransfers.Recovery.RESUME);
+    } finally {
+      transferClients.forEach(S3AsyncClient::close);
+    }
+    logger.info("exerciseResumableUpload: {}", result);
+
+    assertThat(result.interrupted()).isTrue();
+    assertThat(result.checkpoints()).isEqualTo(1);
+    assertThat(result.resumedFrom()).isBetween(0L, RESUMABLE_OBJECT_SIZE);
+    // the resumed upload completed the original multipart upload, whose ETag ends in -<part count>
+    HeadObjectResponse head = s3Client.headObject(request -> request.bucket(bucket).key(key)).get();
+    assertThat(head.contentLength()).isEqualTo(RESUMABLE_OBJECT_SIZE);
+    assertThat(head.eTag()).contains("-");
+    try (InputStream in = s3Client.getObject(request -> request.bucket(bucket).key(key),
+        AsyncResponseTransformer.toBlockingInputStream()).get()) {
+      assertThat(StreamingChecksum.of(in)).isEqualTo(RESUMABLE_OBJECT_CHECKSUM);
+    }
+    assertThat(checkpointFile).doesNotExist();
+    sourceFile.delete();
+  }
+
+  /**
+   *  The crtBuilder client class is SDK-internal, so it is matched by name.
+   */
+  private boolean isCrtBuilder() {
+    return s3Client.getClass().getSimpleName().equals("DefaultS3CrtAsyncClient");
   }
 
+  /**
+   *  A single HeadBucket, through {@link ExistenceChecker#bucketExists}.
+   */
   public void assertBucketExists(final String bucketName)
       throws ExecutionException, InterruptedException {
-    Bucket bucket = s3Client.listBuckets().get().buckets().stream().filter(b -> b.name().equals(bucketName)).findFirst().get();
-    assertThat(bucket.creationDate()).isNotNull();
-    assertThat(bucket.name()).isEqualTo(bucketName);
-
-    HeadBucketResponse headBucketResponse = s3Client.headBucket(request -> request.bucket(bucketName)).get();
-    assertSuccess(headBucketResponse);
+    assertThat(new ExistenceChecker(s3Client, 1).bucketExists(bucketName).get())
+        .as("bucket %s exists", bucketName)
+        .isTrue();
   }
 
   public void assertKeyExists(final String bucketName, final String key) throws Exception {
@@ -337,6 +584,17 @@ public class S3AsyncTestKit implements S3TestKit {
     assertThat(headBucketResponse.contentLength()).isGreaterThan(0);
   }
 
+  /**
+   *  Checks many keys with a handful of LIST requests rather than one HEAD each.
+   */
+  public void assertKeysExist(final String bucketName, final List<String> keys) throws Exception {
+    ExistenceChecker.Result result = new ExistenceChecker(s3Client, MAX_EXISTENCE_CHECKS_IN_FLIGHT)
+        .exists(bucketName, keys).get();
+    assertThat(IntStream.range(0, keys.size()).filter(i -> !result.present().get(i)).mapToObj(keys::get))
+        .as("missing keys")
+        .isEmpty();
+  }
+
   public String createNewBucket()
       throws ExecutionException, InterruptedException {
 
@@ -368,19 +626,66 @@ public class S3AsyncTestKit implements S3TestKit {
     assertThat(sdkResponse.sdkHttpResponse().isSuccessful()).isTrue();
   }
 
+  /**
+   *  Aborts in-progress multipart uploads, then pages through every key and deletes
+   *  each page with one DeleteObjects call. Up to {@value #MAX_DELETE_BATCHES_IN_FLIGHT}
+   *  batches run concurrently while listing continues.
+   */
   public void deleteBucket(final String bucketName)
       throws ExecutionException, InterruptedException {
     logger.info("deleteBucket: {}", bucketName);
-    ListObjectsV2Response listResponse = s3Client.listObjectsV2(request -> request.bucket(bucketName)).get();
-    for (S3Object s3Object : listResponse.contents()) {
-      s3Client.deleteObject(request -> request.bucket(bucketName).key(s3Object.key())).get();
-    }
+    List<CompletableFuture<?>> aborts = new ArrayList<>();
+    s3Client.listMultipartUploadsPaginator(request -> request.bucket(bucketName))
+        .uploads()
+        .subscribe(upload -> aborts.add(s3Client.abortMultipartUpload(request -> request
+            .bucket(bucketName)
+            .key(upload.key())
+            .uploadId(upload.uploadId()))))
+        .get();
+    CompletableFuture.allOf(aborts.toArray(new CompletableFuture<?>[0])).get();
+
+    Deque<CompletableFuture<?>> batchesInFlight = new ArrayDeque<>();
+    String continuationToken = null;
+    do {
+      final String token = continuationToken;
+      ListObjectsV2Response page = s3Client.listObjectsV2(request -> request
+          .bucket(bucketName)
+          .maxKeys(MAX_DELETE_BATCH_SIZE)
+          .continuationToken(token)).get();
+      if (!page.contents().isEmpty()) {
+        if (batchesInFlight.size() == MAX_DELETE_BATCHES_IN_FLIGHT) {
+          batchesInFlight.removeFirst().get();
+        }
+        batchesInFlight.addLast(deleteObjects(bucketName, page.contents()));
+      }
+      continuationToken = Boolean.TRUE.equals(page.isTruncated()) ? page.nextContinuationToken() : null;
+    } while (continuationToken != null);
+    CompletableFuture.allOf(batchesInFlight.toArray(new CompletableFuture<?>[0])).get();
+
     DeleteBucketResponse response = s3Client.deleteBucket(request -> request.bucket(bucketName)).get();
     assertSuccess(response);
   }
 
+  private CompletableFuture<DeleteObjectsResponse> deleteObjects(final String bucketName, final List<S3Object> s3Objects) {
+    List<ObjectIdentifier> keys = s3Objects.stream()
+        .map(s3Object -> ObjectIdentifier.builder().key(s3Object.key()).build())
+        .toList();
+    return s3Client.deleteObjects(request -> request
+            .bucket(bucketName)
+            .delete(delete -> delete.objects(keys).quiet(true)))
+        .thenApply(response -> {
+          assertSuccess(response);
+          assertThat(response.errors()).isEmpty();
+          return response;
+        });
+  }
+
+  /**
+   *  Safe to call from several threads; each bucket is deleted once.
+   */
   public void cleanup() {
-    for (String bucketName : bucketsCreated) {
+    String bucketName;
+    while ((bucketName = bucketsCreated.poll()) != null) {
       try {
         deleteBucket(bucketName);
       } catch (Exception ex) {
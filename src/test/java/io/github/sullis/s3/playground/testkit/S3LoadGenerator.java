@@ -0,0 +1,330 @@
+package io.github.sullis.s3.playground.testkit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+
+/**
+ *  Drives a single {@link S3Client} from many virtual threads with a weighted mix of
+ *  put, get, head, list and delete requests, and records latency per operation in HDR histograms.
+ *
+ *  With a positive {@code targetRatePerSecond} the load is open-loop: request start times are
+ *  scheduled at a fixed interval and shared by all threads, and latency is measured from the
+ *  scheduled start. Time spent waiting for a free thread or a pooled connection therefore shows up
+ *  in the percentiles instead of silently lowering the request rate. With a rate of zero every thread
+ *  issues its next request as soon as the previous one completes.
+ *
+ *  Keys are drawn from a fixed key space that is written once before the warm-up, so gets and heads
+ *  mostly hit. A get or head for a key removed by a delete counts as a completed request, not an error.
+ *
+ *  On JDK 21 the Apache HTTP client pins a virtual thread to its carrier while it waits for a pooled
+ *  connection. Thousands of such threads can occupy every carrier and stall every other virtual thread
+ *  in the JVM. Set {@code maxConcurrentRequests} to the pool size to make the threads queue on a
+ *  fair semaphore, where they unmount, instead of inside the pool.
+ */
+public class S3LoadGenerator {
+  private static final Logger logger = LoggerFactory.getLogger(S3LoadGenerator.class);
+  private static final String KEY_PREFIX = "load-";
+  private static final int LIST_MAX_KEYS = 100;
+
+  public enum Operation { PUT, GET, HEAD, LIST, DELETE }
+
+  /**
+   *  @param maxConcurrentRequests requests allowed past the gate at once; zero means no gate
+   *  @param mix relative weight of each operation; operations that are absent or have weight zero are not issued
+   */
+  public record Profile(int virtualThreads,
+      double targetRatePerSecond,
+      int maxConcurrentRequests,
+      Duration warmUp,
+      Duration measurement,
+      int objectSize,
+      int keySpace,
+      Map<Operation, Integer> mix) {
+
+    public Profile {
+      if (virtualThreads < 1) {
+        throw new IllegalArgumentException("virtualThreads must be positive: " + virtualThreads);
+      }
+      if (targetRatePerSecond < 0) {
+        throw new IllegalArgumentException("targetRatePerSecond must not be negative: " + targetRatePerSecond);
+      }
+      if (maxConcurrentRequests < 0) {
+        throw new IllegalArgumentException("maxConcurrentRequests must not be negative: " + maxConcurrentRequests);
+      }
+      if (objectSize < 0 || keySpace < 1) {
+        throw new IllegalArgumentException("invalid objectSize/keySpace: " + objectSize + "/" + keySpace);
+      }
+      if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+        throw new IllegalArgumentException("mix has no positive weight: " + mix);
+      }
+      mix = Collections.unmodifiableMap(new EnumMap<>(mix));
+    }
+
+    /**
+     *  Read-mostly mix: 50% get, 20% head, 15% put, 10% list, 5% delete over 1000 keys of 4 KiB.
+     */
+    public static Profile readMostly(final int virtualThreads, final double targetRatePerSecond,
+        final int maxConcurrentRequests, final Duration warmUp, final Duration measurement) {
+      return new Profile(virtualThreads, targetRatePerSecond, maxConcurrentRequests, warmUp, measurement, 4096, 1000,
+          Map.of(Operation.GET, 50, Operation.HEAD, 20, Operation.PUT, 15, Operation.LIST, 10, Operation.DELETE, 5));
+    }
+  }
+
+  /**
+   *  @param latency response time in nanoseconds, measured from the scheduled start
+   */
+  public record OperationResult(Operation operation, Histogram latency, long errors) {
+    public long count() {
+      return latency.getTotalCount();
+    }
+  }
+
+  public record Report(Profile profile, Duration elapsed, Map<Operation, OperationResult> results) {
+    public long totalCount() {
+      return results.values().stream().mapToLong(OperationResult::count).sum();
+    }
+
+    public long totalErrors() {
+      return results.values().stream().mapToLong(OperationResult::errors).sum();
+    }
+
+    public double throughputPerSecond() {
+      return totalCount() / (elapsed.toNanos() / 1e9d);
+    }
+
+    public void log() {
+      logger.info("virtualThreads={} maxConcurrentRequests={} targetRate={}/s achieved={}/s requests={} errors={}",
+          profile.virtualThreads(), profile.maxConcurrentRequests(), profile.targetRatePerSecond(), String.format("%.1f", throughputPerSecond()),
+          totalCount(), totalErrors());
+      for (OperationResult result : results.values()) {
+        Histogram h = result.latency();
+        logger.info("operation={} count={} errors={} p50={}ms p90={}ms p99={}ms p999={}ms max={}ms",
+            result.operation(), result.count(), result.errors(),
+            millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(90)),
+            millis(h.getValueAtPercentile(99)), millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()));
+      }
+    }
+
+    /**
+     *  Full HDR percentile distribution per operation, in milliseconds (the .hgrm format).
+     */
+    public void outputPercentileDistribution(final PrintStream out) {
+      for (OperationResult result : results.values()) {
+        out.println("# operation=" + result.operation());
+        result.latency().outputPercentileDistribution(out, 1_000_000d);
+      }
+    }
+
+    private static String millis(final long nanos) {
+      return String.format("%.3f", nanos / 1_000_000d);
+    }
+  }
+
+  private final S3Client s3Client;
+  private final Profile profile;
+  private final PartPayload payload;
+  private final @Nullable Semaphore gate;
+  private final Operation[] operations;
+  private final int[] cumulativeWeights;
+  private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+  private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+  public S3LoadGenerator(final S3Client s3Client, final Profile profile) {
+    this.s3Client = s3Client;
+    this.profile = profile;
+    this.payload = PartPayload.allocate(Math.max(1, profile.objectSize()));
+    this.gate = (profile.maxConcurrentRequests() > 0) ? new Semaphore(profile.maxConcurrentRequests(), true) : null;
+    List<Operation> weighted = new ArrayList<>();
+    List<Integer> cumulative = new ArrayList<>();
+    int total = 0;
+    for (Map.Entry<Operation, Integer> entry : profile.mix().entrySet()) {
+      if (entry.getValue() > 0) {
+        total += entry.getValue();
+        weighted.add(entry.getKey());
+        cumulative.add(total);
+      }
+    }
+    this.operations = weighted.toArray(new Operation[0]);
+    this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+    for (Operation operation : operations) {
+      recorders.put(operation, new Recorder(3));
+      errors.put(operation, new LongAdder());
+    }
+  }
+
+  /**
+   *  Writes the key space into {@code bucket}, runs the warm-up, then measures for {@code profile.measurement()}.
+   *  Requests still in flight when the measurement window closes are not counted.
+   */
+  public Report run(final String bucket) throws Exception {
+    populate(bucket);
+
+    final long warmUpNanos = profile.warmUp().toNanos();
+    final long measurementNanos = profile.measurement().toNanos();
+    final long intervalNanos = (profile.targetRatePerSecond() > 0)
+        ? Math.max(1L, (long) (1e9d / profile.targetRatePerSecond()))
+        : 0L;
+    final long start = System.nanoTime();
+    final long end = start + warmUpNanos + measurementNanos;
+    final AtomicLong nextStart = new AtomicLong(start);
+
+    logger.info("load: virtualThreads={} maxConcurrentRequests={} targetRate={}/s warmUp={} measurement={} mix={}",
+        profile.virtualThreads(), profile.maxConcurrentRequests(), profile.targetRatePerSecond(), profile.warmUp(), profile.measurement(), profile.mix());
+
+    final Map<Operation, OperationResult> results = new EnumMap<>(Operation.class);
+    final long measurementStart;
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < profile.virtualThreads(); i++) {
+        executor.execute(() -> generate(bucket, end, intervalNanos, nextStart));
+      }
+      sleepUntil(start + warmUpNanos);
+      recorders.values().forEach(Recorder::reset);
+      errors.values().forEach(LongAdder::reset);
+      measurementStart = System.nanoTime();
+      sleepUntil(end);
+      for (Operation operation : operations) {
+        results.put(operation, new OperationResult(operation,
+            recorders.get(operation).getIntervalHistogram(), errors.get(operation).sum()));
+      }
+    }
+    Report report = new Report(profile, Duration.ofNanos(end - measurementStart), results);
+    report.log();
+    return report;
+  }
+
+  private void populate(final String bucket) throws Exception {
+    final AtomicInteger nextKey = new AtomicInteger();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<?>> workers = new ArrayList<>();
+      for (int i = 0; i < Math.min(profile.virtualThreads(), profile.keySpace()); i++) {
+        workers.add(executor.submit(() -> {
+          int index;
+          while ((index = nextKey.getAndIncrement()) < profile.keySpace()) {
+            execute(Operation.PUT, bucket, key(index));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+    }
+  }
+
+  private void generate(final String bucket, final long end, final long intervalNanos, final AtomicLong nextStart) {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    while (true) {
+      final long scheduled;
+      if (intervalNanos > 0) {
+        scheduled = nextStart.getAndAdd(intervalNanos);
+        if (scheduled - end >= 0) {
+          return;
+        }
+        sleepUntil(scheduled);
+      } else {
+        scheduled = System.nanoTime();
+        if (scheduled - end >= 0) {
+          return;
+        }
+      }
+      final Operation operation = nextOperation(random);
+      final String key = key(random.nextInt(profile.keySpace()));
+      try {
+        execute(operation, bucket, key);
+      } catch (RuntimeException ex) {
+        errors.get(operation).increment();
+        logger.debug("{} failed: key={}", operation, key, ex);
+        continue;
+      }
+      recorders.get(operation).recordValue(System.nanoTime() - scheduled);
+    }
+  }
+
+  private void execute(final Operation operation, final String bucket, final String key) {
+    if (gate == null) {
+      send(operation, bucket, key);
+      return;
+    }
+    gate.acquireUninterruptibly();
+    try {
+      send(operation, bucket, key);
+    } finally {
+      gate.release();
+    }
+  }
+
+  private void send(final Operation operation, final String bucket, final String key) {
+    switch (operation) {
+      case PUT -> put(bucket, key);
+      case GET -> {
+        try (InputStream in = s3Client.getObject(request -> request.bucket(bucket).key(key))) {
+          in.transferTo(OutputStream.nullOutputStream());
+        } catch (NoSuchKeyException ex) {
+          // deleted by another thread
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }
+      case HEAD -> {
+        try {
+          s3Client.headObject(request -> request.bucket(bucket).key(key));
+        } catch (NoSuchKeyException ex) {
+          // deleted by another thread
+        }
+      }
+      case LIST -> s3Client.listObjectsV2(request -> request.bucket(bucket).prefix(KEY_PREFIX).maxKeys(LIST_MAX_KEYS));
+      case DELETE -> s3Client.deleteObject(request -> request.bucket(bucket).key(key));
+    }
+  }
+
+  private void put(final String bucket, final String key) {
+    s3Client.putObject(request -> request.bucket(bucket).key(key), payload.requestBody(profile.objectSize()));
+  }
+
+  private Operation nextOperation(final ThreadLocalRandom random) {
+    final int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (pick < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+    throw new IllegalStateException("unreachable");
+  }
+
+  private static String key(final int index) {
+    return KEY_PREFIX + index;
+  }
+
+  private static void sleepUntil(final long deadline) {
+    long remaining;
+    while ((remaining = deadline - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(remaining);
+    }
+  }
+}
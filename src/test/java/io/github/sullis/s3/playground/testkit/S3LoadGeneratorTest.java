@@ -0,0 +1,39 @@
+package io.github.sullis.s3.playground.testkit;
+
+import io.github.sullis.s3.playground.InProcessS3Extension;
+import io.github.sullis.s3.playground.S3ClientFactory;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class S3LoadGeneratorTest {
+  @RegisterExtension
+  static final InProcessS3Extension S3 = new InProcessS3Extension()
+      .withSyncClient(objectStorage -> S3ClientFactory.s3Client(objectStorage,
+          ApacheHttpClient.builder().maxConnections(8), null).client());
+
+  @Test
+  void manyVirtualThreadsShareOnePool(final S3Client s3Client) throws Exception {
+    S3SyncTestKit testKit = new S3SyncTestKit(s3Client, -1, false);
+    try {
+      S3LoadGenerator.Profile profile = S3LoadGenerator.Profile.readMostly(
+          200, 100, 8, Duration.ofMillis(500), Duration.ofSeconds(2));
+      S3LoadGenerator.Report report = testKit.generateLoad(profile);
+
+      assertThat(report.totalErrors()).isZero();
+      assertThat(report.results()).containsOnlyKeys(S3LoadGenerator.Operation.values());
+      assertThat(report.results().get(S3LoadGenerator.Operation.GET).count()).isPositive();
+      // the schedule never runs ahead of the target rate; requests already in flight when the warm-up
+      // ends may also land in the window, at most one per virtual thread
+      long scheduled = (long) (profile.targetRatePerSecond() * report.elapsed().toNanos() / 1e9d);
+      assertThat(report.totalCount()).isBetween(1L, scheduled + profile.virtualThreads());
+    } finally {
+      testKit.cleanup();
+    }
+  }
+}
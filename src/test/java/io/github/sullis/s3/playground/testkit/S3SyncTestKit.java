@@ -4,12 +4,15 @@ import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.assertj.core.util.Files;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.SdkResponse;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.core.sync.ResponseTransformer;
@@ -25,12 +28,14 @@ import software.amazon.awssdk.services.s3.model.CreateBucketResponse;
 import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.DeleteBucketResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.HeadBucketResponse;
 import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutBucketLifecycleConfigurationRequest;
 import software.amazon.awssdk.services.s3.model.PutBucketLifecycleConfigurationResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
@@ -50,10 +55,15 @@ public class S3SyncTestKit implements S3TestKit {
   private static final int PART_SIZE = 5 * 1024 * 1024;
   private static final int NUM_PARTS = 3;
   private static final long EXPECTED_OBJECT_SIZE = NUM_PARTS * PART_SIZE;
+  private static final PartPayload PART_PAYLOAD = PartPayload.allocate(PART_SIZE);
+  private static final StreamingChecksum.ContentChecksum EXPECTED_OBJECT_CHECKSUM =
+      StreamingChecksum.ofRepeated(PART_PAYLOAD.slice(), NUM_PARTS);
+  /** DeleteObjects limit */
+  private static final int MAX_DELETE_BATCH_SIZE = 1000;
 
   private static final Logger logger = LoggerFactory.getLogger(S3SyncTestKit.class);
 
-  private List<String> bucketsCreated = new ArrayList<>();
+  private final Queue<String> bucketsCreated = new ConcurrentLinkedQueue<>();
   private final S3Client s3Client;
   private final int bucketExpirationDays;
   private final boolean exerciseConditionalWrites;
@@ -91,10 +101,8 @@ public class S3SyncTestKit implements S3TestKit {
     final String uploadId = createMultipartUploadResponse.uploadId();
 
     List<CompletedPart> completedParts = new ArrayList<>();
-    final String partText = "a".repeat(PART_SIZE);
-
     for (int part = 1; part <= NUM_PARTS; part++) {
-      RequestBody requestBody = RequestBody.fromString(partText);
+      RequestBody requestBody = PART_PAYLOAD.requestBody();
       UploadPartRequest uploadPartRequest =
           UploadPartRequest.builder().bucket(bucket).key(key).uploadId(uploadId).partNumber(part).build();
       UploadPartResponse uploadPartResponse = s3Client.uploadPart(uploadPartRequest, requestBody);
@@ -129,11 +137,14 @@ public class S3SyncTestKit implements S3TestKit {
 
     assertThat(localFile).exists();
     assertThat(localFile).hasSize(EXPECTED_OBJECT_SIZE);
+    assertThat(StreamingChecksum.of(localPath)).isEqualTo(EXPECTED_OBJECT_CHECKSUM);
+
+    try (ResponseInputStream<GetObjectResponse> inputStream = s3Client.getObject(getObjectRequest)) {
+      assertThat(StreamingChecksum.of(inputStream)).isEqualTo(EXPECTED_OBJECT_CHECKSUM);
+    }
 
-    ListObjectsV2Request listObjectsV2Request = ListObjectsV2Request.builder().bucket(bucket).build();
-    ListObjectsV2Response listObjectsV2Response = s3Client.listObjectsV2(listObjectsV2Request);
-    assertSuccess(listObjectsV2Response);
-    List<S3Object> s3Objects = listObjectsV2Response.contents()
+    ListObjectsV2Request listObjectsV2Request = ListObjectsV2Request.builder().bucket(bucket).prefix(key).build();
+    List<S3Object> s3Objects = s3Client.listObjectsV2Paginator(listObjectsV2Request).contents()
         .stream()
         .filter(obj -> obj.key().equals(key))
         .toList();
@@ -196,16 +207,50 @@ public class S3SyncTestKit implements S3TestKit {
     return bucketName;
   }
 
+  /**
+   *  Aborts in-progress multipart uploads, then deletes every key (all pages)
+   *  with DeleteObjects in batches of {@value #MAX_DELETE_BATCH_SIZE}.
+   */
   @Override
   public void deleteBucket(final String bucketName) throws Exception {
     logger.info("deleteBucket: {}", bucketName);
-    for (S3Object s3Object : s3Client.listObjectsV2(request -> request.bucket(bucketName)).contents()) {
-      s3Client.deleteObject(request -> request.bucket(bucketName).key(s3Object.key()));
+    for (MultipartUpload upload : s3Client.listMultipartUploadsPaginator(request -> request.bucket(bucketName)).uploads()) {
+      s3Client.abortMultipartUpload(request -> request.bucket(bucketName).key(upload.key()).uploadId(upload.uploadId()));
+    }
+
+    List<ObjectIdentifier> batch = new ArrayList<>(MAX_DELETE_BATCH_SIZE);
+    for (S3Object s3Object : s3Client.listObjectsV2Paginator(request -> request.bucket(bucketName)).contents()) {
+      batch.add(ObjectIdentifier.builder().key(s3Object.key()).build());
+      if (batch.size() == MAX_DELETE_BATCH_SIZE) {
+        deleteObjects(bucketName, batch);
+        batch = new ArrayList<>(MAX_DELETE_BATCH_SIZE);
+      }
+    }
+    if (!batch.isEmpty()) {
+      deleteObjects(bucketName, batch);
     }
+
     DeleteBucketResponse response = s3Client.deleteBucket(request -> request.bucket(bucketName));
     assertSuccess(response);
   }
 
+  private void deleteObjects(final String bucketName, final List<ObjectIdentifier> keys) {
+    DeleteObjectsResponse response = s3Client.deleteObjects(request -> request
+        .bucket(bucketName)
+        .delete(delete -> delete.objects(keys).quiet(true)));
+    assertSuccess(response);
+    assertThat(response.errors()).isEmpty();
+  }
+
+  /**
+   *  Creates a bucket and runs {@link S3LoadGenerator} against it with this kit's client.
+   *  The bucket is deleted by {@link #cleanup()}.
+   */
+  public S3LoadGenerator.Report generateLoad(final S3LoadGenerator.Profile profile) throws Exception {
+    final String bucket = createNewBucket();
+    return new S3LoadGenerator(s3Client, profile).run(bucket);
+  }
+
   public void exerciseConditionalWrite(final String bucket) throws Exception {
     if (logger.isInfoEnabled()) {
       logger.info("exerciseConditionalWrite: {}", s3Client.getClass().getSimpleName());
@@ -284,7 +329,8 @@ public class S3SyncTestKit implements S3TestKit {
   }
 
   public void assertBucketExists(final String bucketName) {
-    Bucket bucket = s3Client.listBuckets().buckets().stream().filter(b -> b.name().equals(bucketName)).findFirst().get();
+    Bucket bucket = s3Client.listBuckets(request -> request.prefix(bucketName))
+        .buckets().stream().filter(b -> b.name().equals(bucketName)).findFirst().get();
     assertThat(bucket.creationDate()).isNotNull();
     assertThat(bucket.name()).isEqualTo(bucketName);
 
@@ -303,10 +349,14 @@ public class S3SyncTestKit implements S3TestKit {
     assertThat(sdkResponse.sdkHttpResponse().isSuccessful()).isTrue();
   }
 
+  /**
+   *  Safe to call from several threads; each bucket is deleted once.
+   */
   @Override
   public void cleanup() throws Exception {
-    for (String bucketName : bucketsCreated) {
-       deleteBucket(bucketName);
+    String bucketName;
+    while ((bucketName = bucketsCreated.poll()) != null) {
+      deleteBucket(bucketName);
     }
   }
 }
\ No newline at end of file
@@ -0,0 +1,202 @@
+package io.github.sullis.s3.playground.testkit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32C;
+import org.jspecify.annotations.Nullable;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.SdkPublisher;
+
+
+/**
+ *  CRC32C and/or SHA-256 computed incrementally as bytes go past, so content of any size is verified
+ *  in constant memory.
+ *
+ *  The static helpers cover the ways the test kits see content: a file, an {@link InputStream}
+ *  (including {@code ResponseInputStream}), an async response body ({@link #asyncResponseTransformer}),
+ *  and the expected value for {@link PartPayload} content repeated once per part ({@link #ofRepeated}).
+ *  Compare the resulting {@link ContentChecksum} records with {@code equals}.
+ */
+public final class StreamingChecksum {
+  private static final int READ_BUFFER_SIZE = 1024 * 1024;
+  private static final HexFormat HEX = HexFormat.of();
+
+  public enum Algorithm { CRC32C, SHA256 }
+
+  /**
+   *  Lowercase hex; an algorithm that was not computed is {@code null}.
+   */
+  public record ContentChecksum(long length, @Nullable String crc32c, @Nullable String sha256) { }
+
+  private final @Nullable CRC32C crc32c;
+  private final @Nullable MessageDigest sha256;
+  private long length;
+
+  private StreamingChecksum(final Set<Algorithm> algorithms) {
+    this.crc32c = algorithms.contains(Algorithm.CRC32C) ? new CRC32C() : null;
+    try {
+      this.sha256 = algorithms.contains(Algorithm.SHA256) ? MessageDigest.getInstance("SHA-256") : null;
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   *  @param algorithms none means all
+   */
+  public static StreamingChecksum create(final Algorithm... algorithms) {
+    return new StreamingChecksum((algorithms.length == 0)
+        ? EnumSet.allOf(Algorithm.class)
+        : EnumSet.of(algorithms[0], algorithms));
+  }
+
+  /**
+   *  Consumes the remaining bytes of {@code buffer}.
+   */
+  public StreamingChecksum update(final ByteBuffer buffer) {
+    length += buffer.remaining();
+    if (crc32c != null && sha256 != null) {
+      final int position = buffer.position();
+      crc32c.update(buffer);
+      buffer.position(position);
+      sha256.update(buffer);
+    } else if (crc32c != null) {
+      crc32c.update(buffer);
+    } else if (sha256 != null) {
+      sha256.update(buffer);
+    }
+    return this;
+  }
+
+  public StreamingChecksum update(final byte[] bytes, final int offset, final int count) {
+    length += count;
+    if (crc32c != null) {
+      crc32c.update(bytes, offset, count);
+    }
+    if (sha256 != null) {
+      sha256.update(bytes, offset, count);
+    }
+    return this;
+  }
+
+  public ContentChecksum finish() {
+    return new ContentChecksum(length,
+        (crc32c != null) ? HEX.toHexDigits((int) crc32c.getValue()) : null,
+        (sha256 != null) ? HEX.formatHex(sha256.digest()) : null);
+  }
+
+  public static ContentChecksum of(final Path file, final Algorithm... algorithms) throws IOException {
+    StreamingChecksum checksum = create(algorithms);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (channel.read(buffer.clear()) >= 0) {
+        checksum.update(buffer.flip());
+      }
+    }
+    return checksum.finish();
+  }
+
+  /**
+   *  Reads {@code in} to the end; does not close it.
+   */
+  public static ContentChecksum of(final InputStream in, final Algorithm... algorithms) throws IOException {
+    StreamingChecksum checksum = create(algorithms);
+    byte[] buffer = new byte[64 * 1024];
+    int n;
+    while ((n = in.read(buffer)) >= 0) {
+      checksum.update(buffer, 0, n);
+    }
+    return checksum.finish();
+  }
+
+  /**
+   *  Checksum of {@code content} repeated {@code times} times, e.g. a multipart object whose parts are
+   *  all the same {@link PartPayload}, without materializing the object.
+   */
+  public static ContentChecksum ofRepeated(final ByteBuffer content, final long times, final Algorithm... algorithms) {
+    StreamingChecksum checksum = create(algorithms);
+    for (long i = 0; i < times; i++) {
+      checksum.update(content.duplicate());
+    }
+    return checksum.finish();
+  }
+
+  /**
+   *  Checksums the response body as it arrives and discards it. Each retry attempt starts over.
+   */
+  public static <ResponseT> AsyncResponseTransformer<ResponseT, ContentChecksum> asyncResponseTransformer(
+      final Algorithm... algorithms) {
+    return new ChecksumTransformer<>(algorithms);
+  }
+
+  private static final class ChecksumTransformer<ResponseT>
+      implements AsyncResponseTransformer<ResponseT, ContentChecksum> {
+    private final Algorithm[] algorithms;
+    private volatile CompletableFuture<ContentChecksum> future;
+
+    ChecksumTransformer(final Algorithm[] algorithms) {
+      this.algorithms = algorithms;
+    }
+
+    @Override
+    public CompletableFuture<ContentChecksum> prepare() {
+      future = new CompletableFuture<>();
+      return future;
+    }
+
+    @Override
+    public void onResponse(final ResponseT response) {
+    }
+
+    @Override
+    public void onStream(final SdkPublisher<ByteBuffer> publisher) {
+      final CompletableFuture<ContentChecksum> attempt = future;
+      final StreamingChecksum checksum = create(algorithms);
+      publisher.subscribe(new Subscriber<ByteBuffer>() {
+        private Subscription subscription;
+
+        @Override
+        public void onSubscribe(final Subscription s) {
+          subscription = s;
+          s.request(1);
+        }
+
+        @Override
+        public void onNext(final ByteBuffer byteBuffer) {
+          checksum.update(byteBuffer);
+          subscription.request(1);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+          attempt.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+          attempt.complete(checksum.finish());
+        }
+      });
+    }
+
+    @Override
+    public void exceptionOccurred(final Throwable error) {
+      final CompletableFuture<ContentChecksum> attempt = future;
+      if (attempt != null) {
+        attempt.completeExceptionally(error);
+      }
+    }
+  }
+}